@@ -0,0 +1,69 @@
+/*
+ * BenchmarkPoints.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates the points converted by the benchmarks. Points lie in one
+ * latitude band at a fixed distance east or west of their zone's central
+ * meridian, so each benchmark parameter combination exercises one region of
+ * the projection.
+ */
+final class BenchmarkPoints {
+
+    /** Number of points cycled through by a benchmark, a power of two. */
+    static final int COUNT = 1024;
+
+    static final int MASK = COUNT - 1;
+
+    private static final String BAND_LETTERS = "CDEFGHJKLMNPQRSTUVWX";
+
+    final double[] latitude = new double[COUNT];
+    final double[] longitude = new double[COUNT];
+
+    /**
+     * @param band latitude band letter, C to X
+     * @param centralMeridianOffset distance from the central meridian in
+     * degrees, below 3
+     */
+    BenchmarkPoints(String band, double centralMeridianOffset) {
+
+        int bandIndex = BAND_LETTERS.indexOf(band);
+
+        if (band.length() != 1 || bandIndex < 0)
+            throw new IllegalArgumentException("Unknown latitude band " + band);
+
+        double southEdge = -80.0 + 8.0 * bandIndex;
+        double bandHeight = band.equals("X") ? 12.0 : 8.0;
+
+        Random random = new Random(band.hashCode());
+
+        for (int i = 0; i < COUNT; i++) {
+
+            int zone = 1 + random.nextInt(60);
+            double centralMeridian = zone * 6 - 183;
+            double side = (i & 1) == 0 ? 1.0 : -1.0;
+
+            latitude[i] = southEdge + random.nextDouble() * bandHeight;
+            longitude[i] = centralMeridian + side * centralMeridianOffset;
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * CoalescerBenchmark.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.cirdles.geoapp.ConversionCoalescer;
+import org.cirdles.geoapp.LatLongToUTM;
+import org.cirdles.geoapp.UTM;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single point conversions from many threads, each calling
+ * LatLongToUTM.convert directly or submitting through a shared
+ * ConversionCoalescer and waiting for the result. The batch size histogram
+ * of each coalescer run is printed at the end of the trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class CoalescerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+
+        @Param({"50", "200"})
+        public long maxDelayMicros;
+
+        @Param({"256"})
+        public int maxBatchSize;
+
+        ConversionCoalescer coalescer;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            coalescer = new ConversionCoalescer("WGS84", maxBatchSize,
+                    maxDelayMicros, TimeUnit.MICROSECONDS);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            coalescer.close();
+            System.out.println("batch size histogram (powers of two): "
+                    + Arrays.toString(coalescer.getBatchSizeHistogram()));
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Points {
+
+        final BenchmarkPoints points = new BenchmarkPoints("T", 1.5);
+        int next;
+
+    }
+
+    @Benchmark
+    public UTM direct(Points points) {
+        int i = points.next++ & BenchmarkPoints.MASK;
+        return LatLongToUTM.convert(points.points.latitude[i],
+                points.points.longitude[i], "WGS84");
+    }
+
+    @Benchmark
+    public UTM coalesced(Shared shared, Points points)
+            throws InterruptedException, ExecutionException {
+        int i = points.next++ & BenchmarkPoints.MASK;
+        return shared.coalescer.submit(points.points.latitude[i],
+                points.points.longitude[i]).get();
+    }
+
+}
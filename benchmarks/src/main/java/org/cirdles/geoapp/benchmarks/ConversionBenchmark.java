@@ -0,0 +1,211 @@
+/*
+ * ConversionBenchmark.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.cirdles.geoapp.ConversionCache;
+import org.cirdles.geoapp.Datum;
+import org.cirdles.geoapp.LatLong;
+import org.cirdles.geoapp.LatLongToUTM;
+import org.cirdles.geoapp.MGRS;
+import org.cirdles.geoapp.MutableLatLong;
+import org.cirdles.geoapp.MutableUTM;
+import org.cirdles.geoapp.SeriesOrder;
+import org.cirdles.geoapp.TransverseMercatorEngine;
+import org.cirdles.geoapp.UTM;
+import org.cirdles.geoapp.UTMToLatLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single point forward and inverse conversions, parameterized by datum,
+ * latitude band and distance from the central meridian.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConversionBenchmark {
+
+    @Param({"WGS84", "NAD27", "CLARKE_1880"})
+    public String datum;
+
+    @Param({"C", "M", "N", "T", "X"})
+    public String band;
+
+    @Param({"0.1", "1.5", "2.9"})
+    public double centralMeridianOffset;
+
+    private double[] latitude;
+    private double[] longitude;
+    private BigDecimal[] bigLatitude;
+    private BigDecimal[] bigLongitude;
+    private UTM[] utm;
+    private MutableUTM[] mutableUTM;
+    private Datum datumConstant;
+    private final MutableUTM utmHolder = new MutableUTM();
+    private final MutableLatLong latLongHolder = new MutableLatLong();
+    private final char[] reference = new char[MGRS.length(1)];
+    private final double[] easting = new double[1];
+    private final double[] northing = new double[1];
+    private TransverseMercatorEngine engine;
+    private TransverseMercatorEngine fastEngine;
+    private TransverseMercatorEngine order4Engine;
+    // holds every point, so the cached benchmarks measure hits
+    private ConversionCache cache;
+    private int index;
+
+    @Setup
+    public void setUp() {
+
+        BenchmarkPoints points = new BenchmarkPoints(band, centralMeridianOffset);
+
+        latitude = points.latitude;
+        longitude = points.longitude;
+        bigLatitude = new BigDecimal[BenchmarkPoints.COUNT];
+        bigLongitude = new BigDecimal[BenchmarkPoints.COUNT];
+        utm = new UTM[BenchmarkPoints.COUNT];
+        mutableUTM = new MutableUTM[BenchmarkPoints.COUNT];
+        datumConstant = Datum.fromName(datum);
+        engine = TransverseMercatorEngine.forDatum(datumConstant);
+        fastEngine = engine.withFastConformalLatitude();
+        order4Engine = engine.withSeriesOrder(SeriesOrder.ORDER_4);
+        cache = new ConversionCache(datumConstant, 4 * BenchmarkPoints.COUNT);
+
+        for (int i = 0; i < BenchmarkPoints.COUNT; i++) {
+            bigLatitude[i] = new BigDecimal(latitude[i]);
+            bigLongitude[i] = new BigDecimal(longitude[i]);
+            utm[i] = LatLongToUTM.convert(latitude[i], longitude[i], datum);
+            mutableUTM[i] = new MutableUTM();
+            LatLongToUTM.convertInto(latitude[i], longitude[i], datumConstant,
+                    mutableUTM[i]);
+        }
+
+        MGRS.encode(mutableUTM[0], 1, reference, 0);
+
+    }
+
+    private int next() {
+        index = (index + 1) & BenchmarkPoints.MASK;
+        return index;
+    }
+
+    @Benchmark
+    public UTM latLongToUTMDouble() {
+        int i = next();
+        return LatLongToUTM.convert(latitude[i], longitude[i], datum);
+    }
+
+    @Benchmark
+    public UTM latLongToUTMBigDecimal() {
+        int i = next();
+        return LatLongToUTM.convert(bigLatitude[i], bigLongitude[i], datum);
+    }
+
+    @Benchmark
+    public String utmToLatLong() {
+        return UTMToLatLong.convert(utm[next()], datum);
+    }
+
+    @Benchmark
+    public LatLong utmToLatLongNumeric() {
+        return UTMToLatLong.toLatLong(utm[next()], datum);
+    }
+
+    @Benchmark
+    public MutableUTM latLongToUTMInto() {
+        int i = next();
+        LatLongToUTM.convertInto(latitude[i], longitude[i], datumConstant,
+                utmHolder);
+        return utmHolder;
+    }
+
+    @Benchmark
+    public MutableLatLong utmToLatLongInto() {
+        UTMToLatLong.convertInto(mutableUTM[next()], datumConstant,
+                latLongHolder);
+        return latLongHolder;
+    }
+
+    @Benchmark
+    public MutableUTM latLongToUTMCached() {
+        int i = next();
+        cache.toUTM(latitude[i], longitude[i], utmHolder);
+        return utmHolder;
+    }
+
+    @Benchmark
+    public MutableLatLong utmToLatLongCached() {
+        MutableUTM point = mutableUTM[next()];
+        cache.toLatLong(point.getEasting(), point.getNorthing(),
+                point.getZoneNumber(), point.getHemisphere(), latLongHolder);
+        return latLongHolder;
+    }
+
+    @Benchmark
+    public double[] engineForward() {
+        int i = next();
+        engine.forward(latitude[i], longitude[i],
+                TransverseMercatorEngine.calcZoneNumber(longitude[i]), easting,
+                northing, 0);
+        return easting;
+    }
+
+    @Benchmark
+    public double[] engineForwardFast() {
+        int i = next();
+        fastEngine.forward(latitude[i], longitude[i],
+                TransverseMercatorEngine.calcZoneNumber(longitude[i]), easting,
+                northing, 0);
+        return easting;
+    }
+
+    @Benchmark
+    public double[] engineForwardOrder4() {
+        int i = next();
+        order4Engine.forward(latitude[i], longitude[i],
+                TransverseMercatorEngine.calcZoneNumber(longitude[i]), easting,
+                northing, 0);
+        return easting;
+    }
+
+    @Benchmark
+    public char[] mgrsEncode() {
+        MGRS.encode(mutableUTM[next()], 1, reference, 0);
+        return reference;
+    }
+
+    @Benchmark
+    public MutableUTM mgrsDecode() {
+        MGRS.decode(reference, 0, reference.length, utmHolder);
+        return utmHolder;
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * KrugerSeriesBenchmark.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.cirdles.geoapp.Datum;
+import org.cirdles.geoapp.KrugerSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Each Krüger series coefficient, and the whole series at once in double
+ * precision, parameterized by the datum whose third flattening is used.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KrugerSeriesBenchmark {
+
+    @Param({"WGS84", "NAD27", "CLARKE_1880"})
+    public String datum;
+
+    private BigDecimal flattening3D;
+    private double n;
+
+    @Setup
+    public void setUp() {
+        n = Datum.valueOf(datum).getFlattening3D();
+        flattening3D = new BigDecimal(n);
+    }
+
+    @Benchmark
+    public BigDecimal alpha1() {
+        return KrugerSeries.alpha1(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal alpha2() {
+        return KrugerSeries.alpha2(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal alpha3() {
+        return KrugerSeries.alpha3(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal alpha4() {
+        return KrugerSeries.alpha4(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal alpha5() {
+        return KrugerSeries.alpha5(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal alpha6() {
+        return KrugerSeries.alpha6(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal alpha7() {
+        return KrugerSeries.alpha7(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal beta1() {
+        return KrugerSeries.beta1(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal beta2() {
+        return KrugerSeries.beta2(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal beta3() {
+        return KrugerSeries.beta3(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal beta4() {
+        return KrugerSeries.beta4(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal beta5() {
+        return KrugerSeries.beta5(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal beta6() {
+        return KrugerSeries.beta6(flattening3D);
+    }
+
+    @Benchmark
+    public BigDecimal beta7() {
+        return KrugerSeries.beta7(flattening3D);
+    }
+
+    @Benchmark
+    public double[] alphaSeries() {
+        return KrugerSeries.alphaSeries(n);
+    }
+
+    @Benchmark
+    public double[] betaSeries() {
+        return KrugerSeries.betaSeries(n);
+    }
+
+}
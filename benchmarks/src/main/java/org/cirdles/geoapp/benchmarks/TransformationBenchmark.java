@@ -0,0 +1,95 @@
+/*
+ * TransformationBenchmark.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.cirdles.geoapp.Datum;
+import org.cirdles.geoapp.DatumTransformation;
+import org.cirdles.geoapp.LatLongToUTM;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Datum transformation of a batch followed by projection, as two passes
+ * through intermediate arrays and as the fused single pass.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransformationBenchmark {
+
+    @Param({"NAD27", "WGS72"})
+    public String source;
+
+    private DatumTransformation transformation;
+    private double[] latitude;
+    private double[] longitude;
+    private final double[] transformedLatitude = new double[BenchmarkPoints.COUNT];
+    private final double[] transformedLongitude = new double[BenchmarkPoints.COUNT];
+    private final double[] easting = new double[BenchmarkPoints.COUNT];
+    private final double[] northing = new double[BenchmarkPoints.COUNT];
+    private final int[] zoneNumber = new int[BenchmarkPoints.COUNT];
+    private final char[] zoneLetter = new char[BenchmarkPoints.COUNT];
+
+    @Setup
+    public void setUp() {
+
+        BenchmarkPoints points = new BenchmarkPoints("T", 1.5);
+
+        latitude = points.latitude;
+        longitude = points.longitude;
+        transformation = DatumTransformation.forDatums(Datum.fromName(source),
+                Datum.WGS84);
+
+    }
+
+    @Benchmark
+    public double[] twoPasses() {
+
+        transformation.transform(latitude, longitude, null, transformedLatitude,
+                transformedLongitude, null, 0, BenchmarkPoints.COUNT);
+        LatLongToUTM.convert(transformedLatitude, transformedLongitude,
+                Datum.WGS84, easting, northing, zoneNumber, zoneLetter);
+
+        return easting;
+
+    }
+
+    @Benchmark
+    public double[] fused() {
+
+        transformation.toUTM(latitude, longitude, null, easting, northing,
+                zoneNumber, zoneLetter, 0, BenchmarkPoints.COUNT);
+
+        return easting;
+
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * VectorBenchmark.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.cirdles.geoapp.Datum;
+import org.cirdles.geoapp.TransverseMercatorEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Forward projection of one zone's worth of points through the SIMD kernel
+ * and through the scalar path. Both forks run with the vector module; the
+ * scalar fork turns the kernel off with -Dgeoapp.vector=false. Needs Java 17
+ * or later.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class VectorBenchmark {
+
+    @Param({"WGS84", "NAD27"})
+    public String datum;
+
+    @Param({"C", "N", "T"})
+    public String band;
+
+    private TransverseMercatorEngine engine;
+    private final double[] latitude = new double[BenchmarkPoints.COUNT];
+    private final double[] longitude = new double[BenchmarkPoints.COUNT];
+    private final double[] easting = new double[BenchmarkPoints.COUNT];
+    private final double[] northing = new double[BenchmarkPoints.COUNT];
+
+    @Setup
+    public void setUp() {
+
+        BenchmarkPoints points = new BenchmarkPoints(band, 1.5);
+
+        // move every point into zone 31, keeping its offset from the
+        // central meridian
+        for (int i = 0; i < BenchmarkPoints.COUNT; i++) {
+            int zone = TransverseMercatorEngine.calcZoneNumber(points.longitude[i]);
+            latitude[i] = points.latitude[i];
+            longitude[i] = 3.0 + points.longitude[i] - (zone * 6 - 183);
+        }
+
+        engine = TransverseMercatorEngine.forDatum(Datum.fromName(datum));
+
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public double[] vector() {
+        engine.forward(latitude, longitude, 31, easting, northing, 0,
+                BenchmarkPoints.COUNT);
+        return easting;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector",
+        "-Dgeoapp.vector=false"})
+    public double[] scalar() {
+        engine.forward(latitude, longitude, 31, easting, northing, 0,
+                BenchmarkPoints.COUNT);
+        return easting;
+    }
+
+}
@@ -0,0 +1,325 @@
+/*
+ * BatchHandler.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.cirdles.geoapp.ZoneBatchScheduler;
+
+/**
+ * Converts a batch of points posted to /batch/utm or /batch/latlong, with
+ * the datum in the query string (WGS84 if absent).
+ * <p>
+ * A JSON body is an array of points, [[lat, lon], ...] for /batch/utm and
+ * [[easting, northing, zone, "band"], ...] for /batch/latlong, answered by
+ * an array of [easting, northing, zone, "band"] or [lat, lon]. A body of
+ * type application/octet-stream is a run of little endian records: two
+ * doubles for latitude and longitude, answered by two doubles for easting
+ * and northing followed by a zone byte and an ASCII band byte, and the
+ * other way round for /batch/latlong.
+ * <p>
+ * The body is read, converted and answered in chunks of CHUNK points, so a
+ * batch of any size is streamed in constant memory. A malformed point found
+ * before the first chunk is answered with 400; after the response has begun
+ * the connection is dropped instead, so the client sees a truncated response
+ * rather than a short one.
+ */
+final class BatchHandler implements HttpHandler {
+
+    static final int CHUNK = 4096;
+
+    // bytes of a binary record of lat lon, and of easting northing zone band
+    static final int LAT_LONG_RECORD = 16;
+    static final int UTM_RECORD = 18;
+
+    private final boolean toUTM;
+
+    /**
+     * @param toUTM true for /batch/utm, false for /batch/latlong
+     */
+    BatchHandler(boolean toUTM) {
+        this.toUTM = toUTM;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+
+        try {
+
+            if (!Exchanges.accept(exchange, "POST"))
+                return;
+
+            new Batch(exchange).run();
+
+        } catch (IllegalArgumentException e) {
+
+            if (exchange.getResponseCode() != -1)
+                throw new IOException("Malformed batch after response began",
+                        e);
+
+            Exchanges.sendError(exchange, 400, e.getMessage());
+
+        } finally {
+            exchange.close();
+        }
+
+    }
+
+    /**
+     * State of one request.
+     */
+    private final class Batch {
+
+        private final HttpExchange exchange;
+        private final boolean binary;
+        private final ZoneBatchScheduler scheduler;
+        private final InputStream in;
+
+        private final JsonReader reader;
+        private boolean endOfInput;
+        private JsonWriter writer;
+        private boolean wroteAny;
+        private OutputStream out;
+
+        private final byte[] inRecords;
+        private final byte[] outRecords;
+
+        // lat lon or easting northing zone band, in and out
+        private final double[] latitude = new double[CHUNK];
+        private final double[] longitude = new double[CHUNK];
+        private final double[] easting = new double[CHUNK];
+        private final double[] northing = new double[CHUNK];
+        private final int[] zoneNumber = new int[CHUNK];
+        private final char[] zoneLetter = new char[CHUNK];
+
+        Batch(HttpExchange exchange) throws IOException {
+
+            this.exchange = exchange;
+            this.binary = Exchanges.hasContentType(exchange, Exchanges.BINARY);
+            this.scheduler = new ZoneBatchScheduler(Exchanges.datum(
+                    exchange.getRequestURI().getRawQuery()));
+            this.in = exchange.getRequestBody();
+
+            if (binary) {
+                reader = null;
+                inRecords = new byte[CHUNK
+                        * (toUTM ? LAT_LONG_RECORD : UTM_RECORD)];
+                outRecords = new byte[CHUNK
+                        * (toUTM ? UTM_RECORD : LAT_LONG_RECORD)];
+            } else {
+                reader = new JsonReader(in);
+                reader.expect(JsonReader.BEGIN_ARRAY);
+                inRecords = null;
+                outRecords = null;
+            }
+
+        }
+
+        void run() throws IOException {
+
+            int count;
+
+            do {
+
+                count = binary ? readBinary() : readJson();
+
+                if (count > 0) {
+
+                    if (toUTM)
+                        scheduler.toUTM(latitude, longitude, easting, northing,
+                                zoneNumber, zoneLetter, 0, count);
+                    else
+                        scheduler.toLatLong(easting, northing, zoneNumber,
+                                zoneLetter, latitude, longitude, 0, count);
+                }
+
+                begin();
+
+                if (binary)
+                    writeBinary(count);
+                else
+                    writeJson(count);
+
+            } while (count == CHUNK);
+
+            if (binary) {
+                out.close();
+            } else {
+                writer.write(']');
+                writer.flush();
+                out.close();
+            }
+
+        }
+
+        private void begin() throws IOException {
+
+            if (out != null)
+                return;
+
+            exchange.getResponseHeaders().set("Content-Type",
+                    binary ? Exchanges.BINARY : Exchanges.JSON);
+            exchange.sendResponseHeaders(200, 0);
+            out = exchange.getResponseBody();
+
+            if (!binary) {
+                writer = new JsonWriter(out);
+                writer.write('[');
+            }
+
+        }
+
+        private int readJson() throws IOException {
+
+            int count = 0;
+
+            while (count < CHUNK && !endOfInput) {
+
+                int token = reader.next();
+
+                if (token == JsonReader.END_ARRAY) {
+                    endOfInput = true;
+                    break;
+                }
+
+                if (token != JsonReader.BEGIN_ARRAY)
+                    throw new IllegalArgumentException("Malformed JSON batch");
+
+                if (toUTM) {
+                    reader.expect(JsonReader.NUMBER);
+                    latitude[count] = reader.number();
+                    reader.expect(JsonReader.NUMBER);
+                    longitude[count] = reader.number();
+                    Exchanges.checkLatLong(latitude[count], longitude[count]);
+                } else {
+                    reader.expect(JsonReader.NUMBER);
+                    easting[count] = reader.number();
+                    reader.expect(JsonReader.NUMBER);
+                    northing[count] = reader.number();
+                    reader.expect(JsonReader.NUMBER);
+                    zoneNumber[count] = reader.integer();
+                    reader.expect(JsonReader.STRING);
+                    zoneLetter[count] = Character.toUpperCase(
+                            reader.character());
+                    Exchanges.checkZone(zoneNumber[count], zoneLetter[count]);
+                }
+
+                reader.expect(JsonReader.END_ARRAY);
+                count++;
+            }
+
+            if (endOfInput && reader.next() != JsonReader.END)
+                throw new IllegalArgumentException("Malformed JSON batch");
+
+            return count;
+
+        }
+
+        private void writeJson(int count) throws IOException {
+
+            for (int i = 0; i < count; i++) {
+
+                if (wroteAny)
+                    writer.write(',');
+
+                writer.write('[');
+
+                if (toUTM)
+                    writer.number(easting[i], 4).write(',')
+                            .number(northing[i], 4).write(',')
+                            .integer(zoneNumber[i]).write(',')
+                            .string(zoneLetter[i]);
+                else
+                    writer.number(latitude[i], 9).write(',')
+                            .number(longitude[i], 9);
+
+                writer.write(']');
+                wroteAny = true;
+            }
+
+        }
+
+        private int readBinary() throws IOException {
+
+            int length = 0;
+            int read;
+
+            while (length < inRecords.length
+                    && (read = in.read(inRecords, length,
+                            inRecords.length - length)) > 0)
+                length += read;
+
+            int recordSize = toUTM ? LAT_LONG_RECORD : UTM_RECORD;
+
+            if (length % recordSize != 0)
+                throw new IllegalArgumentException("Truncated binary record");
+
+            ByteBuffer records = ByteBuffer.wrap(inRecords, 0, length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            int count = length / recordSize;
+
+            for (int i = 0; i < count; i++) {
+
+                if (toUTM) {
+                    latitude[i] = records.getDouble();
+                    longitude[i] = records.getDouble();
+                    Exchanges.checkLatLong(latitude[i], longitude[i]);
+                } else {
+                    easting[i] = records.getDouble();
+                    northing[i] = records.getDouble();
+                    zoneNumber[i] = records.get();
+                    zoneLetter[i] = Character.toUpperCase(
+                            (char) (records.get() & 0xff));
+                    Exchanges.checkZone(zoneNumber[i], zoneLetter[i]);
+                }
+            }
+
+            return count;
+
+        }
+
+        private void writeBinary(int count) throws IOException {
+
+            ByteBuffer records = ByteBuffer.wrap(outRecords)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+
+            for (int i = 0; i < count; i++) {
+
+                if (toUTM) {
+                    records.putDouble(easting[i]);
+                    records.putDouble(northing[i]);
+                    records.put((byte) zoneNumber[i]);
+                    records.put((byte) zoneLetter[i]);
+                } else {
+                    records.putDouble(latitude[i]);
+                    records.putDouble(longitude[i]);
+                }
+            }
+
+            out.write(outRecords, 0, records.position());
+
+        }
+
+    }
+
+}
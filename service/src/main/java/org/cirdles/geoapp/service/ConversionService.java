@@ -0,0 +1,159 @@
+/*
+ * ConversionService.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.service;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP service for the conversions, on the HTTP server of the JDK.
+ * <ul>
+ * <li>GET /utm and GET /latlong convert one point, see PointHandler</li>
+ * <li>POST /batch/utm and POST /batch/latlong stream a batch in JSON or in
+ * binary records, see BatchHandler</li>
+ * </ul>
+ * Requests run on virtual threads when the JVM has them (Java 21 and later)
+ * and on a fixed pool of platform threads otherwise.
+ */
+public final class ConversionService {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    /**
+     * @param port to listen on, 0 for any free port
+     * @param threads size of the pool used without virtual threads
+     * @throws IOException if the port cannot be bound
+     */
+    public ConversionService(int port, int threads) throws IOException {
+
+        if (threads < 1)
+            throw new IllegalArgumentException("Invalid thread count " + threads);
+
+        // the server writes the headers and the body of a response
+        // separately; with Nagle's algorithm the second write waits for the
+        // client's delayed acknowledgement, 40 ms on Linux
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/utm", new PointHandler(true));
+        server.createContext("/latlong", new PointHandler(false));
+        server.createContext("/batch/utm", new BatchHandler(true));
+        server.createContext("/batch/latlong", new BatchHandler(false));
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtualThreads ? virtual : Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to delay seconds for those in
+     * progress.
+     *
+     * @param delay in seconds
+     */
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdown();
+    }
+
+    /**
+     * @return the port listened on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return true if requests run on virtual threads
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return Executors.newVirtualThreadPerTaskExecutor(), or null if the JVM
+     * has no virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+
+        try {
+            Method factory = Executors.class.getMethod(
+                    "newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+
+    }
+
+    /**
+     * Runs the service until the JVM exits.
+     *
+     * @param args --port n (default 8080) and --threads n (default twice the
+     * processors, used without virtual threads)
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+
+        int port = DEFAULT_PORT;
+        int threads = 2 * Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+
+            if ("--port".equals(args[i]) && i + 1 < args.length)
+                port = Integer.parseInt(args[++i]);
+            else if ("--threads".equals(args[i]) && i + 1 < args.length)
+                threads = Integer.parseInt(args[++i]);
+            else {
+                System.err.println("Usage: ConversionService [--port n] [--threads n]");
+                System.exit(2);
+            }
+        }
+
+        final ConversionService service = new ConversionService(port, threads);
+
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                service.stop(1);
+            }
+        });
+
+        service.start();
+        System.out.println("Listening on port " + service.getPort() + " with "
+                + (service.isVirtualThreads() ? "virtual threads"
+                        : threads + " threads"));
+
+    }
+
+}
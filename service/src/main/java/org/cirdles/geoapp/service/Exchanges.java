@@ -0,0 +1,202 @@
+/*
+ * Exchanges.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import org.cirdles.geoapp.TransverseMercatorEngine;
+
+/**
+ * Query parameters and error responses shared by the handlers.
+ */
+final class Exchanges {
+
+    static final String JSON = "application/json";
+    static final String BINARY = "application/octet-stream";
+    static final String DEFAULT_DATUM = "WGS84";
+
+    private Exchanges() {
+    }
+
+    /**
+     * @param query raw query string of the request, may be null
+     * @param name
+     * @return the decoded value of the parameter, or null if it is absent
+     */
+    static String parameter(String query, String name) {
+
+        if (query == null)
+            return null;
+
+        int start = 0;
+
+        while (start <= query.length()) {
+
+            int end = query.indexOf('&', start);
+
+            if (end < 0)
+                end = query.length();
+
+            int equals = query.indexOf('=', start);
+
+            if (equals > start && equals < end
+                    && query.regionMatches(start, name, 0, name.length())
+                    && equals - start == name.length()) {
+
+                try {
+                    return URLDecoder.decode(query.substring(equals + 1, end),
+                            "UTF-8");
+                } catch (UnsupportedEncodingException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            start = end + 1;
+        }
+
+        return null;
+
+    }
+
+    /**
+     * @return the parameter as a number
+     * @throws IllegalArgumentException if it is absent or not a number
+     */
+    static double number(String query, String name) {
+
+        String value = parameter(query, name);
+
+        if (value == null)
+            throw new IllegalArgumentException("Missing parameter " + name);
+
+        return Double.parseDouble(value);
+
+    }
+
+    /**
+     * @return the datum parameter, WGS84 if absent
+     */
+    static String datum(String query) {
+
+        String value = parameter(query, "datum");
+
+        return value == null ? DEFAULT_DATUM : value;
+
+    }
+
+    /**
+     * Checks that a point lies in the latitude bands of UTM, 80S to 84N,
+     * so its answer can be sent back for the inverse.
+     */
+    static void checkLatLong(double latitude, double longitude) {
+
+        if (!(latitude >= -80 && latitude <= 84))
+            throw new IllegalArgumentException("Latitude outside of UTM "
+                    + latitude);
+
+        if (!(longitude >= -180 && longitude <= 180))
+            throw new IllegalArgumentException("Invalid longitude " + longitude);
+
+    }
+
+    /**
+     * Checks a zone of 1 to 60 and a band of C to X without I and O.
+     *
+     * @return the hemisphere of the band
+     */
+    static char checkZone(int zoneNumber, char zoneLetter) {
+
+        if (zoneNumber < 1 || zoneNumber > 60)
+            throw new IllegalArgumentException("Invalid zone " + zoneNumber);
+
+        return TransverseMercatorEngine.hemisphereOfBand(zoneLetter);
+
+    }
+
+    /**
+     * @return true if the request has a body of the given content type
+     */
+    static boolean hasContentType(HttpExchange exchange, String type) {
+
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+
+        return contentType != null && contentType.startsWith(type);
+
+    }
+
+    /**
+     * Sends a JSON body of known length.
+     */
+    static void send(HttpExchange exchange, int status,
+            ByteArrayOutputStream body) throws IOException {
+
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.size());
+
+        OutputStream out = exchange.getResponseBody();
+        body.writeTo(out);
+        out.close();
+
+    }
+
+    /**
+     * Sends {"error": message}.
+     */
+    static void sendError(HttpExchange exchange, int status, String message)
+            throws IOException {
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(body);
+        writer.write('{').name("error")
+                .string(message == null ? "Bad request" : message).write('}');
+        writer.flush();
+
+        send(exchange, status, body);
+
+    }
+
+    /**
+     * Checks that the request is for exactly the path of its context, with
+     * the given method, and sends 404 or 405 if not.
+     *
+     * @return true if the request should be handled
+     */
+    static boolean accept(HttpExchange exchange, String method)
+            throws IOException {
+
+        if (!exchange.getRequestURI().getPath().equals(
+                exchange.getHttpContext().getPath())) {
+            sendError(exchange, 404, "Not found");
+            return false;
+        }
+
+        if (!method.equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", method);
+            sendError(exchange, 405, "Use " + method);
+            return false;
+        }
+
+        return true;
+
+    }
+
+}
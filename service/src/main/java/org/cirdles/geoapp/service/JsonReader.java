@@ -0,0 +1,171 @@
+/*
+ * JsonReader.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import org.cirdles.geoapp.AsciiNumbers;
+
+/**
+ * Streaming reader of the JSON accepted by the service: nested arrays of
+ * numbers and short strings. It reads the body through one buffer and
+ * parses numbers in place, so a batch of any size is read in constant
+ * memory. Commas and white space between values are skipped.
+ */
+final class JsonReader {
+
+    static final int END = 0;
+    static final int BEGIN_ARRAY = 1;
+    static final int END_ARRAY = 2;
+    static final int NUMBER = 3;
+    static final int STRING = 4;
+
+    private static final int MAX_TOKEN = 64;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private final byte[] token = new byte[MAX_TOKEN];
+    private int position;
+    private int limit;
+    private int tokenLength;
+
+    JsonReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * @return the type of the next token, END at the end of the body
+     * @throws IOException
+     * @throws IllegalArgumentException if the body is not such JSON
+     */
+    int next() throws IOException {
+
+        int c = read();
+
+        while (c == ' ' || c == ',' || c == '\n' || c == '\r' || c == '\t')
+            c = read();
+
+        if (c < 0)
+            return END;
+
+        if (c == '[')
+            return BEGIN_ARRAY;
+
+        if (c == ']')
+            return END_ARRAY;
+
+        tokenLength = 0;
+
+        if (c == '"') {
+
+            for (c = read(); c != '"'; c = read()) {
+
+                if (c < 0 || c == '\\')
+                    throw new IllegalArgumentException("Unsupported string");
+
+                append(c);
+            }
+
+            return STRING;
+        }
+
+        if (c == '-' || c >= '0' && c <= '9') {
+
+            while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E'
+                    || c >= '0' && c <= '9') {
+                append(c);
+                c = read();
+            }
+
+            // the byte after the number belongs to the next token
+            if (c >= 0)
+                position--;
+
+            return NUMBER;
+        }
+
+        throw new IllegalArgumentException("Unexpected '" + (char) c + "'");
+
+    }
+
+    /**
+     * Reads the next token and checks its type.
+     *
+     * @param type
+     * @throws IOException
+     */
+    void expect(int type) throws IOException {
+
+        if (next() != type)
+            throw new IllegalArgumentException("Malformed JSON batch");
+
+    }
+
+    /**
+     * @return the number just read
+     */
+    double number() {
+        return AsciiNumbers.parseDouble(token, 0, tokenLength);
+    }
+
+    /**
+     * @return the number just read, which must be an integer
+     */
+    int integer() {
+        return AsciiNumbers.parseInt(token, 0, tokenLength);
+    }
+
+    /**
+     * @return the string just read, which must be one character long
+     */
+    char character() {
+
+        if (tokenLength != 1)
+            throw new IllegalArgumentException("Expected one character");
+
+        return (char) token[0];
+
+    }
+
+    private void append(int c) {
+
+        if (tokenLength == MAX_TOKEN)
+            throw new IllegalArgumentException("Token too long");
+
+        token[tokenLength++] = (byte) c;
+
+    }
+
+    private int read() throws IOException {
+
+        if (position == limit) {
+
+            limit = in.read(buffer);
+            position = 0;
+
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+
+        return buffer[position++] & 0xFF;
+
+    }
+
+}
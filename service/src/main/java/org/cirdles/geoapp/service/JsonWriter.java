@@ -0,0 +1,121 @@
+/*
+ * JsonWriter.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import org.cirdles.geoapp.AsciiNumbers;
+
+/**
+ * Buffered writer of JSON numbers, characters and punctuation that formats
+ * straight into its byte buffer.
+ */
+final class JsonWriter {
+
+    // room for the longest value formatted by one call
+    private static final int MAX_VALUE = 32;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+
+    JsonWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    JsonWriter write(char c) throws IOException {
+        ensureRoom();
+        buffer[position++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Writes a number with a fixed number of decimals, or null if it is NaN
+     * or infinite.
+     */
+    JsonWriter number(double value, int decimals) throws IOException {
+
+        ensureRoom();
+
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            buffer[position++] = 'n';
+            buffer[position++] = 'u';
+            buffer[position++] = 'l';
+            buffer[position++] = 'l';
+        } else {
+            position = AsciiNumbers.formatFixed(value, decimals, buffer, position);
+        }
+
+        return this;
+
+    }
+
+    /**
+     * Writes an object member name and the colon after it.
+     */
+    JsonWriter name(String name) throws IOException {
+        return string(name).write(':');
+    }
+
+    JsonWriter integer(int value) throws IOException {
+        return number(value, 0);
+    }
+
+    /**
+     * Writes a one character string.
+     */
+    JsonWriter string(char c) throws IOException {
+        ensureRoom();
+        buffer[position++] = '"';
+        buffer[position++] = (byte) c;
+        buffer[position++] = '"';
+        return this;
+    }
+
+    /**
+     * Writes a string that needs no escaping.
+     */
+    JsonWriter string(String text) throws IOException {
+
+        write('"');
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            write(c == '"' || c == '\\' || c < ' ' || c > '~' ? '?' : c);
+        }
+
+        return write('"');
+
+    }
+
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    private void ensureRoom() throws IOException {
+
+        if (buffer.length - position < MAX_VALUE) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+    }
+
+}
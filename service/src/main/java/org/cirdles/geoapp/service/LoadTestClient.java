@@ -0,0 +1,216 @@
+/*
+ * LoadTestClient.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load generator for the service. Several threads send requests over kept
+ * alive connections until the requested number has been sent, then the
+ * throughput and the latency percentiles are printed.
+ * <p>
+ * Arguments: --url (default http://localhost:8080), --concurrency (default
+ * 16), --requests (default 100000) and --batch n, which sends JSON batches
+ * of n points to /batch/utm instead of single points to /utm.
+ */
+public final class LoadTestClient {
+
+    private final String url;
+    private final int concurrency;
+    private final int requests;
+    private final int batch;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final long[] latency;
+
+    /**
+     * @param url of the service, without a path
+     * @param concurrency number of threads sending requests
+     * @param requests total number of requests
+     * @param batch points per request, 0 for single point requests
+     */
+    public LoadTestClient(String url, int concurrency, int requests, int batch) {
+
+        if (concurrency < 1 || requests < 1 || batch < 0)
+            throw new IllegalArgumentException("Invalid load");
+
+        this.url = url;
+        this.concurrency = concurrency;
+        this.requests = requests;
+        this.batch = batch;
+        this.latency = new long[requests];
+
+    }
+
+    /**
+     * Sends every request and prints the results.
+     *
+     * @throws InterruptedException
+     */
+    public void run() throws InterruptedException {
+
+        // the JDK keeps only 5 idle connections per host by default
+        System.setProperty("http.maxConnections", Integer.toString(concurrency));
+
+        Thread[] threads = new Thread[concurrency];
+
+        for (int t = 0; t < concurrency; t++) {
+
+            final long seed = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    send(new Random(seed));
+                }
+            };
+        }
+
+        long start = System.nanoTime();
+
+        for (Thread thread : threads)
+            thread.start();
+
+        for (Thread thread : threads)
+            thread.join();
+
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latency);
+        System.out.printf("%d requests, %d failed, in %.2f s%n", requests,
+                failures.get(), elapsed / 1e9);
+        System.out.printf("%.0f requests/s, %.0f points/s%n",
+                requests / (elapsed / 1e9),
+                requests * (double) Math.max(batch, 1) / (elapsed / 1e9));
+        System.out.printf("latency ms: p50 %.3f  p90 %.3f  p99 %.3f  max %.3f%n",
+                percentile(0.50), percentile(0.90), percentile(0.99),
+                latency[requests - 1] / 1e6);
+
+    }
+
+    private double percentile(double fraction) {
+        return latency[(int) Math.min(requests - 1, fraction * requests)] / 1e6;
+    }
+
+    private void send(Random random) {
+
+        byte[] buffer = new byte[8192];
+        int request;
+
+        while ((request = next.getAndIncrement()) < requests) {
+
+            long start = System.nanoTime();
+
+            try {
+
+                HttpURLConnection connection;
+
+                if (batch == 0) {
+                    connection = (HttpURLConnection) new URL(url
+                            + "/utm?lat=" + (random.nextDouble() * 164 - 80)
+                            + "&lon=" + (random.nextDouble() * 360 - 180))
+                            .openConnection();
+                } else {
+                    connection = (HttpURLConnection) new URL(url + "/batch/utm")
+                            .openConnection();
+                    connection.setRequestMethod("POST");
+                    connection.setDoOutput(true);
+                    connection.setRequestProperty("Content-Type",
+                            Exchanges.JSON);
+
+                    try (OutputStream out = connection.getOutputStream()) {
+                        out.write(batchBody(random));
+                    }
+                }
+
+                if (connection.getResponseCode() != 200)
+                    failures.incrementAndGet();
+
+                InputStream in = connection.getResponseCode() < 400
+                        ? connection.getInputStream()
+                        : connection.getErrorStream();
+
+                // reading to the end returns the connection to the keep alive
+                // cache
+                if (in != null)
+                    try (InputStream body = in) {
+                        while (body.read(buffer) > 0) {
+                        }
+                    }
+
+            } catch (IOException e) {
+                failures.incrementAndGet();
+            }
+
+            latency[request] = System.nanoTime() - start;
+        }
+
+    }
+
+    private byte[] batchBody(Random random) {
+
+        StringBuilder body = new StringBuilder(batch * 40);
+        body.append('[');
+
+        for (int i = 0; i < batch; i++) {
+
+            if (i > 0)
+                body.append(',');
+
+            body.append('[').append(random.nextDouble() * 164 - 80).append(',')
+                    .append(random.nextDouble() * 360 - 180).append(']');
+        }
+
+        return body.append(']').toString().getBytes(StandardCharsets.US_ASCII);
+
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+
+        String url = "http://localhost:" + ConversionService.DEFAULT_PORT;
+        int concurrency = 16;
+        int requests = 100000;
+        int batch = 0;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+
+            if ("--url".equals(args[i]))
+                url = args[i + 1];
+            else if ("--concurrency".equals(args[i]))
+                concurrency = Integer.parseInt(args[i + 1]);
+            else if ("--requests".equals(args[i]))
+                requests = Integer.parseInt(args[i + 1]);
+            else if ("--batch".equals(args[i]))
+                batch = Integer.parseInt(args[i + 1]);
+            else
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+
+        new LoadTestClient(url, concurrency, requests, batch).run();
+
+    }
+
+}
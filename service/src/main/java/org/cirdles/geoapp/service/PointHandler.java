@@ -0,0 +1,128 @@
+/*
+ * PointHandler.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.cirdles.geoapp.DatumContext;
+import org.cirdles.geoapp.EllipsoidRegistry;
+import org.cirdles.geoapp.LatLongToUTM;
+import org.cirdles.geoapp.MutableLatLong;
+import org.cirdles.geoapp.MutableUTM;
+import org.cirdles.geoapp.UTMToLatLong;
+
+/**
+ * Converts one point given in the query string:
+ * GET /utm?lat=..&amp;lon=..&amp;datum=.. answers
+ * {"easting", "northing", "zoneNumber", "zoneLetter", "hemisphere"} and
+ * GET /latlong?easting=..&amp;northing=..&amp;zone=..&amp;band=..&amp;datum=..
+ * answers {"latitude", "longitude"}. The datum defaults to WGS84.
+ */
+final class PointHandler implements HttpHandler {
+
+    private final boolean toUTM;
+
+    /**
+     * @param toUTM true for /utm, false for /latlong
+     */
+    PointHandler(boolean toUTM) {
+        this.toUTM = toUTM;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+
+        try {
+
+            if (!Exchanges.accept(exchange, "GET"))
+                return;
+
+            String query = exchange.getRequestURI().getRawQuery();
+            DatumContext context = EllipsoidRegistry.forName(
+                    Exchanges.datum(query));
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+            JsonWriter writer = new JsonWriter(body);
+
+            if (toUTM)
+                toUTM(query, context, writer);
+            else
+                toLatLong(query, context, writer);
+
+            writer.flush();
+            Exchanges.send(exchange, 200, body);
+
+        } catch (IllegalArgumentException e) {
+            Exchanges.sendError(exchange, 400, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+
+    }
+
+    private static void toUTM(String query, DatumContext context,
+            JsonWriter writer) throws IOException {
+
+        double latitude = Exchanges.number(query, "lat");
+        double longitude = Exchanges.number(query, "lon");
+        Exchanges.checkLatLong(latitude, longitude);
+
+        MutableUTM utm = new MutableUTM();
+        LatLongToUTM.convertInto(latitude, longitude, context, utm);
+
+        writer.write('{')
+                .name("easting").number(utm.getEasting(), 4).write(',')
+                .name("northing").number(utm.getNorthing(), 4).write(',')
+                .name("zoneNumber").integer(utm.getZoneNumber()).write(',')
+                .name("zoneLetter").string(utm.getZoneLetter()).write(',')
+                .name("hemisphere").string(utm.getHemisphere())
+                .write('}');
+
+    }
+
+    private static void toLatLong(String query, DatumContext context,
+            JsonWriter writer) throws IOException {
+
+        double easting = Exchanges.number(query, "easting");
+        double northing = Exchanges.number(query, "northing");
+        double zone = Exchanges.number(query, "zone");
+        String band = Exchanges.parameter(query, "band");
+
+        if (zone != Math.rint(zone))
+            throw new IllegalArgumentException("Invalid zone " + zone);
+
+        if (band == null || band.length() != 1)
+            throw new IllegalArgumentException("Missing parameter band");
+
+        char zoneLetter = Character.toUpperCase(band.charAt(0));
+        char hemisphere = Exchanges.checkZone((int) zone, zoneLetter);
+
+        MutableLatLong latLong = new MutableLatLong();
+        UTMToLatLong.convertInto(easting, northing, (int) zone, hemisphere,
+                context, latLong);
+
+        writer.write('{')
+                .name("latitude").number(latLong.getLatitude(), 9).write(',')
+                .name("longitude").number(latLong.getLongitude(), 9)
+                .write('}');
+
+    }
+
+}
@@ -0,0 +1,235 @@
+package org.cirdles.geoapp.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import org.cirdles.geoapp.Datum;
+import org.cirdles.geoapp.LatLongToUTM;
+import org.cirdles.geoapp.UTM;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the endpoints of ConversionService, on a free port.
+ */
+public class ConversionServiceTest {
+
+    private static ConversionService service;
+    private static String url;
+
+    @BeforeClass
+    public static void setUpClass() throws IOException {
+        service = new ConversionService(0, 4);
+        service.start();
+        url = "http://localhost:" + service.getPort();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        service.stop(0);
+    }
+
+    /**
+     * Test of GET /utm and GET /latlong, of class ConversionService.
+     */
+    @Test
+    public void testPoint() throws IOException {
+        System.out.println("point");
+
+        HttpURLConnection connection = open("/utm?lat=84&lon=102");
+        assertEquals(200, connection.getResponseCode());
+        String body = new String(read(connection), StandardCharsets.US_ASCII);
+        assertTrue(body, body.contains("\"zoneNumber\":48"));
+        assertTrue(body, body.contains("\"zoneLetter\":\"X\""));
+        assertTrue(body, body.contains("\"hemisphere\":\"N\""));
+
+        UTM utm = LatLongToUTM.convert(-27.11667, -109.35, Datum.WGS84);
+        connection = open("/latlong?easting=" + utm.getEasting()
+                + "&northing=" + utm.getNorthing() + "&zone="
+                + utm.getZoneNumber() + "&band=" + utm.getZoneLetter()
+                + "&datum=WGS84");
+        assertEquals(200, connection.getResponseCode());
+        body = new String(read(connection), StandardCharsets.US_ASCII);
+        assertTrue(body, body.matches(
+                "\\{\"latitude\":-27\\.11667\\d*,\"longitude\":-109\\.3\\d*\\}"));
+    }
+
+    /**
+     * Test of invalid requests, of class ConversionService.
+     */
+    @Test
+    public void testInvalid() throws IOException {
+        System.out.println("invalid");
+
+        assertEquals(400, open("/utm?lat=10&lon=20&datum=NOPE").getResponseCode());
+        assertEquals(400, open("/utm?lat=95&lon=20").getResponseCode());
+        assertEquals(400, open("/utm?lat=-82&lon=20").getResponseCode());
+        assertEquals(400, open("/utm?lat=10&lon=181").getResponseCode());
+        assertEquals(400, open("/latlong?easting=500000&northing=0&zone=61&band=N")
+                .getResponseCode());
+
+        for (String band : new String[] {"A", "B", "I", "O", "Y", "Z"})
+            assertEquals(band, 400, open("/latlong?easting=500000&northing=0"
+                    + "&zone=31&band=" + band).getResponseCode());
+
+        assertEquals(400, open("/utm?lat=10").getResponseCode());
+        assertEquals(405, open("/batch/utm").getResponseCode());
+        assertEquals(404, open("/utmx?lat=10&lon=20").getResponseCode());
+        assertEquals(400, post("/batch/utm", "application/json",
+                "[[10,20],[10]]".getBytes(StandardCharsets.US_ASCII))
+                .getResponseCode());
+    }
+
+    /**
+     * Test that answers at the antimeridian can be sent back for the
+     * inverse, of class ConversionService.
+     */
+    @Test
+    public void testAntimeridian() throws IOException {
+        System.out.println("antimeridian");
+
+        HttpURLConnection connection = open("/utm?lat=10&lon=180");
+        assertEquals(200, connection.getResponseCode());
+        String body = new String(read(connection), StandardCharsets.US_ASCII);
+        assertTrue(body, body.contains("\"zoneNumber\":60"));
+
+        connection = post("/batch/utm", "application/json",
+                "[[10,180],[-10,-180]]".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(200, connection.getResponseCode());
+        String utm = new String(read(connection), StandardCharsets.US_ASCII);
+        assertTrue(utm, utm.contains(",60,\"P\"]") && utm.contains(",1,\"L\"]"));
+
+        connection = post("/batch/latlong", "application/json",
+                utm.getBytes(StandardCharsets.US_ASCII));
+        assertEquals(200, connection.getResponseCode());
+        String[] point = new String(read(connection), StandardCharsets.US_ASCII)
+                .replaceAll("[\\[\\]]", "").split(",");
+        assertEquals(10.0, Double.parseDouble(point[0]), 1e-7);
+        assertEquals(180.0, Double.parseDouble(point[1]), 1e-7);
+        assertEquals(-10.0, Double.parseDouble(point[2]), 1e-7);
+        assertEquals(-180.0, Double.parseDouble(point[3]), 1e-7);
+    }
+
+    /**
+     * Test of POST /batch/utm and /batch/latlong in JSON, of class
+     * ConversionService.
+     */
+    @Test
+    public void testBatchJson() throws IOException {
+        System.out.println("batch json");
+
+        StringBuilder request = new StringBuilder("[");
+        int points = 2 * BatchHandler.CHUNK + 3;
+
+        for (int i = 0; i < points; i++)
+            request.append(i > 0 ? "," : "").append('[')
+                    .append(-80 + (i % 164)).append(',')
+                    .append(-179.5 + (i % 359)).append(']');
+
+        HttpURLConnection connection = post("/batch/utm", "application/json",
+                request.append(']').toString().getBytes(StandardCharsets.US_ASCII));
+        assertEquals(200, connection.getResponseCode());
+        String utm = new String(read(connection), StandardCharsets.US_ASCII);
+
+        connection = post("/batch/latlong?datum=WGS84", "application/json",
+                utm.getBytes(StandardCharsets.US_ASCII));
+        assertEquals(200, connection.getResponseCode());
+        String latLong = new String(read(connection), StandardCharsets.US_ASCII);
+
+        String[] point = latLong.substring(2, latLong.length() - 2).split("\\],\\[");
+        assertEquals(points, point.length);
+
+        for (int i = 0; i < points; i++) {
+            String[] value = point[i].split(",");
+            assertEquals(-80 + (i % 164), Double.parseDouble(value[0]), 1e-7);
+            assertEquals(-179.5 + (i % 359), Double.parseDouble(value[1]), 1e-7);
+        }
+
+        connection = post("/batch/utm", "application/json",
+                "[]".getBytes(StandardCharsets.US_ASCII));
+        assertEquals("[]", new String(read(connection), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Test of POST /batch/utm and /batch/latlong in binary records, of class
+     * ConversionService.
+     */
+    @Test
+    public void testBatchBinary() throws IOException {
+        System.out.println("batch binary");
+
+        int points = BatchHandler.CHUNK + 7;
+        ByteBuffer request = ByteBuffer.allocate(points
+                * BatchHandler.LAT_LONG_RECORD).order(ByteOrder.LITTLE_ENDIAN);
+
+        for (int i = 0; i < points; i++)
+            request.putDouble(-80 + (i % 164) * 0.99).putDouble(-179.5 + (i % 359));
+
+        HttpURLConnection connection = post("/batch/utm",
+                "application/octet-stream", request.array());
+        assertEquals(200, connection.getResponseCode());
+        byte[] utm = read(connection);
+        assertEquals(points * BatchHandler.UTM_RECORD, utm.length);
+
+        ByteBuffer records = ByteBuffer.wrap(utm).order(ByteOrder.LITTLE_ENDIAN);
+        UTM expected = LatLongToUTM.convert(-80, -179.5, Datum.WGS84);
+        assertEquals(expected.getEasting().doubleValue(), records.getDouble(), 1e-6);
+        assertEquals(expected.getNorthing().doubleValue(), records.getDouble(), 1e-6);
+        assertEquals(expected.getZoneNumber(), records.get());
+        assertEquals(expected.getZoneLetter(), (char) records.get());
+
+        connection = post("/batch/latlong", "application/octet-stream", utm);
+        assertEquals(200, connection.getResponseCode());
+        records = ByteBuffer.wrap(read(connection)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(points * BatchHandler.LAT_LONG_RECORD, records.remaining());
+
+        for (int i = 0; i < points; i++) {
+            assertEquals(-80 + (i % 164) * 0.99, records.getDouble(), 1e-7);
+            assertEquals(-179.5 + (i % 359), records.getDouble(), 1e-7);
+        }
+
+        assertEquals(400, post("/batch/utm", "application/octet-stream",
+                new byte[15]).getResponseCode());
+    }
+
+    private static HttpURLConnection open(String path) throws IOException {
+        return (HttpURLConnection) new URL(url + path).openConnection();
+    }
+
+    private static HttpURLConnection post(String path, String contentType,
+            byte[] body) throws IOException {
+        HttpURLConnection connection = open(path);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", contentType);
+
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+
+        return connection;
+    }
+
+    private static byte[] read(HttpURLConnection connection) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        try (InputStream in = connection.getInputStream()) {
+            int read;
+
+            while ((read = in.read(buffer)) > 0)
+                bytes.write(buffer, 0, read);
+        }
+
+        return bytes.toByteArray();
+    }
+
+}
@@ -0,0 +1,283 @@
+/*
+ * AsciiNumbers.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.nio.charset.Charset;
+
+/**
+ * Parses and formats numbers directly in ASCII byte arrays, so bulk text
+ * input and output do not create a String per field.
+ */
+public final class AsciiNumbers {
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    /**
+     * Powers of ten that are exact in a double.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+        1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final long[] LONG_POWERS_OF_TEN = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+        100000000L, 1000000000L, 10000000000L, 100000000000L,
+        1000000000000L
+    };
+
+    /**
+     * Largest number of significant digits for which the mantissa is exact
+     * in a double.
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private AsciiNumbers() {
+    }
+
+    /**
+     * Parses a decimal number such as "-27.11667" or "6.5e5". Numbers of up
+     * to 15 significant digits with a small exponent are computed with one
+     * exact multiplication or division, which is correctly rounded; any
+     * other number falls back to Double.parseDouble.
+     *
+     * @param bytes
+     * @param start first byte of the number
+     * @param end one past the last byte of the number
+     * @return the number
+     * @throws NumberFormatException if the bytes are not a number
+     */
+    public static double parseDouble(byte[] bytes, int start, int end) {
+
+        int i = start;
+        boolean negative = false;
+
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+
+        while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+            anyDigit = true;
+
+            if (digits < 19) {
+                if (mantissa != 0 || bytes[i] != '0') {
+                    mantissa = mantissa * 10 + (bytes[i] - '0');
+                    digits++;
+                }
+            } else {
+                exponent++;
+            }
+            i++;
+        }
+
+        if (i < end && bytes[i] == '.') {
+            i++;
+
+            while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+                anyDigit = true;
+
+                if (digits < 19) {
+                    if (mantissa != 0 || bytes[i] != '0')
+                        digits++;
+                    mantissa = mantissa * 10 + (bytes[i] - '0');
+                    exponent--;
+                }
+                i++;
+            }
+        }
+
+        if (!anyDigit)
+            throw numberFormatException(bytes, start, end);
+
+        if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+
+            if (i == end)
+                throw numberFormatException(bytes, start, end);
+
+            int explicitExponent = 0;
+
+            while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+                if (explicitExponent < 100000)
+                    explicitExponent = explicitExponent * 10 + (bytes[i] - '0');
+                i++;
+            }
+
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (i != end)
+            throw numberFormatException(bytes, start, end);
+
+        double value;
+
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (digits <= MAX_EXACT_DIGITS && exponent >= 0
+                && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (digits <= MAX_EXACT_DIGITS && exponent < 0
+                && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return Double.parseDouble(new String(bytes, start, end - start,
+                    US_ASCII));
+        }
+
+        return negative ? -value : value;
+
+    }
+
+    /**
+     * Parses a decimal integer such as "48".
+     *
+     * @param bytes
+     * @param start first byte of the number
+     * @param end one past the last byte of the number
+     * @return the number
+     * @throws NumberFormatException if the bytes are not an int
+     */
+    public static int parseInt(byte[] bytes, int start, int end) {
+
+        int i = start;
+        boolean negative = false;
+
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+
+        if (i == end || end - i > 9)
+            throw numberFormatException(bytes, start, end);
+
+        int value = 0;
+
+        for (; i < end; i++) {
+
+            if (bytes[i] < '0' || bytes[i] > '9')
+                throw numberFormatException(bytes, start, end);
+
+            value = value * 10 + (bytes[i] - '0');
+        }
+
+        return negative ? -value : value;
+
+    }
+
+    /**
+     * Writes a number with a fixed number of decimals, rounding half away
+     * from zero. NaN and infinite values are written as "NaN", "Infinity"
+     * and "-Infinity".
+     *
+     * @param value
+     * @param decimals number of digits after the decimal point, 0 to 12
+     * @param bytes receives the text
+     * @param offset position of the first byte to write
+     * @return the position after the last byte written
+     */
+    public static int formatFixed(double value, int decimals, byte[] bytes,
+            int offset) {
+
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            return writeAscii(Double.toString(value), bytes, offset);
+
+        double scaled = Math.abs(value) * LONG_POWERS_OF_TEN[decimals];
+
+        // beyond 2^63 there are no fractional digits left to round
+        if (scaled >= 9.2e18)
+            return writeAscii(Double.toString(value), bytes, offset);
+
+        long units = (long) (scaled + 0.5);
+        long integerPart = units / LONG_POWERS_OF_TEN[decimals];
+        long fraction = units % LONG_POWERS_OF_TEN[decimals];
+
+        int position = offset;
+
+        if (value < 0 && units != 0)
+            bytes[position++] = '-';
+
+        position = writeLong(integerPart, bytes, position);
+
+        if (decimals > 0) {
+
+            bytes[position++] = '.';
+
+            for (int i = decimals - 1; i >= 0; i--) {
+                bytes[position + i] = (byte) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+
+            position += decimals;
+        }
+
+        return position;
+
+    }
+
+    /**
+     * Writes a non-negative long in decimal.
+     *
+     * @param value
+     * @param bytes receives the text
+     * @param offset position of the first byte to write
+     * @return the position after the last byte written
+     */
+    public static int writeLong(long value, byte[] bytes, int offset) {
+
+        int length = 1;
+
+        for (long rest = value / 10; rest != 0; rest /= 10)
+            length++;
+
+        for (int i = offset + length - 1; i >= offset; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        return offset + length;
+
+    }
+
+    private static int writeAscii(String text, byte[] bytes, int offset) {
+
+        for (int i = 0; i < text.length(); i++)
+            bytes[offset + i] = (byte) text.charAt(i);
+
+        return offset + text.length();
+
+    }
+
+    private static NumberFormatException numberFormatException(byte[] bytes,
+            int start, int end) {
+        return new NumberFormatException("Not a number: \""
+                + new String(bytes, start, end - start, US_ASCII) + "\"");
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * BatchKernel.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+/**
+ * Forward projection of a range of points that share a central meridian,
+ * for engines that have a faster batch implementation than projecting one
+ * point at a time.
+ */
+interface BatchKernel {
+
+    /**
+     * Projects the points from fromIndex (inclusive) to toIndex (exclusive).
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param centralMeridian in degrees
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param fromIndex
+     * @param toIndex
+     */
+    void forward(double[] latitude, double[] longitude, double centralMeridian,
+            double[] easting, double[] northing, int fromIndex, int toIndex);
+
+}
@@ -0,0 +1,77 @@
+/*
+ * BatchKernels.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Finds the SIMD batch kernel. The kernel is built on the incubating Java
+ * Vector API and ships in META-INF/versions/17 of the multi-release jar, so
+ * it is only found on Java 17 or later, and only loads when the
+ * jdk.incubator.vector module is added with --add-modules. Everywhere else,
+ * or with -Dgeoapp.vector=false, engines keep the scalar path.
+ */
+final class BatchKernels {
+
+    static final String VECTOR_PROPERTY = "geoapp.vector";
+
+    private static final String VECTOR_KERNEL = "org.cirdles.geoapp.VectorBatchKernel";
+
+    private static final Constructor<?> VECTOR_CONSTRUCTOR = findVectorConstructor();
+
+    private BatchKernels() {
+    }
+
+    private static Constructor<?> findVectorConstructor() {
+
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true")))
+            return null;
+
+        try {
+            return Class.forName(VECTOR_KERNEL)
+                    .getDeclaredConstructor(TransverseMercatorEngine.class);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        } catch (LinkageError e) {
+            // the class is there but the vector module is not
+            return null;
+        }
+
+    }
+
+    /**
+     * @param engine whose constants and scalar projection the kernel uses
+     * @return the vector kernel of the engine, or null if there is none or
+     * the engine's datum is outside the kernel's range
+     */
+    static BatchKernel forward(TransverseMercatorEngine engine) {
+
+        if (VECTOR_CONSTRUCTOR == null)
+            return null;
+
+        try {
+            return (BatchKernel) VECTOR_CONSTRUCTOR.newInstance(engine);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+
+    }
+
+}
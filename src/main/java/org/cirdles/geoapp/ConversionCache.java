@@ -0,0 +1,462 @@
+/*
+ * ConversionCache.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of conversions of one datum, for traffic that converts the
+ * same coordinates over and over. Keys are the exact bits of the input
+ * doubles, so a hit returns the very doubles a fresh conversion would.
+ * <p>
+ * Entries live in primitive arrays, found through an open addressing index,
+ * and are evicted by the CLOCK policy: a hit marks its entry, and the
+ * eviction hand clears marks until it reaches an unmarked entry, so entries
+ * hit since the hand last passed survive. The cache is split into
+ * independently locked segments so threads sharing it rarely wait on each
+ * other. Conversions run outside the locks.
+ */
+public final class ConversionCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    // fewest entries worth a segment of their own
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    private final DatumContext context;
+    private final int capacity;
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    /**
+     * @param datumName
+     * @param capacity largest number of conversions held
+     */
+    public ConversionCache(String datumName, int capacity) {
+        this(EllipsoidRegistry.forName(datumName), capacity);
+    }
+
+    /**
+     * @param datum
+     * @param capacity largest number of conversions held
+     */
+    public ConversionCache(Datum datum, int capacity) {
+        this(DatumContext.forDatum(datum), capacity);
+    }
+
+    /**
+     * @param context constants of a datum or of a registered ellipsoid
+     * @param capacity largest number of conversions held
+     */
+    public ConversionCache(DatumContext context, int capacity) {
+
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive: "
+                    + capacity);
+
+        this.context = context;
+        this.capacity = capacity;
+
+        int count = 1;
+
+        while (count < MAX_SEGMENTS
+                && capacity / (2 * count) >= MIN_SEGMENT_CAPACITY)
+            count *= 2;
+
+        segments = new Segment[count];
+        segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+
+        for (int i = 0; i < count; i++)
+            segments[i] = new Segment(capacity / count
+                    + (i < capacity % count ? 1 : 0));
+
+    }
+
+    public DatumContext getContext() {
+        return context;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Cached LatLongToUTM.convert.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @return UTM
+     */
+    public UTM toUTM(double latitude, double longitude) {
+
+        MutableUTM utm = new MutableUTM();
+        toUTM(latitude, longitude, utm);
+
+        return utm.toUTM();
+
+    }
+
+    /**
+     * Cached LatLongToUTM.convertInto.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param utm receives the result
+     */
+    public void toUTM(double latitude, double longitude, MutableUTM utm) {
+
+        long a = Double.doubleToLongBits(latitude);
+        long b = Double.doubleToLongBits(longitude);
+        int hash = hash(a, b, 0);
+        Segment segment = segmentFor(hash);
+
+        synchronized (segment) {
+
+            int slot = segment.find(a, b, 0, hash);
+
+            if (slot >= 0) {
+                utm.set(segment.first[slot], segment.second[slot],
+                        segment.zoneNumber[slot], segment.zoneLetter[slot],
+                        TransverseMercatorEngine.calcHemisphere(latitude));
+                return;
+            }
+        }
+
+        LatLongToUTM.convertInto(latitude, longitude, context, utm);
+
+        synchronized (segment) {
+            segment.put(a, b, 0, hash, utm.getEasting(), utm.getNorthing(),
+                    utm.getZoneNumber(), utm.getZoneLetter());
+        }
+
+    }
+
+    /**
+     * Cached UTMToLatLong.toLatLong.
+     *
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param hemisphere 'N' or 'S'
+     * @return LatLong
+     */
+    public LatLong toLatLong(double easting, double northing, int zoneNumber,
+            char hemisphere) {
+
+        MutableLatLong latLong = new MutableLatLong();
+        toLatLong(easting, northing, zoneNumber, hemisphere, latLong);
+
+        return latLong.toLatLong();
+
+    }
+
+    /**
+     * Cached UTMToLatLong.convertInto.
+     *
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param hemisphere 'N' or 'S'
+     * @param latLong receives the latitude and longitude in degrees
+     */
+    public void toLatLong(double easting, double northing, int zoneNumber,
+            char hemisphere, MutableLatLong latLong) {
+
+        long a = Double.doubleToLongBits(easting);
+        long b = Double.doubleToLongBits(northing);
+        // never 0, which marks the forward conversions
+        int c = (zoneNumber << 16) | hemisphere;
+        int hash = hash(a, b, c);
+        Segment segment = segmentFor(hash);
+
+        synchronized (segment) {
+
+            int slot = segment.find(a, b, c, hash);
+
+            if (slot >= 0) {
+                latLong.set(segment.first[slot], segment.second[slot]);
+                return;
+            }
+        }
+
+        UTMToLatLong.convertInto(easting, northing, zoneNumber, hemisphere,
+                context, latLong);
+
+        synchronized (segment) {
+            segment.put(a, b, c, hash, latLong.getLatitude(),
+                    latLong.getLongitude(), 0, '\0');
+        }
+
+    }
+
+    /**
+     * @return the number of conversions held
+     */
+    public int size() {
+
+        int size = 0;
+
+        for (Segment segment : segments)
+            synchronized (segment) {
+                size += segment.size;
+            }
+
+        return size;
+
+    }
+
+    public long getHitCount() {
+
+        long count = 0;
+
+        for (Segment segment : segments)
+            synchronized (segment) {
+                count += segment.hits;
+            }
+
+        return count;
+
+    }
+
+    public long getMissCount() {
+
+        long count = 0;
+
+        for (Segment segment : segments)
+            synchronized (segment) {
+                count += segment.misses;
+            }
+
+        return count;
+
+    }
+
+    public long getEvictionCount() {
+
+        long count = 0;
+
+        for (Segment segment : segments)
+            synchronized (segment) {
+                count += segment.evictions;
+            }
+
+        return count;
+
+    }
+
+    /**
+     * Removes every conversion; the counters are kept.
+     */
+    public void clear() {
+
+        for (Segment segment : segments)
+            synchronized (segment) {
+                segment.clear();
+            }
+
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+    }
+
+    private static int hash(long a, long b, int c) {
+
+        long h = a * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 32) ^ b) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ (h >>> 29) ^ c) * 0x165667B19E3779F9L;
+
+        return (int) (h ^ (h >>> 32));
+
+    }
+
+    /**
+     * Entries of one part of the cache, guarded by its own monitor. The index
+     * is a linear probing table of slot + 1, 0 marking a free position, at
+     * most half full.
+     */
+    private static final class Segment {
+
+        private final int capacity;
+        private final int[] index;
+        private final int mask;
+
+        private final long[] keyA;
+        private final long[] keyB;
+        private final int[] keyC;
+        private final int[] hashes;
+        private final boolean[] referenced;
+
+        final double[] first;
+        final double[] second;
+        final int[] zoneNumber;
+        final char[] zoneLetter;
+
+        int size;
+        private int hand;
+
+        long hits;
+        long misses;
+        long evictions;
+
+        Segment(int capacity) {
+
+            this.capacity = capacity;
+            index = new int[Integer.highestOneBit(capacity) * 4];
+            mask = index.length - 1;
+
+            keyA = new long[capacity];
+            keyB = new long[capacity];
+            keyC = new int[capacity];
+            hashes = new int[capacity];
+            referenced = new boolean[capacity];
+            first = new double[capacity];
+            second = new double[capacity];
+            zoneNumber = new int[capacity];
+            zoneLetter = new char[capacity];
+
+        }
+
+        /**
+         * Counts a hit or a miss, and marks the entry on a hit.
+         *
+         * @return the slot of the key, or -1
+         */
+        int find(long a, long b, int c, int hash) {
+
+            int position = position(a, b, c, hash);
+
+            if (index[position] == 0) {
+                misses++;
+                return -1;
+            }
+
+            int slot = index[position] - 1;
+            referenced[slot] = true;
+            hits++;
+
+            return slot;
+
+        }
+
+        void put(long a, long b, int c, int hash, double firstValue,
+                double secondValue, int zone, char letter) {
+
+            // another thread may have converted the same key meanwhile
+            if (index[position(a, b, c, hash)] != 0)
+                return;
+
+            int slot;
+
+            if (size < capacity) {
+                slot = size++;
+            } else {
+
+                while (referenced[hand]) {
+                    referenced[hand] = false;
+                    hand = hand + 1 == capacity ? 0 : hand + 1;
+                }
+
+                slot = hand;
+                hand = hand + 1 == capacity ? 0 : hand + 1;
+                remove(position(keyA[slot], keyB[slot], keyC[slot],
+                        hashes[slot]));
+                evictions++;
+            }
+
+            keyA[slot] = a;
+            keyB[slot] = b;
+            keyC[slot] = c;
+            hashes[slot] = hash;
+            referenced[slot] = false;
+            first[slot] = firstValue;
+            second[slot] = secondValue;
+            zoneNumber[slot] = zone;
+            zoneLetter[slot] = letter;
+
+            // found again, as the removal may have shifted the index
+            index[position(a, b, c, hash)] = slot + 1;
+
+        }
+
+        void clear() {
+            Arrays.fill(index, 0);
+            Arrays.fill(referenced, false);
+            size = 0;
+            hand = 0;
+        }
+
+        /**
+         * @return the position of the key in the index, or of the free
+         * position where it belongs
+         */
+        private int position(long a, long b, int c, int hash) {
+
+            int position = hash & mask;
+            int entry;
+
+            while ((entry = index[position]) != 0) {
+
+                int slot = entry - 1;
+
+                if (hashes[slot] == hash && keyA[slot] == a && keyB[slot] == b
+                        && keyC[slot] == c)
+                    return position;
+
+                position = (position + 1) & mask;
+            }
+
+            return position;
+
+        }
+
+        /**
+         * Frees a position of the index, moving back the entries after it
+         * that would otherwise no longer be reachable from their home.
+         */
+        private void remove(int position) {
+
+            int free = position;
+            int next = position;
+
+            index[free] = 0;
+
+            while (true) {
+
+                next = (next + 1) & mask;
+
+                if (index[next] == 0)
+                    return;
+
+                int home = hashes[index[next] - 1] & mask;
+
+                // the entry stays if its home lies cyclically in (free, next]
+                if (free <= next ? free < home && home <= next
+                        : free < home || home <= next)
+                    continue;
+
+                index[free] = index[next];
+                index[next] = 0;
+                free = next;
+            }
+
+        }
+
+    }
+
+}
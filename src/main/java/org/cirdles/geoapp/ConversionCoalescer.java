@@ -0,0 +1,433 @@
+/*
+ * ConversionCoalescer.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coalesces single point conversions submitted by many threads into batches
+ * run through one ZoneBatchScheduler, so callers that convert one point at a
+ * time still reach the batch and vectorized paths.
+ * <p>
+ * Submissions go on a lock free queue drained by one flusher thread. A batch
+ * is converted as soon as it holds the maximum batch size, or when the
+ * oldest point in it has waited the maximum delay, whichever comes first. A
+ * longer delay gives larger batches and more throughput at the cost of
+ * latency; the batch size histogram shows where a setting lands.
+ */
+public final class ConversionCoalescer implements AutoCloseable {
+
+    /**
+     * Receives the result of one submitted point, on the flusher thread.
+     * Implementations should return quickly, as the rest of the batch waits.
+     */
+    public interface Callback {
+
+        /**
+         * @param utm the result; the holder is reused for the next point, so
+         * copy what is needed before returning
+         */
+        void converted(MutableUTM utm);
+
+        /**
+         * @param e why the batch holding the point failed
+         */
+        void failed(RuntimeException e);
+
+    }
+
+    /**
+     * Number of buckets of the batch size histogram; bucket k counts the
+     * batches of 2^k to 2^(k+1) - 1 points.
+     */
+    public static final int HISTOGRAM_BUCKETS = 31;
+
+    private final ZoneBatchScheduler scheduler;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+
+    private final ConcurrentLinkedQueue<Request> queue =
+            new ConcurrentLinkedQueue<Request>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private final Thread flusher;
+    private volatile boolean closed;
+    private volatile boolean sleeping;
+
+    // owned by the flusher thread
+    private final Request[] batch;
+    private final double[] latitude;
+    private final double[] longitude;
+    private final double[] easting;
+    private final double[] northing;
+    private final int[] zoneNumber;
+    private final char[] zoneLetter;
+    private final MutableUTM utm = new MutableUTM();
+
+    /**
+     * @param datumName
+     * @param maxBatchSize largest number of points converted together
+     * @param maxDelay longest time a point waits for others to join it
+     * @param unit of maxDelay
+     */
+    public ConversionCoalescer(String datumName, int maxBatchSize,
+            long maxDelay, TimeUnit unit) {
+        this(EllipsoidRegistry.forName(datumName), maxBatchSize, maxDelay, unit);
+    }
+
+    /**
+     * @param datum
+     * @param maxBatchSize largest number of points converted together
+     * @param maxDelay longest time a point waits for others to join it
+     * @param unit of maxDelay
+     */
+    public ConversionCoalescer(Datum datum, int maxBatchSize, long maxDelay,
+            TimeUnit unit) {
+        this(DatumContext.forDatum(datum), maxBatchSize, maxDelay, unit);
+    }
+
+    /**
+     * @param context constants of a datum or of a registered ellipsoid
+     * @param maxBatchSize largest number of points converted together
+     * @param maxDelay longest time a point waits for others to join it
+     * @param unit of maxDelay
+     */
+    public ConversionCoalescer(DatumContext context, int maxBatchSize,
+            long maxDelay, TimeUnit unit) {
+
+        if (maxBatchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive: "
+                    + maxBatchSize);
+
+        if (maxDelay < 0)
+            throw new IllegalArgumentException("Delay must not be negative: "
+                    + maxDelay);
+
+        this.scheduler = new ZoneBatchScheduler(
+                TransverseMercatorEngine.forContext(context));
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+
+        batch = new Request[maxBatchSize];
+        latitude = new double[maxBatchSize];
+        longitude = new double[maxBatchSize];
+        easting = new double[maxBatchSize];
+        northing = new double[maxBatchSize];
+        zoneNumber = new int[maxBatchSize];
+        zoneLetter = new char[maxBatchSize];
+
+        flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flushLoop();
+            }
+        }, "ConversionCoalescer");
+        flusher.setDaemon(true);
+        flusher.start();
+
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @param unit
+     * @return the maximum delay in the unit
+     */
+    public long getMaxDelay(TimeUnit unit) {
+        return unit.convert(maxDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Submits a point; the callback is called on the flusher thread once its
+     * batch is converted.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param callback receives the result
+     * @throws IllegalArgumentException if the point is outside of 90S to 90N
+     * and 180W to 180E
+     * @throws IllegalStateException if the coalescer is closed
+     */
+    public void submit(double latitude, double longitude, Callback callback) {
+
+        if (callback == null)
+            throw new IllegalArgumentException("Callback must not be null");
+
+        // rejected here, as one point without a zone would fail its whole
+        // batch
+        if (!(latitude >= -90 && latitude <= 90))
+            throw new IllegalArgumentException("Invalid latitude " + latitude);
+
+        if (!(longitude >= -180 && longitude <= 180))
+            throw new IllegalArgumentException("Invalid longitude " + longitude);
+
+        if (closed)
+            throw new IllegalStateException("Coalescer is closed");
+
+        Request request = new Request(latitude, longitude, callback);
+        queue.offer(request);
+
+        // closed while offering: take the point back unless the flusher
+        // already has it
+        if (closed && queue.remove(request))
+            throw new IllegalStateException("Coalescer is closed");
+
+        if (pending.incrementAndGet() >= maxBatchSize || sleeping)
+            LockSupport.unpark(flusher);
+
+    }
+
+    /**
+     * Submits a point.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @return the result, once its batch is converted by
+     * ZoneBatchScheduler.toUTM: zone number and letter as LatLongToUTM.convert
+     * gives them, easting and northing within 1e-8 meters of its values
+     * @throws IllegalArgumentException if the point is outside of 90S to 90N
+     * and 180W to 180E
+     * @throws IllegalStateException if the coalescer is closed
+     */
+    public Future<UTM> submit(double latitude, double longitude) {
+
+        PendingUTM result = new PendingUTM();
+        submit(latitude, longitude, result);
+
+        return result;
+
+    }
+
+    /**
+     * @return the number of batches converted with 2^k to 2^(k+1) - 1
+     * points, for every bucket k
+     */
+    public long[] getBatchSizeHistogram() {
+
+        long[] counts = new long[HISTOGRAM_BUCKETS];
+
+        for (int k = 0; k < HISTOGRAM_BUCKETS; k++)
+            counts[k] = histogram.get(k);
+
+        return counts;
+
+    }
+
+    /**
+     * Converts the points still queued, then stops the flusher thread.
+     * Submitting afterwards throws IllegalStateException. If the calling
+     * thread is interrupted it stops waiting for the flusher, which still
+     * converts the queued points, and its interrupt flag is set again.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+        LockSupport.unpark(flusher);
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+    }
+
+    private void flushLoop() {
+
+        while (true) {
+
+            Request oldest = queue.peek();
+
+            if (oldest == null) {
+
+                if (closed)
+                    return;
+
+                // a submit offers and then reads sleeping, the flusher sets
+                // sleeping and then reads the queue, so one of them sees the
+                // other and no point is left waiting
+                sleeping = true;
+
+                if (queue.peek() == null && !closed)
+                    LockSupport.park(this);
+
+                sleeping = false;
+                continue;
+            }
+
+            long deadline = oldest.submitted + maxDelayNanos;
+            long wait;
+
+            while (!closed && pending.get() < maxBatchSize
+                    && (wait = deadline - System.nanoTime()) > 0)
+                LockSupport.parkNanos(this, wait);
+
+            flush();
+        }
+
+    }
+
+    private void flush() {
+
+        int size = 0;
+        Request request;
+
+        while (size < maxBatchSize && (request = queue.poll()) != null) {
+            batch[size] = request;
+            latitude[size] = request.latitude;
+            longitude[size] = request.longitude;
+            size++;
+        }
+
+        if (size == 0)
+            return;
+
+        pending.addAndGet(-size);
+        histogram.incrementAndGet(31 - Integer.numberOfLeadingZeros(size));
+
+        try {
+            scheduler.toUTM(latitude, longitude, easting, northing, zoneNumber,
+                    zoneLetter, 0, size);
+        } catch (RuntimeException e) {
+
+            for (int i = 0; i < size; i++) {
+                deliverFailure(batch[i].callback, e);
+                batch[i] = null;
+            }
+
+            return;
+        }
+
+        for (int i = 0; i < size; i++) {
+
+            utm.set(easting[i], northing[i], zoneNumber[i], zoneLetter[i],
+                    TransverseMercatorEngine.calcHemisphere(latitude[i]));
+
+            try {
+                batch[i].callback.converted(utm);
+            } catch (RuntimeException e) {
+                // one faulty callback must not cost the rest of the batch
+                deliverFailure(batch[i].callback, e);
+            }
+
+            batch[i] = null;
+        }
+
+    }
+
+    private static void deliverFailure(Callback callback, RuntimeException e) {
+
+        try {
+            callback.failed(e);
+        } catch (RuntimeException ignored) {
+            // nothing left to tell
+        }
+
+    }
+
+    private static final class Request {
+
+        final double latitude;
+        final double longitude;
+        final Callback callback;
+        final long submitted = System.nanoTime();
+
+        Request(double latitude, double longitude, Callback callback) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.callback = callback;
+        }
+
+    }
+
+    /**
+     * Future completed by the flusher thread.
+     */
+    private static final class PendingUTM implements Future<UTM>, Callback {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private UTM result;
+        private RuntimeException failure;
+
+        @Override
+        public void converted(MutableUTM utm) {
+            result = utm.toUTM();
+            done.countDown();
+        }
+
+        @Override
+        public void failed(RuntimeException e) {
+            failure = e;
+            done.countDown();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        @Override
+        public UTM get() throws InterruptedException, ExecutionException {
+            done.await();
+            return report();
+        }
+
+        @Override
+        public UTM get(long timeout, TimeUnit unit) throws InterruptedException,
+                ExecutionException, TimeoutException {
+
+            if (!done.await(timeout, unit))
+                throw new TimeoutException();
+
+            return report();
+
+        }
+
+        private UTM report() throws ExecutionException {
+
+            if (failure != null)
+                throw new ExecutionException(failure);
+
+            return result;
+
+        }
+
+    }
+
+}
@@ -5,43 +5,136 @@
  */
 package org.cirdles.geoapp;
 
-import java.math.BigDecimal;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
+ * Command line bulk converter. Streams CSV or TSV rows from a file or stdin
+ * through CsvBulkConverter and writes the converted columns to a file or
+ * stdout. Rows per second are reported on stderr when done.
  *
  * @author Elaina Cole
  */
 public class ConverterDriver {
-    
-    public static void main(String[] args) {
-        
-        BigDecimal latitude = new BigDecimal(84);
-        BigDecimal longitude = new BigDecimal(102);
-        
-        UTM utm = LatLongToUTM.convert(latitude, longitude, "WGS84");
-        System.out.println("Northing: " + utm.getNorthing());
-        System.out.println("Easting: " + utm.getEasting());
-        System.out.println("Zone: " + utm.getZoneNumber() + " " + utm.getZoneLetter());
-        System.out.println("Hemisphere: " + utm.getHemisphere());
-        
-        double lat = -1.0;
-        double lng = -77.0;
-        
-        UTM utm2 = LatLongToUTM.convert(lat, lng, "NAD83");
-        System.out.println("Northing: " + utm2.getNorthing());
-        System.out.println("Easting: " + utm2.getEasting());
-        System.out.println("Zone: " + utm2.getZoneNumber() + " " + utm2.getZoneLetter());
-        System.out.println("Hemisphere: " + utm2.getHemisphere());
-        
-        
-        UTM utm3 = new UTM(new BigDecimal(465005.3449), new BigDecimal(9329005.2),
-            'N', 48, 'X');
-        
-        String latLong = UTMToLatLong.convert(utm3, "WGS84");
-        
-        System.out.println(latLong);
-        
-        
+
+    private static final String USAGE =
+            "Usage: ConverterDriver [options]\n"
+            + "  --to-utm              latitude,longitude to UTM (default)\n"
+            + "  --to-latlong          easting,northing,zone,band to latitude,longitude\n"
+            + "  --datum NAME          datum name (default WGS84)\n"
+            + "  --ellipsoid NAME,A,RF registers ellipsoid NAME with semi-major axis A\n"
+            + "                        and inverse flattening RF, usable with --datum\n"
+            + "  --tsv                 tab separated input and output\n"
+            + "  --header              skip the first input line and write a header\n"
+            + "  --columns a,b[,c,d]   zero based input columns (default 0,1 or 0,1,2,3)\n"
+            + "  --input FILE          read FILE instead of stdin\n"
+            + "  --output FILE         write FILE instead of stdout";
+
+    public static void main(String[] args) throws IOException {
+
+        CsvBulkConverter.Direction direction = CsvBulkConverter.Direction.TO_UTM;
+        String datumName = "WGS84";
+        char delimiter = ',';
+        boolean header = false;
+        int[] columns = null;
+        String inputFile = null;
+        String outputFile = null;
+        CsvBulkConverter converter = null;
+
+        try {
+
+            for (int i = 0; i < args.length; i++) {
+
+                String arg = args[i];
+
+                if (arg.equals("--to-utm"))
+                    direction = CsvBulkConverter.Direction.TO_UTM;
+                else if (arg.equals("--to-latlong"))
+                    direction = CsvBulkConverter.Direction.TO_LAT_LONG;
+                else if (arg.equals("--datum"))
+                    datumName = args[++i];
+                else if (arg.equals("--ellipsoid"))
+                    registerEllipsoid(args[++i]);
+                else if (arg.equals("--tsv"))
+                    delimiter = '\t';
+                else if (arg.equals("--header"))
+                    header = true;
+                else if (arg.equals("--columns"))
+                    columns = parseColumns(args[++i]);
+                else if (arg.equals("--input"))
+                    inputFile = args[++i];
+                else if (arg.equals("--output"))
+                    outputFile = args[++i];
+                else
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+
+            if (columns == null)
+                columns = direction == CsvBulkConverter.Direction.TO_UTM
+                        ? new int[] {0, 1} : new int[] {0, 1, 2, 3};
+
+            converter = new CsvBulkConverter(direction, datumName, delimiter,
+                    header, columns);
+
+        } catch (ArrayIndexOutOfBoundsException e) {
+            System.err.println("Missing option value\n" + USAGE);
+            System.exit(2);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage() + "\n" + USAGE);
+            System.exit(2);
+        }
+
+        ReadableByteChannel in = inputFile == null
+                ? Channels.newChannel(System.in)
+                : new FileInputStream(inputFile).getChannel();
+        WritableByteChannel out = outputFile == null
+                ? Channels.newChannel(System.out)
+                : new FileOutputStream(outputFile).getChannel();
+
+        long start = System.nanoTime();
+        long rows;
+
+        try {
+            rows = converter.convert(in, out);
+        } finally {
+            in.close();
+            out.close();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.err.println(String.format("%d rows in %.3f s (%.0f rows/s)",
+                rows, seconds, rows / seconds));
+
+    }
+
+    private static void registerEllipsoid(String definition) {
+
+        String[] parts = definition.split(",");
+
+        if (parts.length != 3)
+            throw new IllegalArgumentException("Invalid ellipsoid " + definition);
+
+        EllipsoidRegistry.register(parts[0].trim(),
+                Double.parseDouble(parts[1].trim()),
+                1 / Double.parseDouble(parts[2].trim()));
+
     }
-    
+
+    private static int[] parseColumns(String list) {
+
+        String[] parts = list.split(",");
+        int[] columns = new int[parts.length];
+
+        for (int i = 0; i < parts.length; i++)
+            columns[i] = Integer.parseInt(parts[i].trim());
+
+        return columns;
+
+    }
+
 }
@@ -0,0 +1,374 @@
+/*
+ * CsvBulkConverter.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams delimited text (CSV or TSV) through the batch conversions. Input is
+ * read through a fixed size buffer, fields are parsed in place as bytes, and
+ * rows are converted in fixed size batches, so memory use does not depend on
+ * the size of the input.
+ *
+ * Converting to UTM reads latitude and longitude columns and writes
+ * easting, northing, zone and band. Converting to latitude and longitude
+ * reads easting, northing, zone and band columns and writes latitude and
+ * longitude.
+ */
+public class CsvBulkConverter {
+
+    public enum Direction {
+        TO_UTM, TO_LAT_LONG
+    }
+
+    static final int BUFFER_SIZE = 1 << 20;
+    static final int BATCH_SIZE = 8192;
+
+    private static final int METER_DECIMALS = 3;
+    private static final int DEGREE_DECIMALS = 9;
+
+    /**
+     * Longest output row: four numbers, a zone, a band and separators.
+     */
+    private static final int MAX_OUTPUT_ROW = 128;
+
+    private static final byte[] UTM_HEADER =
+            "easting,northing,zone,band\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LAT_LONG_HEADER =
+            "latitude,longitude\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Direction direction;
+    private final DatumContext context;
+    private final byte delimiter;
+    private final boolean header;
+    private final int[] columns;
+    private final int lastColumn;
+
+    private final byte[] input = new byte[BUFFER_SIZE];
+    private final byte[] output = new byte[BUFFER_SIZE];
+    private final int[] fieldStart;
+    private final int[] fieldEnd;
+
+    private final double[] first = new double[BATCH_SIZE];
+    private final double[] second = new double[BATCH_SIZE];
+    private final double[] third = new double[BATCH_SIZE];
+    private final double[] fourth = new double[BATCH_SIZE];
+    private final int[] zoneNumber = new int[BATCH_SIZE];
+    private final char[] zoneLetter = new char[BATCH_SIZE];
+
+    private int batchSize;
+    private int outputSize;
+    private long lineNumber;
+
+    /**
+     * @param direction of the conversion
+     * @param datumName
+     * @param delimiter field separator, usually ',' or '\t'
+     * @param header whether the first line is a header to skip; a header is
+     * then written to the output as well
+     * @param columns zero based input columns: latitude and longitude when
+     * converting to UTM; easting, northing, zone and band otherwise
+     */
+    public CsvBulkConverter(Direction direction, String datumName,
+            char delimiter, boolean header, int[] columns) {
+
+        int expectedColumns = direction == Direction.TO_UTM ? 2 : 4;
+
+        if (columns.length != expectedColumns)
+            throw new IllegalArgumentException(expectedColumns
+                    + " columns are needed, got " + columns.length);
+
+        DatumContext context = EllipsoidRegistry.forName(datumName);
+
+        int maxColumn = 0;
+
+        for (int column : columns) {
+
+            if (column < 0)
+                throw new IllegalArgumentException("Invalid column " + column);
+
+            maxColumn = Math.max(maxColumn, column);
+        }
+
+        this.direction = direction;
+        this.context = context;
+        this.delimiter = (byte) delimiter;
+        this.header = header;
+        this.columns = columns.clone();
+        this.lastColumn = maxColumn;
+        this.fieldStart = new int[maxColumn + 1];
+        this.fieldEnd = new int[maxColumn + 1];
+
+    }
+
+    /**
+     * Converts every row of the input and writes the results to the output.
+     * Neither channel is closed.
+     *
+     * @param in
+     * @param out
+     * @return the number of rows converted
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if a row cannot be parsed
+     */
+    public long convert(ReadableByteChannel in, WritableByteChannel out)
+            throws IOException {
+
+        ByteBuffer inputBuffer = ByteBuffer.wrap(input);
+        boolean skipLine = header;
+        long rows = 0;
+        lineNumber = 0;
+        batchSize = 0;
+        outputSize = 0;
+
+        if (header)
+            write(direction == Direction.TO_UTM ? UTM_HEADER : LAT_LONG_HEADER, out);
+
+        boolean endOfInput = false;
+
+        while (!endOfInput) {
+
+            endOfInput = in.read(inputBuffer) < 0;
+
+            int limit = inputBuffer.position();
+            int lineStart = 0;
+
+            for (int i = 0; i < limit; i++) {
+
+                if (input[i] != '\n')
+                    continue;
+
+                lineNumber++;
+
+                if (skipLine)
+                    skipLine = false;
+                else
+                    rows += parseLine(lineStart, i, out);
+
+                lineStart = i + 1;
+            }
+
+            if (endOfInput && lineStart < limit) {
+
+                lineNumber++;
+
+                if (!skipLine)
+                    rows += parseLine(lineStart, limit, out);
+
+                lineStart = limit;
+            }
+
+            if (lineStart == 0 && limit == input.length)
+                throw new IllegalArgumentException("Line " + (lineNumber + 1)
+                        + " is longer than " + input.length + " bytes");
+
+            System.arraycopy(input, lineStart, input, 0, limit - lineStart);
+            inputBuffer.position(limit - lineStart);
+        }
+
+        convertBatch(out);
+        flush(out);
+
+        return rows;
+
+    }
+
+    /**
+     * @return 1 if the line held a row, 0 if it was blank
+     */
+    private int parseLine(int start, int end, WritableByteChannel out)
+            throws IOException {
+
+        if (end > start && input[end - 1] == '\r')
+            end--;
+
+        if (end == start)
+            return 0;
+
+        int field = 0;
+        fieldStart[0] = start;
+
+        for (int i = start; i < end && field <= lastColumn; i++) {
+
+            if (input[i] == delimiter) {
+                fieldEnd[field] = i;
+                field++;
+
+                if (field <= lastColumn)
+                    fieldStart[field] = i + 1;
+            }
+        }
+
+        if (field <= lastColumn) {
+
+            if (field < lastColumn)
+                throw new IllegalArgumentException("Line " + lineNumber
+                        + " has fewer than " + (lastColumn + 1) + " fields");
+
+            fieldEnd[field] = end;
+        }
+
+        try {
+
+            if (direction == Direction.TO_UTM) {
+
+                first[batchSize] = parseDouble(columns[0]);
+                second[batchSize] = parseDouble(columns[1]);
+
+            } else {
+
+                first[batchSize] = parseDouble(columns[0]);
+                second[batchSize] = parseDouble(columns[1]);
+                zoneNumber[batchSize] = parseInt(columns[2]);
+                zoneLetter[batchSize] = parseLetter(columns[3]);
+                TransverseMercatorEngine.hemisphereOfBand(zoneLetter[batchSize]);
+            }
+
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": "
+                    + e.getMessage(), e);
+        }
+
+        batchSize++;
+
+        if (batchSize == BATCH_SIZE)
+            convertBatch(out);
+
+        return 1;
+
+    }
+
+    private void convertBatch(WritableByteChannel out) throws IOException {
+
+        if (direction == Direction.TO_UTM) {
+
+            LatLongToUTM.convert(first, second, context, third, fourth,
+                    zoneNumber, zoneLetter, 0, batchSize);
+
+            for (int i = 0; i < batchSize; i++) {
+
+                ensureCapacity(out);
+                outputSize = AsciiNumbers.formatFixed(third[i], METER_DECIMALS,
+                        output, outputSize);
+                output[outputSize++] = delimiter;
+                outputSize = AsciiNumbers.formatFixed(fourth[i], METER_DECIMALS,
+                        output, outputSize);
+                output[outputSize++] = delimiter;
+                outputSize = AsciiNumbers.writeLong(zoneNumber[i], output,
+                        outputSize);
+                output[outputSize++] = delimiter;
+                output[outputSize++] = (byte) zoneLetter[i];
+                output[outputSize++] = '\n';
+            }
+
+        } else {
+
+            UTMToLatLong.convert(first, second, zoneNumber, zoneLetter,
+                    context, third, fourth, 0, batchSize);
+
+            for (int i = 0; i < batchSize; i++) {
+
+                ensureCapacity(out);
+                outputSize = AsciiNumbers.formatFixed(third[i], DEGREE_DECIMALS,
+                        output, outputSize);
+                output[outputSize++] = delimiter;
+                outputSize = AsciiNumbers.formatFixed(fourth[i], DEGREE_DECIMALS,
+                        output, outputSize);
+                output[outputSize++] = '\n';
+            }
+        }
+
+        batchSize = 0;
+
+    }
+
+    private double parseDouble(int column) {
+
+        int start = fieldStart[column];
+        int end = fieldEnd[column];
+
+        while (start < end && (input[start] == ' ' || input[start] == '"'))
+            start++;
+
+        while (end > start && (input[end - 1] == ' ' || input[end - 1] == '"'))
+            end--;
+
+        return AsciiNumbers.parseDouble(input, start, end);
+
+    }
+
+    private int parseInt(int column) {
+
+        int start = fieldStart[column];
+        int end = fieldEnd[column];
+
+        while (start < end && (input[start] == ' ' || input[start] == '"'))
+            start++;
+
+        while (end > start && (input[end - 1] == ' ' || input[end - 1] == '"'))
+            end--;
+
+        return AsciiNumbers.parseInt(input, start, end);
+
+    }
+
+    private char parseLetter(int column) {
+
+        for (int i = fieldStart[column]; i < fieldEnd[column]; i++) {
+
+            if (input[i] != ' ' && input[i] != '"')
+                return (char) input[i];
+        }
+
+        throw new NumberFormatException("Missing band letter");
+
+    }
+
+    private void ensureCapacity(WritableByteChannel out) throws IOException {
+
+        if (outputSize + MAX_OUTPUT_ROW > output.length)
+            flush(out);
+
+    }
+
+    private void write(byte[] bytes, WritableByteChannel out) throws IOException {
+
+        if (outputSize + bytes.length > output.length)
+            flush(out);
+
+        System.arraycopy(bytes, 0, output, outputSize, bytes.length);
+        outputSize += bytes.length;
+
+    }
+
+    private void flush(WritableByteChannel out) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.wrap(output, 0, outputSize);
+
+        while (buffer.hasRemaining())
+            out.write(buffer);
+
+        outputSize = 0;
+
+    }
+
+}
@@ -20,7 +20,10 @@
 package org.cirdles.geoapp;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  *
@@ -119,6 +122,36 @@ public enum Datum {
         0.0000000000000000000387039, 0.000000000000000000000112109, 
         0.00000000000000000000000033786, 0.00000000000000000000000000106174});
     
+    /**
+     * Every accepted name of every datum, normalized by normalizeName.
+     */
+    private static final Map<String, Datum> ALIASES = new HashMap<String, Datum>();
+    
+    static {
+        
+        for (Datum datum : values()) {
+            ALIASES.put(normalizeName(datum.name()), datum);
+            ALIASES.put(normalizeName(datum.datum), datum);
+        }
+        
+        // EPSG codes of the geographic datums and of the ellipsoids
+        addAlias("EPSG:4326", WGS84);
+        addAlias("EPSG:7030", WGS84);
+        addAlias("EPSG:4269", NAD83);
+        addAlias("EPSG:7019", GRS80);
+        addAlias("EPSG:4322", WGS72);
+        addAlias("EPSG:7043", WGS72);
+        addAlias("EPSG:7003", AGD65);
+        addAlias("EPSG:7024", KRASOVSKY_1940);
+        addAlias("EPSG:4267", NAD27);
+        addAlias("EPSG:7022", IN24);
+        addAlias("EPSG:7012", CLARKE_1880);
+        addAlias("EPSG:7008", CLARKE_1866);
+        addAlias("EPSG:7001", AIRY_1830);
+        addAlias("EPSG:7004", BESSEL_1841);
+        addAlias("EPSG:7015", EVEREST_1830);
+        
+    }
     
     private String datum;
     private double equatorialRadius;
@@ -170,5 +203,55 @@ public enum Datum {
         return alphaSeries;
     }
     
+    /**
+     * Finds a datum by any of its names, ignoring case, spaces, underscores,
+     * hyphens and colons: the constant name ("KRASOVSKY_1940"), the display
+     * name ("KRASOVSKY 1940") or an EPSG code of the datum or its ellipsoid
+     * ("EPSG:7024").
+     * 
+     * @param name
+     * @return the datum
+     * @throws IllegalArgumentException if no datum has the name
+     */
+    public static Datum fromName(String name) {
+        
+        Datum datum = find(name);
+        
+        if (datum == null)
+            throw new IllegalArgumentException("Unknown datum: " + name);
+        
+        return datum;
+        
+    }
+    
+    /**
+     * @param name
+     * @return the datum with the name, as for fromName, or null if there is 
+     * none
+     */
+    static Datum find(String name) {
+        return ALIASES.get(normalizeName(name));
+    }
+    
+    private static void addAlias(String alias, Datum datum) {
+        ALIASES.put(normalizeName(alias), datum);
+    }
+    
+    static String normalizeName(String name) {
+        
+        StringBuilder normalized = new StringBuilder(name.length());
+        
+        for (int i = 0; i < name.length(); i++) {
+            
+            char c = name.charAt(i);
+            
+            if (c != ' ' && c != '_' && c != '-' && c != ':')
+                normalized.append(c);
+        }
+        
+        return normalized.toString().toUpperCase(Locale.ROOT);
+        
+    }
+    
     
 }
@@ -0,0 +1,203 @@
+/*
+ * DatumContext.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Immutable per datum constants shared by the forward and inverse
+ * conversions: eccentricity, meridian radius scaled by the UTM scale factor,
+ * and the Krüger alpha and beta series as primitives. A context is built the
+ * first time its datum is used and reused afterwards. Contexts of ellipsoids
+ * that are not a Datum are built by EllipsoidRegistry.
+ */
+public final class DatumContext {
+
+    static final double SCALE_FACTOR = 0.9996;
+
+    private static final AtomicReferenceArray<DatumContext> CONTEXTS
+            = new AtomicReferenceArray<DatumContext>(Datum.values().length);
+
+    private final String name;
+    private final double semiMajorAxis;
+    private final double flattening;
+    private final double eccentricity;
+    private final double meridianRadius;
+    private final double scaledMeridianRadius;
+    private final double flattening3D;
+    private final double[] alphaSeries;
+    private final double[] betaSeries;
+
+    private volatile TransverseMercatorEngine engine;
+    private volatile ConformalLatitudeTable conformalLatitudeTable;
+
+    private DatumContext(Datum datum) {
+
+        this.name = datum.name();
+        this.semiMajorAxis = datum.getEquatorialRadius();
+        this.flattening = 1 - datum.getPolarRadius() / datum.getEquatorialRadius();
+        this.eccentricity = datum.getEccentricity();
+        this.meridianRadius = datum.getMeridianRadius();
+        this.scaledMeridianRadius = SCALE_FACTOR * meridianRadius;
+        this.flattening3D = datum.getFlattening3D();
+
+        // both series from the full precision third flattening of the radii,
+        // so the forward and inverse projections are inverses of each other;
+        // the tabulated alphas and n of Datum carry only six digits
+        double n = (datum.getEquatorialRadius() - datum.getPolarRadius())
+                / (datum.getEquatorialRadius() + datum.getPolarRadius());
+        this.alphaSeries = KrugerSeries.alphaSeries(n);
+        this.betaSeries = KrugerSeries.betaSeries(n);
+
+    }
+
+    private DatumContext(String name, double semiMajorAxis, double flattening) {
+
+        this.name = name;
+        this.semiMajorAxis = semiMajorAxis;
+        this.flattening = flattening;
+        this.flattening3D = flattening / (2 - flattening);
+        this.eccentricity = Math.sqrt(flattening * (2 - flattening));
+
+        // Karney equation 14, to eighth order in n
+        double n2 = flattening3D * flattening3D;
+        this.meridianRadius = semiMajorAxis / (1 + flattening3D)
+                * (1 + n2 * (1.0 / 4 + n2 * (1.0 / 64 + n2 * (1.0 / 256
+                + n2 * 25.0 / 16384))));
+        this.scaledMeridianRadius = SCALE_FACTOR * meridianRadius;
+        this.alphaSeries = KrugerSeries.alphaSeries(flattening3D);
+        this.betaSeries = KrugerSeries.betaSeries(flattening3D);
+
+    }
+
+    /**
+     * @param datum
+     * @return the context of the datum, built on first use
+     */
+    public static DatumContext forDatum(Datum datum) {
+
+        DatumContext context = CONTEXTS.get(datum.ordinal());
+
+        if (context == null) {
+            CONTEXTS.compareAndSet(datum.ordinal(), null, new DatumContext(datum));
+            context = CONTEXTS.get(datum.ordinal());
+        }
+
+        return context;
+
+    }
+
+    /**
+     * Derives the constants of an ellipsoid from its semi-major axis and
+     * flattening.
+     *
+     * @param name
+     * @param semiMajorAxis in meters
+     * @param flattening (a - b) / a
+     * @return the context
+     */
+    static DatumContext forEllipsoid(String name, double semiMajorAxis,
+            double flattening) {
+        return new DatumContext(name, semiMajorAxis, flattening);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the equatorial radius in meters
+     */
+    public double getSemiMajorAxis() {
+        return semiMajorAxis;
+    }
+
+    public double getFlattening() {
+        return flattening;
+    }
+
+    public double getEccentricity() {
+        return eccentricity;
+    }
+
+    public double getMeridianRadius() {
+        return meridianRadius;
+    }
+
+    /**
+     * @return the meridian radius multiplied by the UTM scale factor, k0*A
+     */
+    public double getScaledMeridianRadius() {
+        return scaledMeridianRadius;
+    }
+
+    public double getFlattening3D() {
+        return flattening3D;
+    }
+
+    public double[] getAlphaSeries() {
+        return alphaSeries.clone();
+    }
+
+    public double[] getBetaSeries() {
+        return betaSeries.clone();
+    }
+
+    double[] alphaSeries() {
+        return alphaSeries;
+    }
+
+    double[] betaSeries() {
+        return betaSeries;
+    }
+
+    /**
+     * @return the engine of this context with the default Newton settings,
+     * built on first use
+     */
+    TransverseMercatorEngine engine() {
+
+        TransverseMercatorEngine result = engine;
+
+        if (result == null) {
+            result = new TransverseMercatorEngine(this);
+            engine = result;
+        }
+
+        return result;
+
+    }
+
+    /**
+     * @return the conformal latitude table of this context, built on first
+     * use
+     */
+    ConformalLatitudeTable conformalLatitudeTable() {
+
+        ConformalLatitudeTable result = conformalLatitudeTable;
+
+        if (result == null) {
+            result = new ConformalLatitudeTable(eccentricity);
+            conformalLatitudeTable = result;
+        }
+
+        return result;
+
+    }
+
+}
@@ -0,0 +1,463 @@
+/*
+ * DatumTransformation.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+/**
+ * Immutable transformation of geodetic coordinates from one datum to
+ * another, either by a seven parameter Helmert transformation through earth
+ * centered, earth fixed (ECEF) coordinates or by the standard Molodensky
+ * formulas. Everything that depends only on the pair of datums, the rotation
+ * matrix and the ellipsoid constants, is computed when the transformation is
+ * built, so the batch methods only do per point work.
+ *
+ * Helmert parameters follow the position vector convention (EPSG method
+ * 9606); negate the rotations of coordinate frame parameters (EPSG method
+ * 9607).
+ */
+public final class DatumTransformation {
+
+    private static final double DEGREES_TO_RADIANS = Math.PI / 180;
+    private static final double RADIANS_TO_DEGREES = 180 / Math.PI;
+    private static final double ARC_SECONDS_TO_RADIANS = DEGREES_TO_RADIANS / 3600;
+
+    private final DatumContext source;
+    private final DatumContext target;
+    private final boolean helmert;
+
+    // source ellipsoid
+    private final double sourceA;
+    private final double sourceE2;
+
+    // target ellipsoid
+    private final double targetA;
+    private final double targetB;
+    private final double targetE2;
+    private final double targetSecondE2;
+
+    // Helmert: target = translation + matrix * source, matrix including scale
+    private final double[] matrix;
+    private final double translationX;
+    private final double translationY;
+    private final double translationZ;
+
+    // Molodensky: ellipsoid differences and terms of the source ellipsoid
+    private final double deltaA;
+    private final double deltaF;
+    private final double sourceBOverA;
+
+    private DatumTransformation(DatumContext source, DatumContext target,
+            boolean helmert, double[] matrix, double translationX,
+            double translationY, double translationZ) {
+
+        this.source = source;
+        this.target = target;
+        this.helmert = helmert;
+
+        double sourceF = source.getFlattening();
+        double targetF = target.getFlattening();
+
+        this.sourceA = source.getSemiMajorAxis();
+        this.sourceE2 = sourceF * (2 - sourceF);
+        this.targetA = target.getSemiMajorAxis();
+        this.targetB = targetA * (1 - targetF);
+        this.targetE2 = targetF * (2 - targetF);
+        this.targetSecondE2 = targetE2 / (1 - targetE2);
+
+        this.matrix = matrix;
+        this.translationX = translationX;
+        this.translationY = translationY;
+        this.translationZ = translationZ;
+
+        this.deltaA = targetA - sourceA;
+        this.deltaF = targetF - sourceF;
+        this.sourceBOverA = 1 - sourceF;
+
+    }
+
+    /**
+     * Builds a seven parameter Helmert transformation.
+     *
+     * @param source datum of the input coordinates
+     * @param target datum of the output coordinates
+     * @param translationX in meters
+     * @param translationY in meters
+     * @param translationZ in meters
+     * @param rotationX in arc-seconds, position vector convention
+     * @param rotationY in arc-seconds, position vector convention
+     * @param rotationZ in arc-seconds, position vector convention
+     * @param scale in parts per million
+     * @return the transformation
+     */
+    public static DatumTransformation helmert(DatumContext source,
+            DatumContext target, double translationX, double translationY,
+            double translationZ, double rotationX, double rotationY,
+            double rotationZ, double scale) {
+
+        double rx = rotationX * ARC_SECONDS_TO_RADIANS;
+        double ry = rotationY * ARC_SECONDS_TO_RADIANS;
+        double rz = rotationZ * ARC_SECONDS_TO_RADIANS;
+        double m = 1 + scale * 1e-6;
+
+        double[] matrix = {
+            m, -m * rz, m * ry,
+            m * rz, m, -m * rx,
+            -m * ry, m * rx, m};
+
+        return new DatumTransformation(source, target, true, matrix,
+                translationX, translationY, translationZ);
+
+    }
+
+    /**
+     * Builds a seven parameter Helmert transformation.
+     *
+     * @param source datum of the input coordinates
+     * @param target datum of the output coordinates
+     * @param translationX in meters
+     * @param translationY in meters
+     * @param translationZ in meters
+     * @param rotationX in arc-seconds, position vector convention
+     * @param rotationY in arc-seconds, position vector convention
+     * @param rotationZ in arc-seconds, position vector convention
+     * @param scale in parts per million
+     * @return the transformation
+     */
+    public static DatumTransformation helmert(Datum source, Datum target,
+            double translationX, double translationY, double translationZ,
+            double rotationX, double rotationY, double rotationZ, double scale) {
+
+        return helmert(DatumContext.forDatum(source), DatumContext.forDatum(target),
+                translationX, translationY, translationZ, rotationX, rotationY,
+                rotationZ, scale);
+
+    }
+
+    /**
+     * Builds a standard Molodensky transformation, which shifts the origin
+     * and changes the ellipsoid without rotation or scale.
+     *
+     * @param source datum of the input coordinates
+     * @param target datum of the output coordinates
+     * @param shiftX in meters
+     * @param shiftY in meters
+     * @param shiftZ in meters
+     * @return the transformation
+     */
+    public static DatumTransformation molodensky(DatumContext source,
+            DatumContext target, double shiftX, double shiftY, double shiftZ) {
+        return new DatumTransformation(source, target, false, null, shiftX,
+                shiftY, shiftZ);
+    }
+
+    /**
+     * Builds a standard Molodensky transformation, which shifts the origin
+     * and changes the ellipsoid without rotation or scale.
+     *
+     * @param source datum of the input coordinates
+     * @param target datum of the output coordinates
+     * @param shiftX in meters
+     * @param shiftY in meters
+     * @param shiftZ in meters
+     * @return the transformation
+     */
+    public static DatumTransformation molodensky(Datum source, Datum target,
+            double shiftX, double shiftY, double shiftZ) {
+        return molodensky(DatumContext.forDatum(source),
+                DatumContext.forDatum(target), shiftX, shiftY, shiftZ);
+    }
+
+    /**
+     * Published transformations between datums of the Datum enum: the mean
+     * Molodensky shifts of NAD27 (continental US) and AGD65 (Australia) to
+     * WGS84 from NIMA TR8350.2, and the Helmert transformation of WGS72 to
+     * WGS84 (EPSG 1238), as well as their inverses.
+     *
+     * @param source
+     * @param target
+     * @return the transformation from source to target
+     * @throws IllegalArgumentException if no transformation is known
+     */
+    public static DatumTransformation forDatums(Datum source, Datum target) {
+
+        if (target == Datum.WGS84) {
+
+            switch (source) {
+                case NAD27:
+                    return molodensky(source, target, -8, 160, 176);
+                case AGD65:
+                    return molodensky(source, target, -133, -48, 148);
+                case WGS72:
+                    return helmert(source, target, 0, 0, 4.5, 0, 0, 0.554, 0.219);
+                default:
+                    break;
+            }
+        }
+
+        if (source == Datum.WGS84 && target != Datum.WGS84) {
+
+            try {
+                return forDatums(target, source).inverse();
+            } catch (IllegalArgumentException e) {
+                // fall through to the message naming the requested pair
+            }
+        }
+
+        throw new IllegalArgumentException("No transformation from " + source
+                + " to " + target);
+
+    }
+
+    /**
+     * @return the transformation from the target datum back to the source
+     * datum. The inverse of a Helmert transformation inverts its matrix
+     * exactly; the inverse of a Molodensky transformation negates the shifts.
+     */
+    public DatumTransformation inverse() {
+
+        if (!helmert)
+            return new DatumTransformation(target, source, false, null,
+                    -translationX, -translationY, -translationZ);
+
+        double[] m = matrix;
+        double c00 = m[4] * m[8] - m[5] * m[7];
+        double c01 = m[2] * m[7] - m[1] * m[8];
+        double c02 = m[1] * m[5] - m[2] * m[4];
+        double c10 = m[5] * m[6] - m[3] * m[8];
+        double c11 = m[0] * m[8] - m[2] * m[6];
+        double c12 = m[2] * m[3] - m[0] * m[5];
+        double c20 = m[3] * m[7] - m[4] * m[6];
+        double c21 = m[1] * m[6] - m[0] * m[7];
+        double c22 = m[0] * m[4] - m[1] * m[3];
+        double determinant = m[0] * c00 + m[1] * c10 + m[2] * c20;
+
+        double[] inverse = {
+            c00 / determinant, c01 / determinant, c02 / determinant,
+            c10 / determinant, c11 / determinant, c12 / determinant,
+            c20 / determinant, c21 / determinant, c22 / determinant};
+
+        return new DatumTransformation(target, source, true, inverse,
+                -(inverse[0] * translationX + inverse[1] * translationY
+                + inverse[2] * translationZ),
+                -(inverse[3] * translationX + inverse[4] * translationY
+                + inverse[5] * translationZ),
+                -(inverse[6] * translationX + inverse[7] * translationY
+                + inverse[8] * translationZ));
+
+    }
+
+    public DatumContext getSource() {
+        return source;
+    }
+
+    public DatumContext getTarget() {
+        return target;
+    }
+
+    /**
+     * @return true for a Helmert transformation, false for Molodensky
+     */
+    public boolean isHelmert() {
+        return helmert;
+    }
+
+    /**
+     * Transforms the points from fromIndex (inclusive) to toIndex
+     * (exclusive). The target arrays may be the source arrays.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param height ellipsoidal heights in meters, or null for zero
+     * @param targetLatitude receives the latitudes in degrees
+     * @param targetLongitude receives the longitudes in degrees
+     * @param targetHeight receives the heights in meters, or null
+     * @param fromIndex
+     * @param toIndex
+     */
+    public void transform(double[] latitude, double[] longitude, double[] height,
+            double[] targetLatitude, double[] targetLongitude,
+            double[] targetHeight, int fromIndex, int toIndex) {
+
+        TransverseMercatorEngine.checkRange(fromIndex, toIndex, latitude.length,
+                longitude.length, targetLatitude.length, targetLongitude.length,
+                height == null ? toIndex : height.length,
+                targetHeight == null ? toIndex : targetHeight.length);
+
+        double[] point = new double[3];
+
+        for (int i = fromIndex; i < toIndex; i++) {
+
+            transform(latitude[i], longitude[i], height == null ? 0 : height[i],
+                    point);
+
+            targetLatitude[i] = point[0];
+            targetLongitude[i] = point[1];
+
+            if (targetHeight != null)
+                targetHeight[i] = point[2];
+        }
+
+    }
+
+    /**
+     * Transforms the points from fromIndex (inclusive) to toIndex (exclusive)
+     * and projects them to UTM in the target datum in the same pass, without
+     * intermediate arrays. Zones and bands are those of the transformed
+     * points.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param height ellipsoidal heights in meters, or null for zero
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the latitude band letters
+     * @param fromIndex
+     * @param toIndex
+     */
+    public void toUTM(double[] latitude, double[] longitude, double[] height,
+            double[] easting, double[] northing, int[] zoneNumber,
+            char[] zoneLetter, int fromIndex, int toIndex) {
+
+        TransverseMercatorEngine.checkRange(fromIndex, toIndex, latitude.length,
+                longitude.length, easting.length, northing.length,
+                zoneNumber.length, zoneLetter.length,
+                height == null ? toIndex : height.length);
+
+        TransverseMercatorEngine engine = target.engine();
+        double[] point = new double[3];
+
+        for (int i = fromIndex; i < toIndex; i++) {
+
+            transform(latitude[i], longitude[i], height == null ? 0 : height[i],
+                    point);
+
+            int zone = TransverseMercatorEngine.calcZoneNumber(point[0], point[1]);
+
+            zoneNumber[i] = zone;
+            zoneLetter[i] = TransverseMercatorEngine.calcZoneLetter(point[0]);
+            engine.forward(point[0], point[1], zone, easting, northing, i);
+        }
+
+    }
+
+    /**
+     * Transforms one point.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param height in meters
+     * @param result receives latitude, longitude and height
+     */
+    void transform(double latitude, double longitude, double height,
+            double[] result) {
+
+        if (helmert)
+            helmert(latitude, longitude, height, result);
+        else
+            molodensky(latitude, longitude, height, result);
+
+    }
+
+    private void helmert(double latitude, double longitude, double height,
+            double[] result) {
+
+        double phi = latitude * DEGREES_TO_RADIANS;
+        double lambda = longitude * DEGREES_TO_RADIANS;
+        double sinPhi = Math.sin(phi);
+        double cosPhi = Math.cos(phi);
+
+        // geodetic to ECEF on the source ellipsoid
+        double primeVertical = sourceA / Math.sqrt(1 - sourceE2 * sinPhi * sinPhi);
+        double x = (primeVertical + height) * cosPhi * Math.cos(lambda);
+        double y = (primeVertical + height) * cosPhi * Math.sin(lambda);
+        double z = (primeVertical * (1 - sourceE2) + height) * sinPhi;
+
+        double[] m = matrix;
+        double targetX = translationX + m[0] * x + m[1] * y + m[2] * z;
+        double targetY = translationY + m[3] * x + m[4] * y + m[5] * z;
+        double targetZ = translationZ + m[6] * x + m[7] * y + m[8] * z;
+
+        // ECEF to geodetic on the target ellipsoid, Bowring's method
+        double p = Math.sqrt(targetX * targetX + targetY * targetY);
+        double theta = Math.atan2(targetZ * targetA, p * targetB);
+        double sinTheta = Math.sin(theta);
+        double cosTheta = Math.cos(theta);
+
+        double targetPhi = Math.atan2(
+                targetZ + targetSecondE2 * targetB * sinTheta * sinTheta * sinTheta,
+                p - targetE2 * targetA * cosTheta * cosTheta * cosTheta);
+        double sinTargetPhi = Math.sin(targetPhi);
+        double targetPrimeVertical = targetA
+                / Math.sqrt(1 - targetE2 * sinTargetPhi * sinTargetPhi);
+
+        result[0] = targetPhi * RADIANS_TO_DEGREES;
+        result[1] = Math.atan2(targetY, targetX) * RADIANS_TO_DEGREES;
+        // stable at the poles, unlike p / cos(phi) - N
+        result[2] = p * Math.cos(targetPhi) + (targetZ + targetE2
+                * targetPrimeVertical * sinTargetPhi) * sinTargetPhi
+                - targetPrimeVertical;
+
+    }
+
+    private void molodensky(double latitude, double longitude, double height,
+            double[] result) {
+
+        double phi = latitude * DEGREES_TO_RADIANS;
+        double lambda = longitude * DEGREES_TO_RADIANS;
+        double sinPhi = Math.sin(phi);
+        double cosPhi = Math.cos(phi);
+        double sinLambda = Math.sin(lambda);
+        double cosLambda = Math.cos(lambda);
+
+        double w2 = 1 - sourceE2 * sinPhi * sinPhi;
+        double w = Math.sqrt(w2);
+        double primeVertical = sourceA / w;
+        double meridional = sourceA * (1 - sourceE2) / (w2 * w);
+
+        double deltaPhi = (-translationX * sinPhi * cosLambda
+                - translationY * sinPhi * sinLambda
+                + translationZ * cosPhi
+                + deltaA * primeVertical * sourceE2 * sinPhi * cosPhi / sourceA
+                + deltaF * (meridional / sourceBOverA
+                + primeVertical * sourceBOverA) * sinPhi * cosPhi)
+                / (meridional + height);
+
+        double deltaLambda = (-translationX * sinLambda
+                + translationY * cosLambda)
+                / ((primeVertical + height) * cosPhi);
+
+        double deltaHeight = translationX * cosPhi * cosLambda
+                + translationY * cosPhi * sinLambda
+                + translationZ * sinPhi
+                - deltaA * sourceA / primeVertical
+                + deltaF * sourceBOverA * primeVertical * sinPhi * sinPhi;
+
+        double targetLongitude = longitude + deltaLambda * RADIANS_TO_DEGREES;
+
+        if (targetLongitude > 180)
+            targetLongitude -= 360;
+        else if (targetLongitude < -180)
+            targetLongitude += 360;
+
+        result[0] = latitude + deltaPhi * RADIANS_TO_DEGREES;
+        result[1] = targetLongitude;
+        result[2] = height + deltaHeight;
+
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * EllipsoidRegistry.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Ellipsoids registered at runtime, next to the built in Datum constants.
+ * The constants of an ellipsoid (n, e, A and the alpha and beta series) are
+ * derived once when it is registered and kept in an immutable DatumContext
+ * that both converters accept. Names are matched like Datum.fromName.
+ */
+public final class EllipsoidRegistry {
+
+    private static final ConcurrentMap<String, DatumContext> CONTEXTS
+            = new ConcurrentHashMap<String, DatumContext>();
+
+    private EllipsoidRegistry() {
+    }
+
+    /**
+     * Registers an ellipsoid. Registering the same name again with the same
+     * axis and flattening returns the context already registered.
+     *
+     * @param name may not be a name of a Datum
+     * @param semiMajorAxis equatorial radius in meters
+     * @param flattening (a - b) / a, for example 1 / 298.257223563
+     * @return the context of the ellipsoid
+     * @throws IllegalArgumentException if the name is taken or the axis or
+     * flattening is invalid
+     */
+    public static DatumContext register(String name, double semiMajorAxis,
+            double flattening) {
+
+        if (!(semiMajorAxis > 0) || Double.isInfinite(semiMajorAxis))
+            throw new IllegalArgumentException("Invalid semi-major axis: "
+                    + semiMajorAxis);
+
+        if (!(flattening >= 0 && flattening < 1))
+            throw new IllegalArgumentException("Invalid flattening: " + flattening);
+
+        if (Datum.find(name) != null)
+            throw new IllegalArgumentException(name + " is a built in datum");
+
+        DatumContext context = DatumContext.forEllipsoid(name, semiMajorAxis,
+                flattening);
+        DatumContext registered = CONTEXTS.putIfAbsent(Datum.normalizeName(name),
+                context);
+
+        if (registered == null)
+            return context;
+
+        if (registered.getSemiMajorAxis() != semiMajorAxis
+                || registered.getFlattening() != flattening)
+            throw new IllegalArgumentException(name
+                    + " is already registered with other parameters");
+
+        return registered;
+
+    }
+
+    /**
+     * @param name
+     * @return the context of a registered ellipsoid, or null if none has
+     * the name
+     */
+    public static DatumContext get(String name) {
+        return CONTEXTS.get(Datum.normalizeName(name));
+    }
+
+    /**
+     * Resolves a name to a built in datum or, failing that, to a registered
+     * ellipsoid.
+     *
+     * @param name
+     * @return the context
+     * @throws IllegalArgumentException if nothing has the name
+     */
+    public static DatumContext forName(String name) {
+
+        Datum datum = Datum.find(name);
+
+        if (datum != null)
+            return DatumContext.forDatum(datum);
+
+        DatumContext context = get(name);
+
+        if (context == null)
+            throw new IllegalArgumentException("Unknown datum: " + name);
+
+        return context;
+
+    }
+
+}
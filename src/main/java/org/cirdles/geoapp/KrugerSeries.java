@@ -28,6 +28,101 @@ import java.math.MathContext;
  */
 public class KrugerSeries {
     
+    /**
+     * Coefficients of the alpha series: row j holds the coefficients of 
+     * n^(j+1) to n^10 in alpha(j+1).
+     */
+    private static final double[][] ALPHA_COEFFICIENTS = {
+        {1.0/2.0, -2.0/3.0, 5.0/16.0, 41.0/180.0, -127.0/288.0, 7891.0/37800.0,
+            72161.0/387072.0, -18975107.0/50803200.0, 60193001.0/290304000.0,
+            134592031.0/1026432000.0},
+        {13.0/48.0, -3.0/5.0, 557.0/1440.0, 281.0/630.0, -1983433.0/1935360.0,
+            13769.0/28800.0, 148003883.0/174182400.0, -705286231.0/465696000.0,
+            1703267974087.0/3218890752000.0},
+        {61.0/240.0, -103.0/140.0, 15061.0/26880.0, 167603.0/181440.0,
+            -67102379.0/29030400.0, 79682431.0/79833600.0,
+            6304945039.0/2128896000.0, -6601904925257.0/1307674368000.0},
+        {49561.0/161280.0, -179.0/168.0, 6601661.0/7257600.0, 97445.0/49896.0,
+            -40176129013.0/7664025600.0, 138471097.0/66528000.0,
+            48087451385201.0/5230697472000.0},
+        {34729.0/80640.0, -3418889.0/1995840.0, 14644087.0/9123840.0,
+            2605413599.0/622702080.0, -31015475399.0/2583060480.0,
+            5820486440369.0/1307674368000.0},
+        {212378941.0/319334400.0, -30705481.0/10378368.0,
+            175214326799.0/58118860800.0, 870492877.0/96096000.0,
+            -1328004581729000.0/47823519744000.0},
+        {1522256789.0/1383782400.0, -16759934899.0/3113510400.0,
+            1315149374443.0/221405184000.0, 71809987837451.0/3629463552000.0}
+    };
+    
+    /**
+     * Coefficients of the beta series: row j holds the coefficients of 
+     * n^(j+1) to n^10 in beta(j+1).
+     */
+    private static final double[][] BETA_COEFFICIENTS = {
+        {1.0/2.0, -2.0/3.0, 37.0/96.0, -1.0/360.0, -81.0/512.0, 96199.0/604800.0,
+            -5406467.0/38707200.0, 7944359.0/67737600.0,
+            -7378753979.0/97542144000.0, 25123531261.0/804722688000.0},
+        {1.0/48.0, 1.0/15.0, -437.0/1440.0, 46.0/105.0, -1118711.0/3870720.0,
+            51841.0/1209600.0, 24749483.0/348364800.0,
+            -115295683.0/1397088000.0, 5487737251099.0/51502252032000.0},
+        {17.0/480.0, -37.0/840.0, -209.0/4480.0, 5569.0/90720.0,
+            9261899.0/58060800.0, -6457463.0/17740800.0,
+            2473691167.0/9289728000.0, -5487737251099.0/51502252032000.0},
+        {4397.0/161280.0, -11.0/504.0, -830251.0/7257600.0, 466511.0/2494800.0,
+            324154477.0/7664025600.0, -937932223.0/3891888000.0,
+            -89112264211.0/5230697472000.0},
+        {4583.0/161280.0, -108847.0/3991680.0, -8005831.0/63866880.0,
+            22894433.0/124540416.0, 112731569449.0/557941063680.0,
+            -5391039814733.0/10461394944000.0},
+        {20648693.0/638668800.0, -16363163.0/518918400.0,
+            -2204645983.0/12915302400.0, 4543317553.0/18162144000.0,
+            54894890298749.0/167382319104000.0},
+        {219941297.0/5535129600.0, -497323811.0/12454041600.0,
+            -79431132943.0/332107776000.0, 4346429528407.0/12703122432000.0}
+    };
+    
+    /**
+     * Evaluates alpha1 to alpha7 in double precision, each by Horner's 
+     * method.
+     * 
+     * @param flattening3D the third flattening n
+     * @return alpha1 to alpha7
+     */
+    public static double[] alphaSeries(double flattening3D) {
+        return evaluate(ALPHA_COEFFICIENTS, flattening3D);
+    }
+    
+    /**
+     * Evaluates beta1 to beta7 in double precision, each by Horner's method.
+     * 
+     * @param flattening3D the third flattening n
+     * @return beta1 to beta7
+     */
+    public static double[] betaSeries(double flattening3D) {
+        return evaluate(BETA_COEFFICIENTS, flattening3D);
+    }
+    
+    private static double[] evaluate(double[][] coefficients, double n) {
+        
+        double[] series = new double[coefficients.length];
+        double power = 1;
+        
+        for (int j = 0; j < coefficients.length; j++) {
+            
+            double[] row = coefficients[j];
+            double sum = 0;
+            
+            for (int k = row.length - 1; k >= 0; k--)
+                sum = sum * n + row[k];
+            
+            power *= n;
+            series[j] = sum * power;
+        }
+        
+        return series;
+        
+    }
     
     public static BigDecimal alpha1(BigDecimal flattening3D) {
         
@@ -40,7 +135,7 @@ public class KrugerSeries {
             new BigDecimal(72161.0/387072.0).multiply(flattening3D.pow(7))).subtract(
             new BigDecimal(18975107.0/50803200.0).multiply(flattening3D.pow(8))).add(
             new BigDecimal(60193001.0/290304000.0).multiply(flattening3D.pow(9))).add(
-            new BigDecimal(134592031/1026432000).multiply(flattening3D.pow(10)));
+            new BigDecimal(134592031.0/1026432000.0).multiply(flattening3D.pow(10)));
         
         return alpha1;
     }
@@ -66,7 +161,7 @@ public class KrugerSeries {
             new BigDecimal(103.0/140.0).multiply(flattening3D.pow(4))).add(
             new BigDecimal(15061.0/26880.0).multiply(flattening3D.pow(5))).add(
             new BigDecimal(167603.0/181440.0).multiply(flattening3D.pow(6))).subtract(
-            new BigDecimal(67102379/29030400).multiply(flattening3D.pow(7))).add(
+            new BigDecimal(67102379.0/29030400.0).multiply(flattening3D.pow(7))).add(
             new BigDecimal(79682431.0/79833600.0).multiply(flattening3D.pow(8))).add(
             new BigDecimal(6304945039.0/2128896000.0).multiply(flattening3D.pow(9))).subtract(
             new BigDecimal(6601904925257.0/1307674368000.0).multiply(flattening3D.pow(10)));
@@ -145,12 +240,12 @@ public class KrugerSeries {
         
         BigDecimal beta2 = (new BigDecimal(1.0/48.0, MathContext.DECIMAL128)).multiply(flattening3D.pow(2)).add(
             new BigDecimal(1.0/15.0).multiply(flattening3D.pow(3))).subtract(
-            new BigDecimal(437.0-1440.0).multiply(flattening3D.pow(4))).add(
+            new BigDecimal(437.0/1440.0).multiply(flattening3D.pow(4))).add(
             new BigDecimal(46.0/105.0).multiply(flattening3D.pow(5))).subtract(
             new BigDecimal(1118711.0/3870720.0).multiply(flattening3D.pow(6))).add(
             new BigDecimal(51841.0/1209600.0).multiply(flattening3D.pow(7))).add(
             new BigDecimal(24749483.0/348364800.0).multiply(flattening3D.pow(8))).subtract(
-            new BigDecimal(115295683.0/1397088000.0)).multiply(flattening3D.pow(9)).add(
+            new BigDecimal(115295683.0/1397088000.0).multiply(flattening3D.pow(9))).add(
             new BigDecimal(5487737251099.0/51502252032000.0).multiply(flattening3D.pow(10)));
         
         
@@ -168,7 +263,7 @@ public class KrugerSeries {
             new BigDecimal(5569.0/90720.0).multiply(flattening3D.pow(6))).add(
             new BigDecimal(9261899.0/58060800.0).multiply(flattening3D.pow(7))).subtract(
             new BigDecimal(6457463.0/17740800.0).multiply(flattening3D.pow(8))).add(
-            new BigDecimal(2473691167.0/9289728000.0)).multiply(flattening3D.pow(9)).subtract(
+            new BigDecimal(2473691167.0/9289728000.0).multiply(flattening3D.pow(9))).subtract(
             new BigDecimal(5487737251099.0/51502252032000.0).multiply(flattening3D.pow(10)));
         
         
@@ -179,14 +274,14 @@ public class KrugerSeries {
 
     public static BigDecimal beta4(BigDecimal flattening3D) {
         
-        BigDecimal beta4 = (new BigDecimal(4397.0/16128.0).multiply(
+        BigDecimal beta4 = (new BigDecimal(4397.0/161280.0).multiply(
             flattening3D.pow(4))).subtract(
             new BigDecimal(11.0/504.0).multiply(flattening3D.pow(5))).subtract(
             new BigDecimal(830251.0/7257600.0).multiply(flattening3D.pow(6))).add(
             new BigDecimal(466511.0/2494800.0).multiply(flattening3D.pow(7))).add(
             new BigDecimal(324154477.0/7664025600.0).multiply(
-            flattening3D.pow(8))).subtract(new BigDecimal(937932223.0/3891888000.0))
-            .multiply(flattening3D.pow(9)).subtract(new BigDecimal(
+            flattening3D.pow(8))).subtract(new BigDecimal(937932223.0/3891888000.0)
+            .multiply(flattening3D.pow(9))).subtract(new BigDecimal(
             89112264211.0/5230697472000.0).multiply(flattening3D.pow(10)));
         
         return beta4;
@@ -201,8 +296,8 @@ public class KrugerSeries {
             new BigDecimal(108847.0/3991680.0).multiply(flattening3D.pow(6))).subtract(
             new BigDecimal(8005831.0/63866880.0).multiply(flattening3D.pow(7))).add(
             new BigDecimal(22894433.0/124540416.0).multiply(flattening3D.pow(8))).add(
-            new BigDecimal(112731569449.0/557941063680.0)).multiply(
-            flattening3D.pow(9)).subtract(new BigDecimal(
+            new BigDecimal(112731569449.0/557941063680.0).multiply(
+            flattening3D.pow(9))).subtract(new BigDecimal(
             5391039814733.0/10461394944000.0).multiply(flattening3D.pow(10)));
         
         return beta5;
@@ -212,11 +307,11 @@ public class KrugerSeries {
 
     public static BigDecimal beta6(BigDecimal flattening3D) {
         
-        BigDecimal beta6 = (new BigDecimal(20648693.0/6386688000.0).multiply(
+        BigDecimal beta6 = (new BigDecimal(20648693.0/638668800.0).multiply(
             flattening3D.pow(6))).subtract(
             new BigDecimal(16363163.0/518918400.0).multiply(flattening3D.pow(7))).subtract(
             new BigDecimal(2204645983.0/12915302400.0).multiply(flattening3D.pow(8))).add(
-            new BigDecimal(4543317553.0/18162144000.0)).multiply(flattening3D.pow(9)).add(
+            new BigDecimal(4543317553.0/18162144000.0).multiply(flattening3D.pow(9))).add(
             new BigDecimal(54894890298749.0/167382319104000.0).multiply(flattening3D.pow(10)));
         
         return beta6;
@@ -230,8 +325,8 @@ public class KrugerSeries {
             flattening3D.pow(7))).subtract(
             new BigDecimal(497323811.0/12454041600.0).multiply(
             flattening3D.pow(8))).subtract(
-            new BigDecimal(79431132943.0/332107776000.0)).multiply(
-            flattening3D.pow(9)).add(
+            new BigDecimal(79431132943.0/332107776000.0).multiply(
+            flattening3D.pow(9))).add(
             new BigDecimal(4346429528407.0/12703122432000.0).multiply(flattening3D.pow(10)));
         
         return beta7;
@@ -33,9 +33,6 @@ Steven Dutch, Natural and Applied Sciences, University of Wisconsin - Green Bay
 package org.cirdles.geoapp;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import org.apache.commons.math3.analysis.function.Asinh;
-import org.apache.commons.math3.analysis.function.Atanh;
 
 
 /**
@@ -44,12 +41,6 @@ import org.apache.commons.math3.analysis.function.Atanh;
  */
 public class LatLongToUTM {
     
-    private static final BigDecimal SCALE_FACTOR = new BigDecimal(0.9996);
-    private static final BigDecimal FALSE_EASTING = new BigDecimal(500000);
-    private static final BigDecimal SOUTH_HEMISPHERE_SUBTRACTION = new BigDecimal(10000000);
-    private static final BigDecimal ONE = new BigDecimal(1);
-    private static final int PRECISION = 10;
-    
     /**
      * 
      * @param latitude
@@ -57,395 +48,276 @@ public class LatLongToUTM {
      * @param datumName
      * @return UTM
      * 
-     * Converts double latitude longitude to BigDecimal and converts it to UTM
+     * Converts double latitude longitude to UTM
      */
     
     public static UTM convert(double latitude, double longitude, String datumName) {
         
-        return convert(new BigDecimal(latitude), new BigDecimal(longitude), datumName);
+        return convert(latitude, longitude, EllipsoidRegistry.forName(datumName));
         
-    }     
+    }
     
     /**
      * 
      * @param latitude
      * @param longitude
-     * @param datumName
+     * @param datum
      * @return UTM
      * 
-     * Converts BigDecimal latitude longitude to UTM 
+     * Converts double latitude longitude to UTM
      */
-    public static UTM convert(BigDecimal latitude, BigDecimal longitude, String datumName){
-        
-        Datum datum = Datum.valueOf(datumName);
-        
-        BigDecimal meridianRadius = new BigDecimal(datum.getMeridianRadius());
-        BigDecimal eccentricity = new BigDecimal(datum.getEccentricity());
-        
-        BigDecimal latitudeRadians = latitude.abs().multiply(
-                new BigDecimal(Math.PI)).divide(new BigDecimal(180.0), PRECISION,
-                RoundingMode.HALF_UP);
-        
-        int zoneNumber = calcZoneNumber(longitude);
-        
-        BigDecimal zoneCentralMeridian = calcZoneCentralMeridian(zoneNumber);
-        
-        BigDecimal changeInLongitudeDegree = (longitude.subtract(zoneCentralMeridian)
-                ).abs().setScale(PRECISION, RoundingMode.HALF_UP);
-        
-        BigDecimal changeInLongitudeRadians = (changeInLongitudeDegree.multiply(
-                new BigDecimal(Math.PI))).divide(new BigDecimal(180), PRECISION, 
-                RoundingMode.HALF_UP);
-        
-
-        BigDecimal conformalLatitude = calcConformalLatitude(eccentricity, 
-                latitudeRadians).setScale(PRECISION, RoundingMode.HALF_UP);
-        
-        BigDecimal tauPrime = (new BigDecimal(Math.tan(conformalLatitude.
-                doubleValue()))).setScale(PRECISION, RoundingMode.HALF_UP);
+    public static UTM convert(double latitude, double longitude, Datum datum) {
         
-        BigDecimal xiPrimeNorth = calcXiPrimeNorth(changeInLongitudeRadians, 
-                tauPrime).setScale(PRECISION, RoundingMode.HALF_UP);
-        
-        BigDecimal etaPrimeEast = calcEtaPrimeEast(changeInLongitudeRadians, 
-                tauPrime).setScale(PRECISION, RoundingMode.HALF_UP);
-        
-        double[] alphaSeries = datum.getAlphaSeries();
-        
-
-        BigDecimal xiNorth = calcXiNorth(xiPrimeNorth, etaPrimeEast, 
-                alphaSeries).setScale(PRECISION, RoundingMode.HALF_UP);
-        
-        BigDecimal etaEast = calcEtaEast(xiPrimeNorth, etaPrimeEast, 
-                alphaSeries).setScale(PRECISION, RoundingMode.HALF_UP);
-        
-        BigDecimal easting = calcEasting(meridianRadius, etaEast, longitude, 
-                zoneCentralMeridian).setScale(PRECISION, RoundingMode.HALF_UP);
-        BigDecimal northing = calcNorthing(meridianRadius, xiNorth, 
-                latitude).setScale(PRECISION, RoundingMode.HALF_UP);
-        
-        char zoneLetter = calcZoneLetter(latitude);
-        char hemisphere = calcHemisphere(latitude);
-        
-        return new UTM(easting, northing, hemisphere, zoneNumber, zoneLetter);
+        return convert(latitude, longitude, DatumContext.forDatum(datum));
         
     }
     
-
-    
     /**
      * 
+     * @param latitude
      * @param longitude
-     * @return int zone number
+     * @param context constants of a datum or of a registered ellipsoid
+     * @return UTM
      * 
-     * Returns the zone number that the longitude corresponds to on the UTM map
+     * Converts double latitude longitude to UTM
      */
-    private static int calcZoneNumber(BigDecimal longitude) {
-        int zoneNumber;
-        BigDecimal six = new BigDecimal(6);
+    public static UTM convert(double latitude, double longitude, 
+            DatumContext context) {
         
-        if (longitude.signum() < 0) {
-            
-            BigDecimal oneEighty = new BigDecimal(180);
-            zoneNumber = ((oneEighty.add(longitude)).divide(six, PRECISION, 
-                    RoundingMode.HALF_UP)).intValue()+ 1;
-        }
-            
-        else {
-            
-            BigDecimal thirtyOne = new BigDecimal(31);
-            zoneNumber = ((longitude.divide(six, PRECISION, RoundingMode.HALF_UP)).abs().add(
-                    thirtyOne)).intValue();
-        }
+        MutableUTM utm = new MutableUTM();
+        
+        convertInto(latitude, longitude, context, utm);
         
-        return zoneNumber;
+        return utm.toUTM();
         
     }
     
     /**
+     * Converts double latitude longitude to UTM, writing the result into a 
+     * caller owned holder. Nothing is allocated, so a holder reused by a 
+     * thread converts any number of points without creating garbage.
      * 
-     * @param zoneNumber
-     * @return BigDecimal central meridian
-     * 
-     * Central meridian is the center of the zone on the UTM map
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param datum
+     * @param utm receives the result
      */
-    private static BigDecimal calcZoneCentralMeridian(int zoneNumber) {
+    public static void convertInto(double latitude, double longitude, 
+            Datum datum, MutableUTM utm) {
+        
+        convertInto(latitude, longitude, DatumContext.forDatum(datum), utm);
         
-        BigDecimal zoneCentralMeridian = new BigDecimal(zoneNumber * 6 - 183);
-        return zoneCentralMeridian;
-    
     }
     
     /**
+     * Converts double latitude longitude to UTM, writing the result into a 
+     * caller owned holder without allocating.
      * 
-     * @param eccentricity
-     * @param latitudeRadians
-     * @return BigDecimal conformal latitude
-     * 
-     * Eccentricity helps define the shape of the ellipsoidal representation of
-     * the earth
-     * 
-     * Conformal latitude gives an angle-preserving (conformal) transformation 
-     * to the sphere. It defines a transformation from the ellipsoid to a sphere 
-     * of arbitrary radius such that the angle of intersection between any two 
-     * lines on the ellipsoid is the same as the corresponding angle on the sphere.
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param context constants of a datum or of a registered ellipsoid
+     * @param utm receives the result
      */
-    private static BigDecimal calcConformalLatitude(BigDecimal eccentricity, BigDecimal latitudeRadians) {
-        
-        BigDecimal conformalLatitude;
-        
-        double latRadDouble = latitudeRadians.doubleValue();
-        double eccDouble = eccentricity.doubleValue();
-        double confLatDouble;
+    public static void convertInto(double latitude, double longitude, 
+            DatumContext context, MutableUTM utm) {
         
-        Atanh atanh = new Atanh();
-        Asinh asinh = new Asinh();
+        TransverseMercatorEngine engine = TransverseMercatorEngine.forContext(context);
         
-        confLatDouble = Math.atan(Math.sinh(asinh.value( Math.tan(latRadDouble)) -
-            eccDouble * atanh.value(eccDouble * Math.sin(latRadDouble))));
+        int zoneNumber = TransverseMercatorEngine.calcZoneNumber(latitude, longitude);
         
-        conformalLatitude = new BigDecimal(confLatDouble);
+        engine.forward(latitude, longitude, zoneNumber, utm.easting, 
+                utm.northing, 0);
         
-        return conformalLatitude;
+        utm.setZone(zoneNumber, TransverseMercatorEngine.calcZoneLetter(latitude),
+                TransverseMercatorEngine.calcHemisphere(latitude));
         
     }
     
-
     /**
      * 
-     * @param changeInLongitudeRadians
-     * @param tauPrime
-     * @return BigDecimal xi prime
-     * 
-     * tau refers to the torsion of a curve
+     * @param latitude
+     * @param longitude
+     * @param datumName
+     * @return UTM
      * 
-     * xi refers to the north-south direction
+     * Converts BigDecimal latitude longitude to UTM. The projection itself is
+     * computed in double precision by the TransverseMercatorEngine.
      */
-    private static BigDecimal calcXiPrimeNorth(BigDecimal changeInLongitudeRadians,
-            BigDecimal tauPrime) {
-        
-        double cosOfLatRad = Math.cos(changeInLongitudeRadians.doubleValue());
+    public static UTM convert(BigDecimal latitude, BigDecimal longitude, String datumName){
         
-        BigDecimal xiPrime = new BigDecimal(Math.atan(tauPrime.doubleValue() / cosOfLatRad));
+        return convert(latitude.doubleValue(), longitude.doubleValue(), datumName);
         
-        return xiPrime;
     }
     
     /**
-     * eta refers to the east-west direction
-     * 
-     * @param changeInLongitudeRadians
-     * @param tauPrime
-     * @return BigDecimal eta prime
      * 
+     * @param latitude
+     * @param longitude
+     * @param datum
+     * @return UTM
      * 
+     * Converts BigDecimal latitude longitude to UTM
      */
-    private static BigDecimal calcEtaPrimeEast(BigDecimal changeInLongitudeRadians, 
-            BigDecimal tauPrime) {
-        
-        BigDecimal etaPrime;
-        
-        double sinOfLatRad = Math.sin(changeInLongitudeRadians.doubleValue());
-        double cosOfLatRad = Math.cos(changeInLongitudeRadians.doubleValue());
-        double cosOfLatRadSquared = Math.pow(cosOfLatRad, 2);
-        
-        BigDecimal tauPrimeSquared = tauPrime.pow(2);
-        
-        double sqrt = Math.sqrt(tauPrimeSquared.doubleValue() + cosOfLatRadSquared);
-        double sinOverSqrt = sinOfLatRad / sqrt;
-        
-        Asinh asinhOfSin = new Asinh();
-        etaPrime = new BigDecimal(asinhOfSin.value(sinOverSqrt));
+    public static UTM convert(BigDecimal latitude, BigDecimal longitude, Datum datum){
         
-        return etaPrime;
+        return convert(latitude.doubleValue(), longitude.doubleValue(), datum);
         
     }
     
-    
     /**
+     * Converts a batch of points held in parallel arrays. The datum name is 
+     * resolved by EllipsoidRegistry.forName once for the whole batch and no 
+     * UTM is created per point.
      * 
-     * @param xiPrimeNorth
-     * @param etaPrimeEast
-     * @param alphaSeries
-     * @return BigDecimal xi
-     * 
-     * alpha series based on Krüger series, which entails mapping the ellipsoid 
-     * to the conformal sphere.
-     * 
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param datumName
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the latitude band letters
      */
-    private static BigDecimal calcXiNorth(BigDecimal xiPrimeNorth,
-            BigDecimal etaPrimeEast, double[] alphaSeries) {
-
-        double multiplicand = 2;
-        double xiNorthDouble = xiPrimeNorth.doubleValue();
-        double xiPrimeNortDouble = xiPrimeNorth.doubleValue();
-        double etaPrimeEastDouble = etaPrimeEast.doubleValue();
-        
-        for (double alpha : alphaSeries) {
-            
-            double sinOfXiPrimeNorth = Math.sin(
-                    xiPrimeNortDouble * multiplicand);
-            
-            double coshOfEtaPrimeEast = Math.cosh(
-                    etaPrimeEastDouble * multiplicand);
-            
-            double augend = (alpha * sinOfXiPrimeNorth) * 
-                    coshOfEtaPrimeEast;
-            
-            xiNorthDouble = xiNorthDouble + augend;
-            
-            multiplicand = multiplicand + 2;
-        }
-        
-        BigDecimal xiNorth = new BigDecimal(xiNorthDouble);
+    public static void convert(double[] latitude, double[] longitude, 
+            String datumName, double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter) {
         
-        return xiNorth;
-       
+        convert(latitude, longitude, datumName, easting, northing, zoneNumber,
+                zoneLetter, 0, latitude.length);
         
     }
     
     /**
+     * Converts a batch of points held in parallel arrays.
      * 
-     * @param xiPrimeNorth
-     * @param etaPrimeEast
-     * @param alphaSeries
-     * @return BigDecimal eta
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param datum
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the latitude band letters
      */
-    private static BigDecimal calcEtaEast(BigDecimal xiPrimeNorth,BigDecimal 
-            etaPrimeEast, double[] alphaSeries) {
-        
+    public static void convert(double[] latitude, double[] longitude, 
+            Datum datum, double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter) {
         
-        double multiplicand = 2;
-        double etaEastDouble = etaPrimeEast.doubleValue();
-        double etaPrimeEastDouble = etaPrimeEast.doubleValue();
-        double xiPrimeNorthDouble = xiPrimeNorth.doubleValue();
-        
-        for(int i=0; i < alphaSeries.length - 2; i++) {
-            
-            double cosOfXiPrimeNorth = Math.cos(
-                    xiPrimeNorthDouble * multiplicand);
-            
-            double sinhOfEtaPrimeEast = Math.sinh(
-                    etaPrimeEastDouble * multiplicand);
-            
-            double augend = (alphaSeries[i] * cosOfXiPrimeNorth)*
-                    sinhOfEtaPrimeEast;
-            
-            etaEastDouble = etaEastDouble + augend;
-            multiplicand = multiplicand + 2;
-            
-        }
-        
-        double cosOfXiPrimeNorth = Math.cos(
-                    xiPrimeNorthDouble * multiplicand);
-            
-        double sinhOfEtaPrimeEast = Math.sinh(
-                    etaPrimeEastDouble * multiplicand);
-            
-        double augend = (alphaSeries[5] * cosOfXiPrimeNorth)*
-                    sinhOfEtaPrimeEast;
-            
-        etaEastDouble = etaEastDouble + augend;
-        
-        BigDecimal etaEast = new BigDecimal(etaEastDouble);
-        
-        return etaEast;
-
+        convert(latitude, longitude, datum, easting, northing, zoneNumber,
+                zoneLetter, 0, latitude.length);
         
     }
     
     /**
+     * Converts a batch of points held in parallel arrays.
      * 
-     * @param latitude
-     * @return char zone letter
-     * 
-     * Latitude corresponds to a zone letter on the UTM map. Match up zone letter
-     * and zone number on UTM map to find the specific zone.
-     * 
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param context constants of a datum or of a registered ellipsoid
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the latitude band letters
      */
-    private static char calcZoneLetter(BigDecimal latitude) {
-        String letters = "CDEFGHJKLMNPQRSTUVWXX";
-        double lat = latitude.doubleValue();
-        
-        if(lat >= -80 && lat <= 84)
-            return letters.charAt(new Double(Math.floor((lat+80.0)/8.0)).intValue());
+    public static void convert(double[] latitude, double[] longitude, 
+            DatumContext context, double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter) {
         
-        else
-            return 'Z';
+        convert(latitude, longitude, context, easting, northing, zoneNumber,
+                zoneLetter, 0, latitude.length);
         
-    } 
-
+    }
+    
     /**
+     * Converts the points from fromIndex (inclusive) to toIndex (exclusive) 
+     * of a batch held in parallel arrays.
      * 
-     * @param meridianRadius
-     * @param etaEast
-     * @param longitude
-     * @param centralMeridian
-     * @return BigDecimal easting
-     * 
-     * The meridian radius is based on the lines that run north-south on a map.
-     * 
-     * UTM easting coordinates are referenced to the center line of the zone 
-     * known as the central meridian. The central meridian is assigned an 
-     * easting value of 500,000 meters East.
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param datumName
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the latitude band letters
+     * @param fromIndex
+     * @param toIndex 
      */
-    private static BigDecimal calcEasting(BigDecimal meridianRadius, BigDecimal
-            etaEast, BigDecimal longitude, BigDecimal centralMeridian) { 
-        
-        BigDecimal easting = (SCALE_FACTOR.multiply(meridianRadius)).multiply(etaEast);
-        BigDecimal eastOfCM = ONE;
-        
-        if (longitude.compareTo(centralMeridian) < 0)
-            eastOfCM = eastOfCM.multiply(new BigDecimal(-1));
-        
-        easting = FALSE_EASTING.add(eastOfCM.multiply(easting));
+    public static void convert(double[] latitude, double[] longitude, 
+            String datumName, double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter, int fromIndex, int toIndex) {
         
+        convert(latitude, longitude, EllipsoidRegistry.forName(datumName), 
+                easting, northing, zoneNumber, zoneLetter, fromIndex, toIndex);
         
-        return easting;
     }
     
     /**
+     * Converts the points from fromIndex (inclusive) to toIndex (exclusive) 
+     * of a batch held in parallel arrays.
      * 
-     * @param meridianRadius
-     * @param xiNorth
-     * @param latitude
-     * @return BigDecimal northing
-     * 
-     * UTM northing coordinates are measured relative to the equator. For 
-     * locations north of the equator the equator is assigned the northing 
-     * value of 0 meters North. To avoid negative numbers, locations south of 
-     * the equator are made with the equator assigned a value of 10,000,000 
-     * meters North.
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param datum
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the latitude band letters
+     * @param fromIndex
+     * @param toIndex 
      */
-    private static BigDecimal calcNorthing(BigDecimal meridianRadius, BigDecimal 
-            xiNorth, BigDecimal latitude) {
+    public static void convert(double[] latitude, double[] longitude, 
+            Datum datum, double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter, int fromIndex, int toIndex) {
         
-        BigDecimal northing = (SCALE_FACTOR.multiply(meridianRadius)).multiply(xiNorth);
-        
-        if(latitude.signum() < 0)
-            northing = SOUTH_HEMISPHERE_SUBTRACTION.subtract(northing);
-        
-
-        return northing;
+        convert(latitude, longitude, DatumContext.forDatum(datum), easting, 
+                northing, zoneNumber, zoneLetter, fromIndex, toIndex);
         
     }
     
     /**
+     * Converts the points from fromIndex (inclusive) to toIndex (exclusive) 
+     * of a batch held in parallel arrays. Runs of consecutive points in the 
+     * same zone are projected together by the engine's range forward, which 
+     * may use the SIMD kernel, so eastings and northings may differ from the 
+     * single point convert by up to 1e-8 meters.
      * 
-     * @param latitude
-     * @return char Hemisphere
-     * 
-     * Returns whether the latitude indicates being in the southern or northern
-     * hemisphere
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param context constants of a datum or of a registered ellipsoid
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the latitude band letters
+     * @param fromIndex
+     * @param toIndex 
      */
-    private static char calcHemisphere(BigDecimal latitude) {
+    public static void convert(double[] latitude, double[] longitude, 
+            DatumContext context, double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter, int fromIndex, int toIndex) {
         
-        char hemisphere = 'N';
+        TransverseMercatorEngine.checkRange(fromIndex, toIndex, latitude.length,
+                longitude.length, easting.length, northing.length, 
+                zoneNumber.length, zoneLetter.length);
+        
+        TransverseMercatorEngine engine = TransverseMercatorEngine.forContext(context);
+        
+        int runStart = fromIndex;
+        
+        for (int i = fromIndex; i < toIndex; i++) {
+            
+            zoneNumber[i] = TransverseMercatorEngine.calcZoneNumber(latitude[i], longitude[i]);
+            zoneLetter[i] = TransverseMercatorEngine.calcZoneLetter(latitude[i]);
+            
+            if (zoneNumber[i] != zoneNumber[runStart]) {
+                engine.forward(latitude, longitude, zoneNumber[runStart], 
+                        easting, northing, runStart, i);
+                runStart = i;
+            }
+            
+        }
         
-        if (latitude.signum() == -1)
-            hemisphere = 'S';
+        if (runStart < toIndex)
+            engine.forward(latitude, longitude, zoneNumber[runStart], easting, 
+                    northing, runStart, toIndex);
         
-        return hemisphere;
     }
     
 }
@@ -0,0 +1,486 @@
+/*
+ * MGRS.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.nio.BufferOverflowException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Military Grid Reference System references of UTM coordinates, written to
+ * and read from caller provided char arrays or CharBuffers without creating
+ * Strings. A reference is the two digit zone number, the band letter, the
+ * two letters of the 100 km square and the easting and northing digits
+ * within the square, for example 18SUJ2348706479 at 1 m precision.
+ *
+ * The 100 km square letters are looked up in tables of the standard (AA)
+ * lettering; the polar UPS regions are not supported. Digits are truncated,
+ * so a decoded reference is the south west corner of its grid square.
+ */
+public final class MGRS {
+
+    private static final String BAND_LETTERS = "CDEFGHJKLMNPQRSTUVWX";
+
+    // column letters of the three zone sets, indexed by zone % 3 and by
+    // easting / 100 km - 1
+    private static final char[][] COLUMN_LETTERS = {
+        "STUVWXYZ".toCharArray(),
+        "ABCDEFGH".toCharArray(),
+        "JKLMNPQR".toCharArray()};
+
+    // row letters of odd and even zones, indexed by zone % 2 and by
+    // (northing / 100 km) % 20
+    private static final char[][] ROW_LETTERS = {
+        "FGHJKLMNPQRSTUVABCDE".toCharArray(),
+        "ABCDEFGHJKLMNPQRSTUV".toCharArray()};
+
+    // easting / 100 km of each column letter in each zone set, -1 where the
+    // letter is not used; and the northing / 100 km (mod 20) of each row
+    // letter in odd and even zones
+    private static final int[][] COLUMN_INDEX = new int[3][26];
+    private static final int[][] ROW_INDEX = new int[2][26];
+
+    // lowest northing of each band, in 100 km, so the 2000 km cycle of the
+    // row letters can be resolved
+    private static final int[] BAND_MIN_NORTHING = {
+        11, 20, 28, 37, 46, 55, 64, 73, 82, 91,
+        0, 8, 17, 26, 35, 44, 53, 62, 70, 79};
+
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000};
+
+    static {
+
+        for (int set = 0; set < 3; set++) {
+
+            Arrays.fill(COLUMN_INDEX[set], -1);
+
+            for (int i = 0; i < 8; i++)
+                COLUMN_INDEX[set][COLUMN_LETTERS[set][i] - 'A'] = i + 1;
+        }
+
+        for (int parity = 0; parity < 2; parity++) {
+
+            Arrays.fill(ROW_INDEX[parity], -1);
+
+            for (int i = 0; i < 20; i++)
+                ROW_INDEX[parity][ROW_LETTERS[parity][i] - 'A'] = i;
+        }
+
+    }
+
+    private MGRS() {
+    }
+
+    /**
+     * @param precision in meters: 1, 10, 100, 1000 or 10000
+     * @return the number of chars of a reference at the precision
+     */
+    public static int length(int precision) {
+        return 5 + 2 * digits(precision);
+    }
+
+    /**
+     * Writes the reference of a UTM coordinate.
+     *
+     * @param easting in meters
+     * @param northing in meters
+     * @param zoneNumber 1 to 60
+     * @param zoneLetter band letter, C to X
+     * @param precision in meters: 1, 10, 100, 1000 or 10000
+     * @param destination receives the reference
+     * @param offset position of the first char written
+     * @return the number of chars written
+     */
+    public static int encode(double easting, double northing, int zoneNumber,
+            char zoneLetter, int precision, char[] destination, int offset) {
+
+        int digits = digits(precision);
+        int length = 5 + 2 * digits;
+
+        if (offset < 0 || destination.length - offset < length)
+            throw new IllegalArgumentException("No room for " + length
+                    + " chars at " + offset);
+
+        write(easting, northing, zoneNumber, zoneLetter, digits, destination,
+                offset);
+
+        return length;
+
+    }
+
+    /**
+     * Writes the reference of a UTM coordinate at the position of the
+     * buffer, advancing it.
+     *
+     * @param easting in meters
+     * @param northing in meters
+     * @param zoneNumber 1 to 60
+     * @param zoneLetter band letter, C to X
+     * @param precision in meters: 1, 10, 100, 1000 or 10000
+     * @param destination receives the reference
+     */
+    public static void encode(double easting, double northing, int zoneNumber,
+            char zoneLetter, int precision, CharBuffer destination) {
+
+        int digits = digits(precision);
+
+        if (destination.remaining() < 5 + 2 * digits)
+            throw new BufferOverflowException();
+
+        if (destination.hasArray()) {
+
+            int position = destination.position();
+            int length = encode(easting, northing, zoneNumber, zoneLetter,
+                    precision, destination.array(),
+                    destination.arrayOffset() + position);
+
+            destination.position(position + length);
+
+        } else {
+
+            int eastingMeters = checkSquare(easting, northing, zoneNumber,
+                    zoneLetter);
+            int northingMeters = (int) Math.floor(northing);
+
+            destination.put((char) ('0' + zoneNumber / 10));
+            destination.put((char) ('0' + zoneNumber % 10));
+            destination.put(zoneLetter);
+            destination.put(COLUMN_LETTERS[zoneNumber % 3][eastingMeters / 100000 - 1]);
+            destination.put(ROW_LETTERS[zoneNumber % 2][northingMeters / 100000 % 20]);
+
+            putDigits(eastingMeters % 100000, digits, destination);
+            putDigits(northingMeters % 100000, digits, destination);
+        }
+
+    }
+
+    /**
+     * Writes the reference of a UTM coordinate.
+     *
+     * @param utm
+     * @param precision in meters: 1, 10, 100, 1000 or 10000
+     * @param destination receives the reference
+     * @param offset position of the first char written
+     * @return the number of chars written
+     */
+    public static int encode(MutableUTM utm, int precision, char[] destination,
+            int offset) {
+        return encode(utm.getEasting(), utm.getNorthing(), utm.getZoneNumber(),
+                utm.getZoneLetter(), precision, destination, offset);
+    }
+
+    /**
+     * Writes the reference of a UTM coordinate.
+     *
+     * @param utm
+     * @param precision in meters: 1, 10, 100, 1000 or 10000
+     * @param destination receives the reference
+     * @param offset position of the first char written
+     * @return the number of chars written
+     */
+    public static int encode(UTM utm, int precision, char[] destination,
+            int offset) {
+        return encode(utm.getEasting().doubleValue(),
+                utm.getNorthing().doubleValue(), utm.getZoneNumber(),
+                utm.getZoneLetter(), precision, destination, offset);
+    }
+
+    /**
+     * Writes the references of the points from fromIndex (inclusive) to
+     * toIndex (exclusive) back to back, each length(precision) chars long,
+     * starting at destination[0].
+     *
+     * @param easting in meters
+     * @param northing in meters
+     * @param zoneNumber
+     * @param zoneLetter
+     * @param precision in meters: 1, 10, 100, 1000 or 10000
+     * @param destination receives the references
+     * @param fromIndex
+     * @param toIndex
+     */
+    public static void encode(double[] easting, double[] northing,
+            int[] zoneNumber, char[] zoneLetter, int precision,
+            char[] destination, int fromIndex, int toIndex) {
+
+        TransverseMercatorEngine.checkRange(fromIndex, toIndex, easting.length,
+                northing.length, zoneNumber.length, zoneLetter.length);
+
+        int digits = digits(precision);
+        int length = 5 + 2 * digits;
+
+        if ((long) (toIndex - fromIndex) * length > destination.length)
+            throw new IllegalArgumentException("No room for "
+                    + (toIndex - fromIndex) + " references");
+
+        for (int i = fromIndex, offset = 0; i < toIndex; i++, offset += length)
+            write(easting[i], northing[i], zoneNumber[i], zoneLetter[i],
+                    digits, destination, offset);
+
+    }
+
+    /**
+     * Reads a reference. Spaces are skipped and the zone number may have one
+     * or two digits.
+     *
+     * @param source
+     * @param offset position of the first char
+     * @param length number of chars
+     * @param utm receives the south west corner of the grid square
+     */
+    public static void decode(char[] source, int offset, int length,
+            MutableUTM utm) {
+
+        if (offset < 0 || length < 0 || source.length - offset < length)
+            throw new IllegalArgumentException("Invalid range " + offset
+                    + " to " + (offset + length));
+
+        decode(null, source, offset, offset + length, utm);
+
+    }
+
+    /**
+     * Reads a reference from a char sequence such as a CharBuffer, whose
+     * chars from position to limit are read. Spaces are skipped and the zone
+     * number may have one or two digits.
+     *
+     * @param source
+     * @param utm receives the south west corner of the grid square
+     */
+    public static void decode(CharSequence source, MutableUTM utm) {
+        decode(source, null, 0, source.length(), utm);
+    }
+
+    /**
+     * Reads the references of the points from fromIndex (inclusive) to
+     * toIndex (exclusive), stored back to back as written by the batch
+     * encode, each length(precision) chars long from source[0].
+     *
+     * @param source
+     * @param precision in meters: 1, 10, 100, 1000 or 10000
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the band letters
+     * @param fromIndex
+     * @param toIndex
+     */
+    public static void decode(char[] source, int precision, double[] easting,
+            double[] northing, int[] zoneNumber, char[] zoneLetter,
+            int fromIndex, int toIndex) {
+
+        TransverseMercatorEngine.checkRange(fromIndex, toIndex, easting.length,
+                northing.length, zoneNumber.length, zoneLetter.length);
+
+        int length = length(precision);
+
+        if ((long) (toIndex - fromIndex) * length > source.length)
+            throw new IllegalArgumentException("Source holds fewer than "
+                    + (toIndex - fromIndex) + " references");
+
+        MutableUTM utm = new MutableUTM();
+
+        for (int i = fromIndex, offset = 0; i < toIndex; i++, offset += length) {
+
+            decode(null, source, offset, offset + length, utm);
+
+            easting[i] = utm.getEasting();
+            northing[i] = utm.getNorthing();
+            zoneNumber[i] = utm.getZoneNumber();
+            zoneLetter[i] = utm.getZoneLetter();
+        }
+
+    }
+
+    private static int digits(int precision) {
+
+        for (int digits = 5; digits >= 1; digits--) {
+
+            if (POWERS_OF_TEN[5 - digits] == precision)
+                return digits;
+        }
+
+        throw new IllegalArgumentException("Invalid precision " + precision);
+
+    }
+
+    /**
+     * Checks that a coordinate lies in a lettered 100 km square.
+     *
+     * @return the easting truncated to whole meters
+     */
+    private static int checkSquare(double easting, double northing,
+            int zoneNumber, char zoneLetter) {
+
+        if (zoneNumber < 1 || zoneNumber > 60)
+            throw new IllegalArgumentException("Invalid zone " + zoneNumber);
+
+        if (BAND_LETTERS.indexOf(zoneLetter) < 0)
+            throw new IllegalArgumentException("Invalid band " + zoneLetter);
+
+        if (!(easting >= 100000 && easting < 900000 && northing >= 0
+                && northing < 10000000))
+            throw new IllegalArgumentException("Invalid easting " + easting
+                    + " or northing " + northing);
+
+        return (int) Math.floor(easting);
+
+    }
+
+    private static void write(double easting, double northing, int zoneNumber,
+            char zoneLetter, int digits, char[] destination, int offset) {
+
+        int eastingMeters = checkSquare(easting, northing, zoneNumber,
+                zoneLetter);
+        int northingMeters = (int) Math.floor(northing);
+
+        destination[offset] = (char) ('0' + zoneNumber / 10);
+        destination[offset + 1] = (char) ('0' + zoneNumber % 10);
+        destination[offset + 2] = zoneLetter;
+        destination[offset + 3]
+                = COLUMN_LETTERS[zoneNumber % 3][eastingMeters / 100000 - 1];
+        destination[offset + 4]
+                = ROW_LETTERS[zoneNumber % 2][northingMeters / 100000 % 20];
+
+        writeDigits(eastingMeters % 100000, digits, destination, offset + 5);
+        writeDigits(northingMeters % 100000, digits, destination,
+                offset + 5 + digits);
+
+    }
+
+    private static void writeDigits(int meters, int digits, char[] destination,
+            int offset) {
+
+        int value = meters / POWERS_OF_TEN[5 - digits];
+
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            destination[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+
+    }
+
+    private static void putDigits(int meters, int digits, CharBuffer destination) {
+
+        for (int power = 4; power > 4 - digits; power--)
+            destination.put((char) ('0' + meters / POWERS_OF_TEN[power] % 10));
+
+    }
+
+    /**
+     * Reads a reference from the chars of either sequence or array from
+     * start (inclusive) to end (exclusive).
+     */
+    private static void decode(CharSequence sequence, char[] array, int start,
+            int end, MutableUTM utm) {
+
+        int zoneNumber = 0;
+        int zoneDigits = 0;
+        char zoneLetter = 0;
+        char columnLetter = 0;
+        char rowLetter = 0;
+        int letters = 0;
+        int digitStart = -1;
+        long digitValue = 0;
+        int digitCount = 0;
+
+        for (int i = start; i < end; i++) {
+
+            char c = array != null ? array[i] : sequence.charAt(i);
+
+            if (c == ' ')
+                continue;
+
+            if (c >= 'a' && c <= 'z')
+                c = (char) (c - 'a' + 'A');
+
+            if (c >= '0' && c <= '9') {
+
+                if (letters == 0) {
+                    zoneNumber = zoneNumber * 10 + c - '0';
+                    zoneDigits++;
+                } else if (letters == 3) {
+                    if (digitStart < 0)
+                        digitStart = i;
+                    digitValue = digitValue * 10 + c - '0';
+                    digitCount++;
+                } else {
+                    throw invalid(sequence, array, start, end);
+                }
+
+            } else if (c >= 'A' && c <= 'Z' && letters < 3 && digitStart < 0) {
+
+                if (letters == 0)
+                    zoneLetter = c;
+                else if (letters == 1)
+                    columnLetter = c;
+                else
+                    rowLetter = c;
+
+                letters++;
+
+            } else {
+                throw invalid(sequence, array, start, end);
+            }
+        }
+
+        int band = BAND_LETTERS.indexOf(zoneLetter);
+
+        if (zoneDigits < 1 || zoneDigits > 2 || zoneNumber < 1
+                || zoneNumber > 60 || letters != 3 || band < 0
+                || digitCount > 10 || digitCount % 2 != 0)
+            throw invalid(sequence, array, start, end);
+
+        int column = COLUMN_INDEX[zoneNumber % 3][columnLetter - 'A'];
+        int row = ROW_INDEX[zoneNumber % 2][rowLetter - 'A'];
+
+        if (column < 0 || row < 0)
+            throw invalid(sequence, array, start, end);
+
+        int digits = digitCount / 2;
+        long scale = digits == 0 ? 0 : POWERS_OF_TEN[5 - digits];
+        long divisor = POWERS_OF_TEN[digits];
+        long eastingInSquare = digits == 0 ? 0 : digitValue / divisor * scale;
+        long northingInSquare = digits == 0 ? 0 : digitValue % divisor * scale;
+
+        // the row letters repeat every 2000 km; take the first repeat at or
+        // above the lowest northing of the band
+        int northing100k = row;
+
+        while (northing100k < BAND_MIN_NORTHING[band])
+            northing100k += 20;
+
+        utm.set(column * 100000.0 + eastingInSquare,
+                northing100k * 100000.0 + northingInSquare, zoneNumber,
+                zoneLetter, TransverseMercatorEngine.hemisphereOfBand(zoneLetter));
+
+    }
+
+    private static IllegalArgumentException invalid(CharSequence sequence,
+            char[] array, int start, int end) {
+
+        String reference = array != null
+                ? new String(array, start, end - start)
+                : sequence.subSequence(start, end).toString();
+
+        return new IllegalArgumentException("Invalid MGRS reference "
+                + reference);
+
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * MutableLatLong.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+/**
+ * Reusable holder of a latitude and longitude in degrees, filled by
+ * UTMToLatLong.convertInto. Reusing one holder per thread converts
+ * coordinates without allocating.
+ */
+public final class MutableLatLong {
+
+    // one element arrays, so the engine writes its results here directly
+    final double[] latitude = new double[1];
+    final double[] longitude = new double[1];
+
+    public MutableLatLong() {
+    }
+
+    /**
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @return this holder
+     */
+    public MutableLatLong set(double latitude, double longitude) {
+
+        this.latitude[0] = latitude;
+        this.longitude[0] = longitude;
+
+        return this;
+
+    }
+
+    public double getLatitude() {
+        return latitude[0];
+    }
+
+    public double getLongitude() {
+        return longitude[0];
+    }
+
+    /**
+     * @return the coordinate as an immutable LatLong
+     */
+    public LatLong toLatLong() {
+        return new LatLong(latitude[0], longitude[0]);
+    }
+
+    @Override
+    public String toString() {
+        return latitude[0] + " " + longitude[0];
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * MutableUTM.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Reusable holder of a UTM coordinate as primitives, filled by
+ * LatLongToUTM.convertInto. Reusing one holder per thread converts points
+ * without allocating.
+ */
+public final class MutableUTM {
+
+    private static final int PRECISION = 10;
+
+    // one element arrays, so the engine writes its results here directly
+    final double[] easting = new double[1];
+    final double[] northing = new double[1];
+
+    private int zoneNumber;
+    private char zoneLetter;
+    private char hemisphere;
+
+    public MutableUTM() {
+    }
+
+    /**
+     * @param easting in meters
+     * @param northing in meters
+     * @param zoneNumber
+     * @param zoneLetter latitude band letter
+     * @param hemisphere 'N' or 'S'
+     */
+    public MutableUTM(double easting, double northing, int zoneNumber,
+            char zoneLetter, char hemisphere) {
+        set(easting, northing, zoneNumber, zoneLetter, hemisphere);
+    }
+
+    /**
+     * @param easting in meters
+     * @param northing in meters
+     * @param zoneNumber
+     * @param zoneLetter latitude band letter
+     * @param hemisphere 'N' or 'S'
+     * @return this holder
+     */
+    public MutableUTM set(double easting, double northing, int zoneNumber,
+            char zoneLetter, char hemisphere) {
+
+        this.easting[0] = easting;
+        this.northing[0] = northing;
+        this.zoneNumber = zoneNumber;
+        this.zoneLetter = zoneLetter;
+        this.hemisphere = hemisphere;
+
+        return this;
+
+    }
+
+    void setZone(int zoneNumber, char zoneLetter, char hemisphere) {
+        this.zoneNumber = zoneNumber;
+        this.zoneLetter = zoneLetter;
+        this.hemisphere = hemisphere;
+    }
+
+    public double getEasting() {
+        return easting[0];
+    }
+
+    public double getNorthing() {
+        return northing[0];
+    }
+
+    public int getZoneNumber() {
+        return zoneNumber;
+    }
+
+    public char getZoneLetter() {
+        return zoneLetter;
+    }
+
+    public char getHemisphere() {
+        return hemisphere;
+    }
+
+    /**
+     * @return the coordinate as a UTM, rounded to the same scale as
+     * LatLongToUTM.convert
+     */
+    public UTM toUTM() {
+        return new UTM(
+                new BigDecimal(easting[0]).setScale(PRECISION, RoundingMode.HALF_UP),
+                new BigDecimal(northing[0]).setScale(PRECISION, RoundingMode.HALF_UP),
+                hemisphere, zoneNumber, zoneLetter);
+    }
+
+    @Override
+    public String toString() {
+        return zoneNumber + "" + zoneLetter + " " + easting[0] + " "
+                + northing[0];
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * PackedUTM.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Compact UTM coordinate: zone number, band letter and hemisphere packed in
+ * one int, easting and northing as whole millimeters. The static pack and
+ * toMillimeters methods give the same encoding for callers that keep large
+ * numbers of points in primitive arrays instead of objects.
+ *
+ * Packed coordinates sort by zone, band, hemisphere, easting and then
+ * northing.
+ */
+public final class PackedUTM implements Comparable<PackedUTM> {
+
+    private static final int ZONE_SHIFT = 16;
+    private static final int LETTER_SHIFT = 8;
+    private static final int SOUTH = 1;
+
+    private final int zone;
+    private final long easting;
+    private final long northing;
+
+    /**
+     * @param easting in meters, rounded to the nearest millimeter
+     * @param northing in meters, rounded to the nearest millimeter
+     * @param zoneNumber 0 to 255
+     * @param zoneLetter latitude band letter
+     * @param hemisphere 'N' or 'S'
+     */
+    public PackedUTM(double easting, double northing, int zoneNumber,
+            char zoneLetter, char hemisphere) {
+        this(pack(zoneNumber, zoneLetter, hemisphere), toMillimeters(easting),
+                toMillimeters(northing));
+    }
+
+    /**
+     * @param zone as returned by pack
+     * @param eastingMillimeters
+     * @param northingMillimeters
+     */
+    public PackedUTM(int zone, long eastingMillimeters, long northingMillimeters) {
+        this.zone = zone;
+        this.easting = eastingMillimeters;
+        this.northing = northingMillimeters;
+    }
+
+    /**
+     * @param utm
+     * @return the coordinate rounded to the nearest millimeter
+     */
+    public static PackedUTM encode(UTM utm) {
+        return new PackedUTM(pack(utm.getZoneNumber(), utm.getZoneLetter(),
+                utm.getHemisphere()), toMillimeters(utm.getEasting()),
+                toMillimeters(utm.getNorthing()));
+    }
+
+    /**
+     * @param utm
+     * @return the coordinate rounded to the nearest millimeter
+     */
+    public static PackedUTM encode(MutableUTM utm) {
+        return new PackedUTM(utm.getEasting(), utm.getNorthing(),
+                utm.getZoneNumber(), utm.getZoneLetter(), utm.getHemisphere());
+    }
+
+    /**
+     * @return the coordinate as a UTM with millimeter scale
+     */
+    public UTM decode() {
+        return new UTM(BigDecimal.valueOf(easting, 3),
+                BigDecimal.valueOf(northing, 3), getHemisphere(),
+                getZoneNumber(), getZoneLetter());
+    }
+
+    /**
+     * Packs zone number, band letter and hemisphere in one int.
+     *
+     * @param zoneNumber 0 to 255
+     * @param zoneLetter latitude band letter
+     * @param hemisphere 'N' or 'S'
+     * @return the packed zone
+     */
+    public static int pack(int zoneNumber, char zoneLetter, char hemisphere) {
+
+        if (zoneNumber < 0 || zoneNumber > 0xFF)
+            throw new IllegalArgumentException("Invalid zone " + zoneNumber);
+
+        if (zoneLetter > 0xFF)
+            throw new IllegalArgumentException("Invalid band " + zoneLetter);
+
+        if (hemisphere != 'N' && hemisphere != 'S')
+            throw new IllegalArgumentException("Invalid hemisphere " + hemisphere);
+
+        return zoneNumber << ZONE_SHIFT | zoneLetter << LETTER_SHIFT
+                | (hemisphere == 'S' ? SOUTH : 0);
+
+    }
+
+    /**
+     * @param meters
+     * @return the nearest whole number of millimeters, halves rounded away
+     * from zero
+     */
+    public static long toMillimeters(double meters) {
+
+        double millimeters = meters * 1000;
+
+        return (long) (millimeters < 0 ? millimeters - 0.5 : millimeters + 0.5);
+
+    }
+
+    private static long toMillimeters(BigDecimal meters) {
+        return meters.movePointRight(3).setScale(0, RoundingMode.HALF_UP)
+                .longValue();
+    }
+
+    /**
+     * @return zone number, band letter and hemisphere as returned by pack
+     */
+    public int getPackedZone() {
+        return zone;
+    }
+
+    public int getZoneNumber() {
+        return zone >>> ZONE_SHIFT;
+    }
+
+    public char getZoneLetter() {
+        return (char) (zone >>> LETTER_SHIFT & 0xFF);
+    }
+
+    public char getHemisphere() {
+        return (zone & SOUTH) != 0 ? 'S' : 'N';
+    }
+
+    public long getEastingMillimeters() {
+        return easting;
+    }
+
+    public long getNorthingMillimeters() {
+        return northing;
+    }
+
+    /**
+     * @return the easting in meters
+     */
+    public double getEasting() {
+        return easting / 1000.0;
+    }
+
+    /**
+     * @return the northing in meters
+     */
+    public double getNorthing() {
+        return northing / 1000.0;
+    }
+
+    @Override
+    public int compareTo(PackedUTM other) {
+
+        if (zone != other.zone)
+            return Integer.compare(zone, other.zone);
+
+        if (easting != other.easting)
+            return Long.compare(easting, other.easting);
+
+        return Long.compare(northing, other.northing);
+
+    }
+
+    @Override
+    public boolean equals(Object object) {
+
+        if (!(object instanceof PackedUTM))
+            return false;
+
+        PackedUTM other = (PackedUTM) object;
+
+        return zone == other.zone && easting == other.easting
+                && northing == other.northing;
+
+    }
+
+    @Override
+    public int hashCode() {
+
+        int hash = zone;
+        hash = 31 * hash + (int) (easting ^ easting >>> 32);
+        hash = 31 * hash + (int) (northing ^ northing >>> 32);
+
+        return hash;
+
+    }
+
+    @Override
+    public String toString() {
+        return getZoneNumber() + "" + getZoneLetter() + " "
+                + BigDecimal.valueOf(easting, 3) + " "
+                + BigDecimal.valueOf(northing, 3);
+    }
+
+}
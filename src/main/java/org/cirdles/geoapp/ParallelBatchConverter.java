@@ -0,0 +1,301 @@
+/*
+ * ParallelBatchConverter.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the batch conversions of LatLongToUTM and UTMToLatLong on a
+ * ForkJoinPool. The arrays are split in halves until a range holds at most
+ * the split threshold of points, and every range writes its results in place
+ * into its own slice of the result arrays.
+ */
+public class ParallelBatchConverter {
+
+    /**
+     * Default number of points converted by one task. A forward chunk of 4096
+     * points touches about 150 KB of input and result arrays, which fits in
+     * the L2 cache of current servers.
+     */
+    public static final int DEFAULT_THRESHOLD = 4096;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ParallelBatchConverter(ForkJoinPool pool) {
+        this(pool, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param pool runs the conversion tasks
+     * @param threshold largest number of points converted by one task
+     */
+    public ParallelBatchConverter(ForkJoinPool pool, int threshold) {
+
+        if (threshold < 1)
+            throw new IllegalArgumentException("Threshold must be positive: "
+                    + threshold);
+
+        this.pool = pool;
+        this.threshold = threshold;
+
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Parallel version of LatLongToUTM.convert for batches.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param datumName
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the latitude band letters
+     */
+    public void toUTM(double[] latitude, double[] longitude, String datumName,
+            double[] easting, double[] northing, int[] zoneNumber,
+            char[] zoneLetter) {
+
+        toUTM(latitude, longitude, EllipsoidRegistry.forName(datumName),
+                easting, northing, zoneNumber, zoneLetter);
+
+    }
+
+    /**
+     * Parallel version of LatLongToUTM.convert for batches.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param datum
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the latitude band letters
+     */
+    public void toUTM(double[] latitude, double[] longitude, Datum datum,
+            double[] easting, double[] northing, int[] zoneNumber,
+            char[] zoneLetter) {
+
+        toUTM(latitude, longitude, DatumContext.forDatum(datum), easting,
+                northing, zoneNumber, zoneLetter);
+
+    }
+
+    /**
+     * Parallel version of LatLongToUTM.convert for batches.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param context constants of a datum or of a registered ellipsoid
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the latitude band letters
+     */
+    public void toUTM(double[] latitude, double[] longitude,
+            DatumContext context, double[] easting, double[] northing,
+            int[] zoneNumber, char[] zoneLetter) {
+
+        TransverseMercatorEngine.checkRange(0, latitude.length, longitude.length,
+                easting.length, northing.length, zoneNumber.length,
+                zoneLetter.length);
+
+        pool.invoke(new ToUTMTask(latitude, longitude, context, easting,
+                northing, zoneNumber, zoneLetter, 0, latitude.length));
+
+    }
+
+    /**
+     * Parallel version of UTMToLatLong.convert for batches.
+     *
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param zoneLetter latitude band letters C to X, used to find the
+     * hemisphere; any other letter throws IllegalArgumentException
+     * @param datumName
+     * @param latitude receives the latitudes in degrees
+     * @param longitude receives the longitudes in degrees
+     */
+    public void toLatLong(double[] easting, double[] northing, int[] zoneNumber,
+            char[] zoneLetter, String datumName, double[] latitude,
+            double[] longitude) {
+
+        toLatLong(easting, northing, zoneNumber, zoneLetter,
+                EllipsoidRegistry.forName(datumName), latitude, longitude);
+
+    }
+
+    /**
+     * Parallel version of UTMToLatLong.convert for batches.
+     *
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param zoneLetter latitude band letters C to X, used to find the
+     * hemisphere; any other letter throws IllegalArgumentException
+     * @param datum
+     * @param latitude receives the latitudes in degrees
+     * @param longitude receives the longitudes in degrees
+     */
+    public void toLatLong(double[] easting, double[] northing, int[] zoneNumber,
+            char[] zoneLetter, Datum datum, double[] latitude,
+            double[] longitude) {
+
+        toLatLong(easting, northing, zoneNumber, zoneLetter,
+                DatumContext.forDatum(datum), latitude, longitude);
+
+    }
+
+    /**
+     * Parallel version of UTMToLatLong.convert for batches.
+     *
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param zoneLetter latitude band letters C to X, used to find the
+     * hemisphere; any other letter throws IllegalArgumentException
+     * @param context constants of a datum or of a registered ellipsoid
+     * @param latitude receives the latitudes in degrees
+     * @param longitude receives the longitudes in degrees
+     */
+    public void toLatLong(double[] easting, double[] northing, int[] zoneNumber,
+            char[] zoneLetter, DatumContext context, double[] latitude,
+            double[] longitude) {
+
+        TransverseMercatorEngine.checkRange(0, easting.length, northing.length,
+                zoneNumber.length, zoneLetter.length, latitude.length,
+                longitude.length);
+
+        pool.invoke(new ToLatLongTask(easting, northing, zoneNumber, zoneLetter,
+                context, latitude, longitude, 0, easting.length));
+
+    }
+
+    private final class ToUTMTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] latitude;
+        private final double[] longitude;
+        private final DatumContext context;
+        private final double[] easting;
+        private final double[] northing;
+        private final int[] zoneNumber;
+        private final char[] zoneLetter;
+        private final int fromIndex;
+        private final int toIndex;
+
+        ToUTMTask(double[] latitude, double[] longitude, DatumContext context,
+                double[] easting, double[] northing, int[] zoneNumber,
+                char[] zoneLetter, int fromIndex, int toIndex) {
+
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.context = context;
+            this.easting = easting;
+            this.northing = northing;
+            this.zoneNumber = zoneNumber;
+            this.zoneLetter = zoneLetter;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+
+        }
+
+        @Override
+        protected void compute() {
+
+            if (toIndex - fromIndex <= threshold) {
+
+                LatLongToUTM.convert(latitude, longitude, context, easting,
+                        northing, zoneNumber, zoneLetter, fromIndex, toIndex);
+                return;
+            }
+
+            int middle = (fromIndex + toIndex) >>> 1;
+
+            invokeAll(new ToUTMTask(latitude, longitude, context, easting,
+                    northing, zoneNumber, zoneLetter, fromIndex, middle),
+                    new ToUTMTask(latitude, longitude, context, easting,
+                    northing, zoneNumber, zoneLetter, middle, toIndex));
+
+        }
+    }
+
+    private final class ToLatLongTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] easting;
+        private final double[] northing;
+        private final int[] zoneNumber;
+        private final char[] zoneLetter;
+        private final DatumContext context;
+        private final double[] latitude;
+        private final double[] longitude;
+        private final int fromIndex;
+        private final int toIndex;
+
+        ToLatLongTask(double[] easting, double[] northing, int[] zoneNumber,
+                char[] zoneLetter, DatumContext context, double[] latitude,
+                double[] longitude, int fromIndex, int toIndex) {
+
+            this.easting = easting;
+            this.northing = northing;
+            this.zoneNumber = zoneNumber;
+            this.zoneLetter = zoneLetter;
+            this.context = context;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+
+        }
+
+        @Override
+        protected void compute() {
+
+            if (toIndex - fromIndex <= threshold) {
+
+                UTMToLatLong.convert(easting, northing, zoneNumber, zoneLetter,
+                        context, latitude, longitude, fromIndex, toIndex);
+                return;
+            }
+
+            int middle = (fromIndex + toIndex) >>> 1;
+
+            invokeAll(new ToLatLongTask(easting, northing, zoneNumber,
+                    zoneLetter, context, latitude, longitude, fromIndex,
+                    middle),
+                    new ToLatLongTask(easting, northing, zoneNumber,
+                    zoneLetter, context, latitude, longitude, middle,
+                    toIndex));
+
+        }
+    }
+
+}
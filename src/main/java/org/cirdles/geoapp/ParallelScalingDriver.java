@@ -0,0 +1,106 @@
+/*
+ * ParallelScalingDriver.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Reports the throughput of ParallelBatchConverter for 1 to N worker threads.
+ *
+ * Usage: ParallelScalingDriver [points] [threshold] [datum]
+ */
+public class ParallelScalingDriver {
+
+    private static final int REPETITIONS = 5;
+
+    public static void main(String[] args) {
+
+        int points = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int threshold = args.length > 1 ? Integer.parseInt(args[1])
+                : ParallelBatchConverter.DEFAULT_THRESHOLD;
+        String datumName = args.length > 2 ? args[2] : "WGS84";
+
+        Random random = new Random(42);
+        double[] latitude = new double[points];
+        double[] longitude = new double[points];
+
+        for (int i = 0; i < points; i++) {
+            latitude[i] = random.nextDouble() * 164.0 - 80.0;
+            longitude[i] = random.nextDouble() * 360.0 - 180.0;
+        }
+
+        double[] easting = new double[points];
+        double[] northing = new double[points];
+        int[] zoneNumber = new int[points];
+        char[] zoneLetter = new char[points];
+        double[] inverseLatitude = new double[points];
+        double[] inverseLongitude = new double[points];
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double forwardBaseline = 0;
+        double inverseBaseline = 0;
+
+        System.out.println("Points: " + points + ", threshold: " + threshold
+                + ", datum: " + datumName);
+        System.out.println("threads\tforward pts/s\tspeedup\tinverse pts/s\tspeedup");
+
+        for (int parallelism = 1; parallelism <= cores; parallelism++) {
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            ParallelBatchConverter converter = new ParallelBatchConverter(pool,
+                    threshold);
+
+            long forwardNanos = Long.MAX_VALUE;
+            long inverseNanos = Long.MAX_VALUE;
+
+            // the first repetition warms up the pool and the JIT
+            for (int repetition = 0; repetition <= REPETITIONS; repetition++) {
+
+                long start = System.nanoTime();
+                converter.toUTM(latitude, longitude, datumName, easting,
+                        northing, zoneNumber, zoneLetter);
+                long middle = System.nanoTime();
+                converter.toLatLong(easting, northing, zoneNumber, zoneLetter,
+                        datumName, inverseLatitude, inverseLongitude);
+                long end = System.nanoTime();
+
+                if (repetition > 0) {
+                    forwardNanos = Math.min(forwardNanos, middle - start);
+                    inverseNanos = Math.min(inverseNanos, end - middle);
+                }
+            }
+
+            pool.shutdown();
+
+            double forwardRate = points * 1e9 / forwardNanos;
+            double inverseRate = points * 1e9 / inverseNanos;
+
+            if (parallelism == 1) {
+                forwardBaseline = forwardRate;
+                inverseBaseline = inverseRate;
+            }
+
+            System.out.println(String.format("%d\t%.0f\t%.2f\t%.0f\t%.2f",
+                    parallelism, forwardRate, forwardRate / forwardBaseline,
+                    inverseRate, inverseRate / inverseBaseline));
+        }
+
+    }
+
+}
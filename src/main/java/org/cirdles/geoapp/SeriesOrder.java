@@ -0,0 +1,60 @@
+/*
+ * SeriesOrder.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+/**
+ * Accuracy tiers of the projection: how many terms of the Krüger alpha and
+ * beta series the forward and inverse projections sum. The errors quoted are
+ * the largest differences from the full series found within 4 degrees of
+ * the central meridian, from 80S to 84N, for every built in datum and for
+ * registered ellipsoids, all of whose series are derived from the third
+ * flattening. They are the error of the truncation only: the constants of
+ * a datum, such as its tabulated meridian radius, are not more exact.
+ */
+public enum SeriesOrder {
+
+    /**
+     * Four terms; within 0.1 micrometer forward and 0.01 micrometer inverse.
+     */
+    ORDER_4(4),
+
+    /**
+     * Six terms; within a few nanometers, the rounding error of a northing
+     * in double.
+     */
+    ORDER_6(6),
+
+    /**
+     * Every term the datum provides.
+     */
+    FULL(Integer.MAX_VALUE);
+
+    private final int terms;
+
+    private SeriesOrder(int terms) {
+        this.terms = terms;
+    }
+
+    /**
+     * @return the number of series terms summed, Integer.MAX_VALUE for all
+     */
+    public int getTerms() {
+        return terms;
+    }
+
+}
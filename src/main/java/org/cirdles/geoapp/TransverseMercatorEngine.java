@@ -0,0 +1,632 @@
+/*
+ * TransverseMercatorEngine.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+
+
+The formulas are based on Charles Karney's formulas for UTM conversion:
+"Transverse Mercator with an accuracy of a few nanometers"
+Charles F. F. Karney
+SRI International, 201 Washington Rd, Princeton, NJ 08543-5300
+
+ */
+package org.cirdles.geoapp;
+
+import java.util.Arrays;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Primitive double implementation of the Karney transverse Mercator
+ * projection. An engine reads the constants of one datum from its
+ * DatumContext, so converting a point does not allocate.
+ */
+public final class TransverseMercatorEngine {
+
+    private static final double FALSE_EASTING = 500000.0;
+    private static final double SOUTH_HEMISPHERE_SUBTRACTION = 10000000.0;
+    private static final double DEGREES_TO_RADIANS = Math.PI / 180.0;
+    private static final double RADIANS_TO_DEGREES = 180.0 / Math.PI;
+
+    /**
+     * Default tolerance on the Newton step in tau, relative to max(1, |tau|).
+     * It is the one used by Karney, for which the solver usually converges
+     * in two iterations.
+     */
+    public static final double DEFAULT_TOLERANCE = Math.sqrt(Math.ulp(1.0)) / 10;
+
+    /**
+     * Default cap on the number of Newton iterations.
+     */
+    public static final int DEFAULT_MAX_ITERATIONS = 10;
+    private static final String ZONE_LETTERS = "CDEFGHJKLMNPQRSTUVWXX";
+
+    // band letter of each whole degree of latitude from 80S to 84N
+    private static final char[] BAND_BY_DEGREE = new char[165];
+
+    // zone of each whole degree of longitude from 180W to 180E, in rows for
+    // the regular grid, band V and band X; 180E is the east edge of zone 60
+    private static final int LONGITUDES = 361;
+    private static final byte[] ZONE_BY_DEGREE = new byte[3 * LONGITUDES];
+
+    static {
+
+        for (int degree = 0; degree < BAND_BY_DEGREE.length; degree++)
+            BAND_BY_DEGREE[degree] = ZONE_LETTERS.charAt(degree / 8);
+
+        for (int degree = 0; degree < LONGITUDES; degree++) {
+
+            int longitude = degree - 180;
+            byte zone = (byte) Math.min(degree / 6 + 1, 60);
+
+            ZONE_BY_DEGREE[degree] = zone;
+
+            // 32V is widened west to 3E over southwest Norway
+            ZONE_BY_DEGREE[LONGITUDES + degree] =
+                    longitude >= 3 && longitude < 12 ? 32 : zone;
+
+            // around Svalbard, 31X, 33X, 35X and 37X replace zones 31 to 37
+            byte svalbard = zone;
+
+            if (longitude >= 0 && longitude < 9)
+                svalbard = 31;
+            else if (longitude >= 9 && longitude < 21)
+                svalbard = 33;
+            else if (longitude >= 21 && longitude < 33)
+                svalbard = 35;
+            else if (longitude >= 33 && longitude < 42)
+                svalbard = 37;
+
+            ZONE_BY_DEGREE[2 * LONGITUDES + degree] = svalbard;
+        }
+
+    }
+
+    private final DatumContext context;
+    private final double eccentricity;
+    private final double scaledMeridianRadius;
+    private final double[] alphaSeries;
+    private final double[] betaSeries;
+    private final double tolerance;
+    private final int maxIterations;
+    private final SeriesOrder seriesOrder;
+
+    // null unless the conformal latitude is interpolated
+    private final ConformalLatitudeTable conformalLatitudeTable;
+
+    // null when ranges are projected one point at a time
+    private final BatchKernel batchKernel;
+
+    /**
+     * @param context constants of the datum to project with
+     */
+    public TransverseMercatorEngine(DatumContext context) {
+        this(context, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    /**
+     * @param context constants of the datum to project with
+     * @param tolerance of the Newton solver used by the inverse, relative to
+     * max(1, |tau|)
+     * @param maxIterations cap on the Newton iterations of the inverse
+     */
+    public TransverseMercatorEngine(DatumContext context, double tolerance,
+            int maxIterations) {
+        this(context, tolerance, maxIterations, SeriesOrder.FULL, null);
+    }
+
+    private TransverseMercatorEngine(DatumContext context, double tolerance,
+            int maxIterations, SeriesOrder seriesOrder,
+            ConformalLatitudeTable conformalLatitudeTable) {
+
+        if (!(tolerance > 0))
+            throw new IllegalArgumentException("Tolerance must be positive: "
+                    + tolerance);
+
+        if (maxIterations < 1)
+            throw new IllegalArgumentException(
+                    "At least one iteration is needed: " + maxIterations);
+
+        this.context = context;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.eccentricity = context.getEccentricity();
+        this.scaledMeridianRadius = context.getScaledMeridianRadius();
+        this.seriesOrder = seriesOrder;
+        this.alphaSeries = truncate(context.alphaSeries(), seriesOrder);
+        this.betaSeries = truncate(context.betaSeries(), seriesOrder);
+        this.conformalLatitudeTable = conformalLatitudeTable;
+        this.batchKernel = conformalLatitudeTable == null
+                ? BatchKernels.forward(this) : null;
+
+    }
+
+    /**
+     * @param datum
+     * @return the engine of the datum, built on first use
+     */
+    public static TransverseMercatorEngine forDatum(Datum datum) {
+        return DatumContext.forDatum(datum).engine();
+    }
+
+    /**
+     * @param context
+     * @return the engine of the context, built on first use
+     */
+    public static TransverseMercatorEngine forContext(DatumContext context) {
+        return context.engine();
+    }
+
+    /**
+     * @param tolerance of the Newton solver, relative to max(1, |tau|)
+     * @param maxIterations cap on the Newton iterations
+     * @return an engine for the same datum whose inverse uses the given
+     * tolerance and cap
+     */
+    public TransverseMercatorEngine withNewtonTolerance(double tolerance,
+            int maxIterations) {
+        return new TransverseMercatorEngine(context, tolerance, maxIterations,
+                seriesOrder, conformalLatitudeTable);
+    }
+
+    /**
+     * @param seriesOrder accuracy tier
+     * @return an engine for the same datum whose forward and inverse
+     * projections sum only the series terms of the tier
+     */
+    public TransverseMercatorEngine withSeriesOrder(SeriesOrder seriesOrder) {
+
+        if (seriesOrder == null)
+            throw new IllegalArgumentException("Series order is required");
+
+        return new TransverseMercatorEngine(context, tolerance, maxIterations,
+                seriesOrder, conformalLatitudeTable);
+
+    }
+
+    /**
+     * Fast mode for throughput over accuracy: the forward projection
+     * interpolates the conformal latitude in a table of the datum instead of
+     * evaluating it exactly. Projected coordinates stay within a micrometer
+     * of the exact ones; the inverse is unchanged.
+     *
+     * @return an engine for the same datum whose forward projection uses the
+     * conformal latitude table
+     */
+    public TransverseMercatorEngine withFastConformalLatitude() {
+        return new TransverseMercatorEngine(context, tolerance, maxIterations,
+                seriesOrder, context.conformalLatitudeTable());
+    }
+
+    /**
+     * @return true if the forward projection interpolates the conformal
+     * latitude
+     */
+    public boolean isFastConformalLatitude() {
+        return conformalLatitudeTable != null;
+    }
+
+    public DatumContext getContext() {
+        return context;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public SeriesOrder getSeriesOrder() {
+        return seriesOrder;
+    }
+
+    /**
+     * @return true if ranges of points are projected by the SIMD kernel of
+     * the multi-release jar
+     */
+    public boolean isVectorized() {
+        return batchKernel != null;
+    }
+
+    double getEccentricity() {
+        return eccentricity;
+    }
+
+    double getScaledMeridianRadius() {
+        return scaledMeridianRadius;
+    }
+
+    /**
+     * @return the alpha series summed by this engine, not a copy
+     */
+    double[] alphaSeries() {
+        return alphaSeries;
+    }
+
+    private static double[] truncate(double[] series, SeriesOrder seriesOrder) {
+
+        if (series.length <= seriesOrder.getTerms())
+            return series;
+
+        return Arrays.copyOf(series, seriesOrder.getTerms());
+
+    }
+
+    /**
+     * Projects one point and stores the result at {@code index} of the
+     * easting and northing arrays.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param zoneNumber the UTM zone whose central meridian is used
+     * @param easting receives the easting in meters
+     * @param northing receives the northing in meters
+     * @param index position to write in the result arrays
+     */
+    public void forward(double latitude, double longitude, int zoneNumber,
+            double[] easting, double[] northing, int index) {
+
+        forward(latitude, longitude, (double) (zoneNumber * 6 - 183), easting,
+                northing, index);
+
+    }
+
+    /**
+     * Projects the points from fromIndex (inclusive) to toIndex (exclusive),
+     * which must all be projected in the same zone. The central meridian is
+     * computed once for the whole range, and the range is handed to the SIMD
+     * kernel when there is one.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param zoneNumber the UTM zone whose central meridian is used
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param fromIndex
+     * @param toIndex
+     */
+    public void forward(double[] latitude, double[] longitude, int zoneNumber,
+            double[] easting, double[] northing, int fromIndex, int toIndex) {
+
+        double centralMeridian = zoneNumber * 6 - 183;
+
+        if (batchKernel != null) {
+            batchKernel.forward(latitude, longitude, centralMeridian, easting,
+                    northing, fromIndex, toIndex);
+            return;
+        }
+
+        for (int i = fromIndex; i < toIndex; i++)
+            forward(latitude[i], longitude[i], centralMeridian, easting,
+                    northing, i);
+
+    }
+
+    void forward(double latitude, double longitude, double centralMeridian,
+            double[] easting, double[] northing, int index) {
+
+        double latitudeRadians = Math.abs(latitude) * DEGREES_TO_RADIANS;
+        double changeInLongitudeRadians = Math.abs(longitude - centralMeridian)
+                * DEGREES_TO_RADIANS;
+
+        // tau prime is the tangent of the conformal latitude
+        double tauPrime = conformalLatitudeTable != null
+                ? conformalLatitudeTable.tauPrime(latitudeRadians)
+                : Math.sinh(FastMath.asinh(Math.tan(latitudeRadians))
+                - eccentricity * FastMath.atanh(eccentricity
+                * Math.sin(latitudeRadians)));
+
+        double cosOfLongitude = Math.cos(changeInLongitudeRadians);
+        double sinOfLongitude = Math.sin(changeInLongitudeRadians);
+
+        double xiPrime = Math.atan(tauPrime / cosOfLongitude);
+        double etaPrime = FastMath.asinh(sinOfLongitude
+                / Math.sqrt(tauPrime * tauPrime + cosOfLongitude * cosOfLongitude));
+
+        // Complex Clenshaw summation of the alpha series over zeta prime =
+        // xi prime + i eta prime, see Karney section 5
+        double sinOfXi = Math.sin(2 * xiPrime);
+        double cosOfXi = Math.cos(2 * xiPrime);
+        double sinhOfEta = Math.sinh(2 * etaPrime);
+        double coshOfEta = Math.cosh(2 * etaPrime);
+
+        // 2 cos(2 zeta prime)
+        double realFactor = 2 * cosOfXi * coshOfEta;
+        double imaginaryFactor = -2 * sinOfXi * sinhOfEta;
+
+        double real = 0;
+        double imaginary = 0;
+        double previousReal = 0;
+        double previousImaginary = 0;
+
+        for (int j = alphaSeries.length - 1; j >= 0; j--) {
+
+            double nextReal = alphaSeries[j] + realFactor * real
+                    - imaginaryFactor * imaginary - previousReal;
+            double nextImaginary = realFactor * imaginary
+                    + imaginaryFactor * real - previousImaginary;
+
+            previousReal = real;
+            previousImaginary = imaginary;
+            real = nextReal;
+            imaginary = nextImaginary;
+        }
+
+        // the sum is sin(2 zeta prime) times the last term of the recurrence
+        double sinOfZetaReal = sinOfXi * coshOfEta;
+        double sinOfZetaImaginary = cosOfXi * sinhOfEta;
+
+        double xi = xiPrime + sinOfZetaReal * real
+                - sinOfZetaImaginary * imaginary;
+        double eta = etaPrime + sinOfZetaReal * imaginary
+                + sinOfZetaImaginary * real;
+
+        double eastOfCentralMeridian = scaledMeridianRadius * eta;
+
+        if (longitude < centralMeridian)
+            eastOfCentralMeridian = -eastOfCentralMeridian;
+
+        double northOfEquator = scaledMeridianRadius * xi;
+
+        if (latitude < 0)
+            northOfEquator = SOUTH_HEMISPHERE_SUBTRACTION - northOfEquator;
+
+        easting[index] = FALSE_EASTING + eastOfCentralMeridian;
+        northing[index] = northOfEquator;
+
+    }
+
+    /**
+     * Converts one UTM coordinate back to latitude and longitude and stores
+     * the result at {@code index} of the latitude and longitude arrays.
+     *
+     * @param easting in meters
+     * @param northing in meters
+     * @param zoneNumber
+     * @param hemisphere 'N' or 'S'
+     * @param latitude receives the latitude in degrees
+     * @param longitude receives the longitude in degrees
+     * @param index position to write in the result arrays
+     * @return the number of Newton iterations used to find the latitude
+     */
+    public int inverse(double easting, double northing, int zoneNumber,
+            char hemisphere, double[] latitude, double[] longitude, int index) {
+
+        return inverse(easting, northing, (double) (zoneNumber * 6 - 183),
+                hemisphere, latitude, longitude, index);
+
+    }
+
+    /**
+     * Converts the coordinates from fromIndex (inclusive) to toIndex
+     * (exclusive), which must all lie in the same zone, back to latitude and
+     * longitude. The central meridian is computed once for the whole range,
+     * and the hemisphere of each coordinate comes from its band letter.
+     * Points outside of 80S to 84N have no band, so they need the scalar
+     * inverse with an explicit hemisphere.
+     *
+     * @param easting in meters
+     * @param northing in meters
+     * @param zoneNumber
+     * @param zoneLetter latitude band letters
+     * @param latitude receives the latitudes in degrees
+     * @param longitude receives the longitudes in degrees
+     * @param fromIndex
+     * @param toIndex
+     * @return the total number of Newton iterations used
+     * @throws IllegalArgumentException if a letter is not a band, C to X
+     */
+    public long inverse(double[] easting, double[] northing, int zoneNumber,
+            char[] zoneLetter, double[] latitude, double[] longitude,
+            int fromIndex, int toIndex) {
+
+        double centralMeridian = zoneNumber * 6 - 183;
+        long iterations = 0;
+
+        for (int i = fromIndex; i < toIndex; i++)
+            iterations += inverse(easting[i], northing[i], centralMeridian,
+                    hemisphereOfBand(zoneLetter[i]), latitude, longitude, i);
+
+        return iterations;
+
+    }
+
+    private int inverse(double easting, double northing,
+            double centralMeridian, char hemisphere, double[] latitude,
+            double[] longitude, int index) {
+
+        if (hemisphere != 'N')
+            northing -= SOUTH_HEMISPHERE_SUBTRACTION;
+
+        double xi = northing / scaledMeridianRadius;
+        double eta = (easting - FALSE_EASTING) / scaledMeridianRadius;
+
+        // Complex Clenshaw summation of the beta series over zeta = xi + i eta
+        double sinOfXi = Math.sin(2 * xi);
+        double cosOfXi = Math.cos(2 * xi);
+        double sinhOfEta = Math.sinh(2 * eta);
+        double coshOfEta = Math.cosh(2 * eta);
+
+        double realFactor = 2 * cosOfXi * coshOfEta;
+        double imaginaryFactor = -2 * sinOfXi * sinhOfEta;
+
+        double real = 0;
+        double imaginary = 0;
+        double previousReal = 0;
+        double previousImaginary = 0;
+
+        for (int j = betaSeries.length - 1; j >= 0; j--) {
+
+            double nextReal = betaSeries[j] + realFactor * real
+                    - imaginaryFactor * imaginary - previousReal;
+            double nextImaginary = realFactor * imaginary
+                    + imaginaryFactor * real - previousImaginary;
+
+            previousReal = real;
+            previousImaginary = imaginary;
+            real = nextReal;
+            imaginary = nextImaginary;
+        }
+
+        double sinOfZetaReal = sinOfXi * coshOfEta;
+        double sinOfZetaImaginary = cosOfXi * sinhOfEta;
+
+        double xiPrime = xi - (sinOfZetaReal * real
+                - sinOfZetaImaginary * imaginary);
+        double etaPrime = eta - (sinOfZetaReal * imaginary
+                + sinOfZetaImaginary * real);
+
+        double sinhOfEtaPrime = Math.sinh(etaPrime);
+        double cosOfXiPrime = Math.cos(xiPrime);
+
+        double tauPrime = Math.sin(xiPrime) / Math.sqrt(
+                sinhOfEtaPrime * sinhOfEtaPrime + cosOfXiPrime * cosOfXiPrime);
+
+        // Newton's method for tau, the tangent of the latitude, given tau
+        // prime, the tangent of the conformal latitude
+        double oneMinusEccentricitySquared = 1 - eccentricity * eccentricity;
+        double tau = tauPrime / oneMinusEccentricitySquared;
+        double stepTolerance = tolerance * Math.max(1.0, Math.abs(tau));
+        int iterations = 0;
+
+        while (iterations < maxIterations) {
+
+            double secant = Math.sqrt(1 + tau * tau);
+            double sigma = Math.sinh(eccentricity * FastMath.atanh(
+                    eccentricity * tau / secant));
+            double currentTauPrime = tau * Math.sqrt(1 + sigma * sigma)
+                    - sigma * secant;
+
+            double changeInTau = (tauPrime - currentTauPrime)
+                    * (1 + oneMinusEccentricitySquared * tau * tau)
+                    / (oneMinusEccentricitySquared * secant
+                    * Math.sqrt(1 + currentTauPrime * currentTauPrime));
+
+            tau += changeInTau;
+            iterations++;
+
+            if (!(Math.abs(changeInTau) >= stepTolerance))
+                break;
+        }
+
+        latitude[index] = Math.atan(tau) * RADIANS_TO_DEGREES;
+        longitude[index] = centralMeridian
+                + Math.atan2(sinhOfEtaPrime, cosOfXiPrime) * RADIANS_TO_DEGREES;
+
+        return iterations;
+
+    }
+
+    /**
+     * @param longitude in degrees
+     * @return the zone of the regular 6 degree grid the longitude falls in,
+     * without the exceptions of calcZoneNumber(latitude, longitude)
+     */
+    public static int calcZoneNumber(double longitude) {
+
+        if (longitude >= -180 && longitude <= 180)
+            return ZONE_BY_DEGREE[(int) (longitude + 180.0)];
+
+        return (int) Math.floor((longitude + 180.0) / 6.0) + 1;
+
+    }
+
+    /**
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @return the UTM zone number of the point, with zone 32V widened over
+     * southwest Norway and zones 31X to 37X around Svalbard
+     */
+    public static int calcZoneNumber(double latitude, double longitude) {
+
+        if (longitude >= -180 && longitude <= 180) {
+
+            int row = 0;
+
+            if (latitude >= 56 && latitude < 64)
+                row = LONGITUDES;
+            else if (latitude >= 72 && latitude <= 84)
+                row = 2 * LONGITUDES;
+
+            return ZONE_BY_DEGREE[row + (int) (longitude + 180.0)];
+        }
+
+        return (int) Math.floor((longitude + 180.0) / 6.0) + 1;
+
+    }
+
+    /**
+     * @param latitude in degrees
+     * @return the UTM latitude band letter, or 'Z' outside of 80S to 84N
+     */
+    public static char calcZoneLetter(double latitude) {
+
+        if (latitude >= -80 && latitude <= 84)
+            return BAND_BY_DEGREE[(int) (latitude + 80.0)];
+
+        return 'Z';
+
+    }
+
+    /**
+     * @param latitude in degrees
+     * @return 'S' for southern latitudes, 'N' otherwise
+     */
+    public static char calcHemisphere(double latitude) {
+        return latitude < 0 ? 'S' : 'N';
+    }
+
+    /**
+     * @param zoneLetter latitude band letter, C to X without I and O
+     * @return 'S' for the bands C to M, 'N' for the bands N to X
+     * @throws IllegalArgumentException for any other letter, such as the 'Z'
+     * calcZoneLetter gives outside of 80S to 84N, whose hemisphere is unknown
+     */
+    public static char hemisphereOfBand(char zoneLetter) {
+
+        if (zoneLetter < 'C' || zoneLetter > 'X' || zoneLetter == 'I'
+                || zoneLetter == 'O')
+            throw new IllegalArgumentException("Invalid latitude band "
+                    + zoneLetter);
+
+        return zoneLetter < 'N' ? 'S' : 'N';
+
+    }
+
+    /**
+     * Checks that fromIndex to toIndex is a valid range of every array of a
+     * batch.
+     *
+     * @param fromIndex inclusive
+     * @param toIndex exclusive
+     * @param lengths of the batch arrays
+     */
+    static void checkRange(int fromIndex, int toIndex, int... lengths) {
+
+        if (fromIndex < 0 || fromIndex > toIndex)
+            throw new IllegalArgumentException("Invalid range " + fromIndex
+                    + " to " + toIndex);
+
+        for (int length : lengths) {
+
+            if (length < toIndex)
+                throw new IllegalArgumentException("Array of length " + length
+                        + " is shorter than " + toIndex);
+        }
+
+    }
+
+}
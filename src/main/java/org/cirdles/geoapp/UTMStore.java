@@ -0,0 +1,440 @@
+/*
+ * UTMStore.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Compact binary file of converted UTM coordinates, partitioned by zone.
+ *
+ * The file starts with a 64 byte header: magic, version, record count,
+ * partition count and datum name. An index of 16 bytes per partition
+ * follows, giving the zone number, record count and file offset of each
+ * partition. A partition stores its eastings, then its northings as little
+ * endian doubles, then one band letter byte per record. A reader maps only
+ * the partitions it asks for and reads values straight from the mapping.
+ */
+public final class UTMStore implements Closeable {
+
+    static final int MAGIC = 0x47454F55;
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int DATUM_NAME_OFFSET = 20;
+    private static final int DATUM_NAME_SIZE = HEADER_SIZE - DATUM_NAME_OFFSET;
+    private static final int INDEX_ENTRY_SIZE = 16;
+    private static final int MAX_ZONE = 60;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    // records per mapping of a column: 1 GB of doubles
+    private static final int CHUNK_RECORDS = 1 << 27;
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final String datumName;
+    private final long recordCount;
+    private final int[] zones;
+    private final int[] counts;
+    private final long[] offsets;
+
+    private UTMStore(RandomAccessFile file) throws IOException {
+
+        this.file = file;
+        this.channel = file.getChannel();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header, 0);
+
+        if (header.getInt(0) != MAGIC)
+            throw new IOException("Not a UTM store");
+
+        if (header.getInt(4) != VERSION)
+            throw new IOException("Unsupported UTM store version "
+                    + header.getInt(4));
+
+        recordCount = header.getLong(8);
+        int partitionCount = header.getInt(16);
+
+        if (partitionCount < 0 || partitionCount > MAX_ZONE)
+            throw new IOException("Invalid UTM store partition count "
+                    + partitionCount);
+
+        byte[] name = new byte[DATUM_NAME_SIZE];
+        header.position(DATUM_NAME_OFFSET);
+        header.get(name);
+        datumName = new String(name, US_ASCII).trim();
+
+        ByteBuffer index = ByteBuffer.allocate(partitionCount * INDEX_ENTRY_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        readFully(index, HEADER_SIZE);
+
+        zones = new int[partitionCount];
+        counts = new int[partitionCount];
+        offsets = new long[partitionCount];
+
+        long indexEnd = HEADER_SIZE + partitionCount * INDEX_ENTRY_SIZE;
+        long fileSize = channel.size();
+        long total = 0;
+
+        for (int i = 0; i < partitionCount; i++) {
+
+            zones[i] = index.getInt(i * INDEX_ENTRY_SIZE);
+            counts[i] = index.getInt(i * INDEX_ENTRY_SIZE + 4);
+            offsets[i] = index.getLong(i * INDEX_ENTRY_SIZE + 8);
+
+            if (zones[i] < 1 || zones[i] > MAX_ZONE
+                    || (i > 0 && zones[i] <= zones[i - 1]))
+                throw new IOException("Invalid UTM store zone " + zones[i]);
+
+            // the partition must lie between the index and the end of file
+            if (counts[i] < 0 || offsets[i] < indexEnd
+                    || offsets[i] > fileSize - partitionSize(counts[i]))
+                throw new IOException("Invalid UTM store partition of zone "
+                        + zones[i]);
+
+            total += counts[i];
+        }
+
+        if (total != recordCount)
+            throw new IOException("UTM store partitions hold " + total
+                    + " records, header says " + recordCount);
+
+    }
+
+    /**
+     * Opens a store for reading. Nothing but the header and index is read
+     * until a partition is requested.
+     *
+     * @param path
+     * @return the store
+     * @throws IOException if the file cannot be read or is not a store
+     */
+    public static UTMStore open(File path) throws IOException {
+
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+
+        try {
+            return new UTMStore(file);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+
+    }
+
+    /**
+     * Writes a batch of converted coordinates, as produced by the batch
+     * LatLongToUTM.convert, grouping the records by zone. Within a zone the
+     * records keep their batch order.
+     *
+     * @param path
+     * @param datumName datum the coordinates were converted with
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param zoneLetter
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(File path, String datumName, double[] easting,
+            double[] northing, int[] zoneNumber, char[] zoneLetter)
+            throws IOException {
+
+        int records = easting.length;
+        TransverseMercatorEngine.checkRange(0, records, northing.length,
+                zoneNumber.length, zoneLetter.length);
+
+        byte[] name = datumName.getBytes(US_ASCII);
+
+        if (name.length > DATUM_NAME_SIZE)
+            throw new IllegalArgumentException("Datum name too long: " + datumName);
+
+        for (int zone : zoneNumber)
+            if (zone < 1 || zone > MAX_ZONE)
+                throw new IllegalArgumentException("Invalid zone " + zone);
+
+        int[] order = new int[records];
+        int[] zoneStart = ZoneBatchScheduler.sortByZone(zoneNumber, 0, records,
+                order);
+        int[] zoneCounts = new int[MAX_ZONE + 1];
+        int partitionCount = 0;
+
+        for (int zone = 1; zone <= MAX_ZONE; zone++) {
+
+            zoneCounts[zone] = zoneStart[zone + 1] - zoneStart[zone];
+
+            if (zoneCounts[zone] > 0)
+                partitionCount++;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE
+                + partitionCount * INDEX_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(records)
+                .putInt(partitionCount).put(name);
+        header.position(HEADER_SIZE);
+
+        long offset = align(HEADER_SIZE + partitionCount * INDEX_ENTRY_SIZE);
+
+        for (int zone = 1; zone <= MAX_ZONE; zone++) {
+
+            if (zoneCounts[zone] == 0)
+                continue;
+
+            header.putInt(zone).putInt(zoneCounts[zone]).putLong(offset);
+            offset = align(offset + partitionSize(zoneCounts[zone]));
+        }
+
+        header.flip();
+
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+
+        try {
+
+            file.setLength(0);
+            FileChannel channel = file.getChannel();
+
+            while (header.hasRemaining())
+                channel.write(header);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+
+            for (int zone = 1; zone <= MAX_ZONE; zone++) {
+
+                if (zoneCounts[zone] == 0)
+                    continue;
+
+                int from = zoneStart[zone];
+                int to = zoneStart[zone + 1];
+
+                pad(channel, buffer);
+
+                for (int i = from; i < to; i++)
+                    putDouble(channel, buffer, easting[order[i]]);
+
+                for (int i = from; i < to; i++)
+                    putDouble(channel, buffer, northing[order[i]]);
+
+                for (int i = from; i < to; i++) {
+
+                    if (!buffer.hasRemaining())
+                        drain(channel, buffer);
+
+                    buffer.put((byte) zoneLetter[order[i]]);
+                }
+            }
+
+            drain(channel, buffer);
+
+        } finally {
+            file.close();
+        }
+
+    }
+
+    public String getDatumName() {
+        return datumName;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * @return the zone numbers present in the store, in ascending order
+     */
+    public int[] getZones() {
+        return zones.clone();
+    }
+
+    /**
+     * Maps the records of one zone.
+     *
+     * @param zoneNumber
+     * @return the partition, or null if the store has no record in the zone
+     * @throws IOException if the partition cannot be mapped
+     */
+    public Partition partition(int zoneNumber) throws IOException {
+        return partition(zoneNumber, CHUNK_RECORDS);
+    }
+
+    /**
+     * @param zoneNumber
+     * @param chunkRecords records per mapping of each column, a power of two
+     */
+    Partition partition(int zoneNumber, int chunkRecords) throws IOException {
+
+        for (int i = 0; i < zones.length; i++) {
+
+            if (zones[i] == zoneNumber)
+                return new Partition(zoneNumber, counts[i], offsets[i],
+                        channel, chunkRecords);
+        }
+
+        return null;
+
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * The records of one zone, read directly from the mapped file. A column
+     * of a large zone does not fit one mapping, limited to 2 GB, so each
+     * column is mapped in chunks of a power of two records.
+     */
+    public static final class Partition {
+
+        private final int zoneNumber;
+        private final int size;
+        private final int shift;
+        private final int mask;
+        private final DoubleBuffer[] easting;
+        private final DoubleBuffer[] northing;
+        private final ByteBuffer[] zoneLetter;
+
+        private Partition(int zoneNumber, int size, long offset,
+                FileChannel channel, int chunkRecords) throws IOException {
+
+            this.zoneNumber = zoneNumber;
+            this.size = size;
+            this.shift = Integer.numberOfTrailingZeros(chunkRecords);
+            this.mask = chunkRecords - 1;
+
+            int chunks = (int) ((size + (long) mask) >>> shift);
+            easting = new DoubleBuffer[chunks];
+            northing = new DoubleBuffer[chunks];
+            zoneLetter = new ByteBuffer[chunks];
+
+            for (int chunk = 0; chunk < chunks; chunk++) {
+
+                long first = (long) chunk << shift;
+                long records = Math.min(chunkRecords, size - first);
+
+                easting[chunk] = map(channel, offset + 8 * first, 8 * records)
+                        .asDoubleBuffer();
+                northing[chunk] = map(channel, offset + 8L * size + 8 * first,
+                        8 * records).asDoubleBuffer();
+                zoneLetter[chunk] = map(channel, offset + 16L * size + first,
+                        records);
+            }
+
+        }
+
+        public int getZoneNumber() {
+            return zoneNumber;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public double getEasting(int index) {
+            return easting[index >>> shift].get(index & mask);
+        }
+
+        public double getNorthing(int index) {
+            return northing[index >>> shift].get(index & mask);
+        }
+
+        public char getZoneLetter(int index) {
+            return (char) zoneLetter[index >>> shift].get(index & mask);
+        }
+
+        private static ByteBuffer map(FileChannel channel, long position,
+                long length) throws IOException {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private static long partitionSize(int count) {
+        return 17L * count;
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static void putDouble(FileChannel channel, ByteBuffer buffer,
+            double value) throws IOException {
+
+        if (buffer.remaining() < 8)
+            drain(channel, buffer);
+
+        buffer.putDouble(value);
+
+    }
+
+    /**
+     * Pads the file with zeros so the next partition starts on an 8 byte
+     * boundary.
+     */
+    private static void pad(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+
+        long position = channel.position() + buffer.position();
+
+        for (long i = position; i < align(position); i++) {
+
+            if (!buffer.hasRemaining())
+                drain(channel, buffer);
+
+            buffer.put((byte) 0);
+        }
+
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer)
+            throws IOException {
+
+        buffer.flip();
+
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+
+        buffer.clear();
+
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+
+        while (buffer.hasRemaining()) {
+
+            int read = channel.read(buffer, position + buffer.position());
+
+            if (read < 0)
+                throw new IOException("Unexpected end of UTM store");
+        }
+
+        buffer.flip();
+
+    }
+
+}
@@ -32,284 +32,389 @@ Steven Dutch, Natural and Applied Sciences, University of Wisconsin - Green Bay
 
 package org.cirdles.geoapp;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import org.apache.commons.math3.analysis.function.Atanh;
-
 /**
  *
  * @author Elaina Cole
  */
 public class UTMToLatLong {
     
-    private static final BigDecimal SCALE_FACTOR = new BigDecimal(0.9996);
-    private static final BigDecimal FALSE_EASTING = new BigDecimal(500000);
-    private static final BigDecimal SOUTH_HEMISPHERE_SUBTRACTION = new BigDecimal(10000000);
-    private static final BigDecimal ONE = new BigDecimal(1);
-    private static final int PRECISION = 10;
-    
-    
+    /**
+     * 
+     * @param utm
+     * @param datum
+     * @return String
+     * 
+     * Converts UTM to latitude and longitude and formats them as 
+     * "Latitude: ...\nLongitude: ..."
+     */
     public static String convert(UTM utm, String datum) {
         
-        Datum datumInformation = Datum.valueOf(datum);
-        
-        BigDecimal flattening3D = new BigDecimal(datumInformation.getFlattening3D());
-        
-        BigDecimal[] betaSeries = {
-            
-            KrugerSeries.beta1(flattening3D).setScale(PRECISION, RoundingMode.HALF_UP),
-            KrugerSeries.beta2(flattening3D).setScale(PRECISION, RoundingMode.HALF_UP),
-            KrugerSeries.beta3(flattening3D).setScale(PRECISION, RoundingMode.HALF_UP),
-            KrugerSeries.beta4(flattening3D).setScale(PRECISION, RoundingMode.HALF_UP),
-            KrugerSeries.beta5(flattening3D).setScale(PRECISION, RoundingMode.HALF_UP),
-            KrugerSeries.beta6(flattening3D).setScale(PRECISION, RoundingMode.HALF_UP),
-            KrugerSeries.beta7(flattening3D).setScale(PRECISION, RoundingMode.HALF_UP)
-            
-        };
-        
-        char hemisphere = utm.getHemisphere();
-        
-        double zoneCentralMeridian = utm.getZoneNumber() * 6 - 183;
-        
-        BigDecimal meridianRadius = new BigDecimal(datumInformation.getMeridianRadius());
-        
-        BigDecimal northing = utm.getNorthing();
-        
-        BigDecimal easting = utm.getEasting();
-        
-        BigDecimal xiNorth = calcXiNorth(hemisphere, meridianRadius, northing);
-        
-        BigDecimal etaEast = calcEtaEast(easting, meridianRadius);
-        
-        BigDecimal xiPrime = calcXiPrime(xiNorth, etaEast, betaSeries);
-        
-        BigDecimal etaPrime = calcEtaPrime(xiNorth, etaEast, betaSeries);
-        
-        BigDecimal tauPrime = calcTauPrime(xiPrime, etaPrime);
-        
-        BigDecimal eccentricity = new BigDecimal(datumInformation.getEccentricity());
-        
-        BigDecimal sigma = calcSigma(eccentricity, tauPrime);
-        
-        BigDecimal latitude = calcLatitude(eccentricity, sigma, tauPrime, 5, tauPrime);
-        
-        BigDecimal longitude = calcLongitude(zoneCentralMeridian, etaPrime, xiPrime);
-        
-        String latAndLong = "Latitude: " + latitude + "\nLongitude: " + longitude;
-        
-        return latAndLong;
+        return format(toLatLong(utm, datum));
         
     }
     
-    private static BigDecimal calcXiNorth(char hemisphere, BigDecimal 
-            meridianRadius, BigDecimal northing) {
-        
-        BigDecimal xiNorth;
-        
-        
-        if(hemisphere == 'N') {
-            
-            xiNorth = northing.divide(SCALE_FACTOR.multiply(meridianRadius), RoundingMode.HALF_UP).
-                    setScale(PRECISION, RoundingMode.HALF_UP);
-            
-        }
-        
-        else {
-            
-            BigDecimal minuend = new BigDecimal(10000000);
-            
-            xiNorth = (minuend.subtract(northing)).divide(
-                    SCALE_FACTOR.multiply(meridianRadius), PRECISION, 
-                    RoundingMode.HALF_UP);
-            
-        }
-            
-        
-        
-        return xiNorth;
+    /**
+     * 
+     * @param utm
+     * @param datum
+     * @return String
+     * 
+     * Converts UTM to latitude and longitude and formats them as 
+     * "Latitude: ...\nLongitude: ..."
+     */
+    public static String convert(UTM utm, Datum datum) {
+        
+        return format(toLatLong(utm, datum));
         
     }
     
-    
-    private static BigDecimal calcEtaEast(BigDecimal easting, BigDecimal meridianRadius) {
-        
-        BigDecimal etaEast = (easting.subtract(FALSE_EASTING)).divide(
-            SCALE_FACTOR.multiply(meridianRadius), PRECISION, RoundingMode.HALF_UP);
+    /**
+     * 
+     * @param utm
+     * @param datum
+     * @return LatLong
+     * 
+     * Converts UTM to latitude and longitude in degrees
+     */
+    public static LatLong toLatLong(UTM utm, String datum) {
+        
+        return toLatLong(utm.getEasting().doubleValue(), 
+                utm.getNorthing().doubleValue(), utm.getZoneNumber(), 
+                utm.getHemisphere(), datum);
         
-        return etaEast;
     }
     
-    
-    private static BigDecimal calcXiPrime(BigDecimal xiNorth, BigDecimal etaEast, 
-            BigDecimal[] betaSeries) {
-        
-        double xiNorthDouble = xiNorth.doubleValue();
-        double etaEastDouble = etaEast.doubleValue();
-        
-        BigDecimal sinOfXiNorth;
-        BigDecimal coshOfEtaEast;
-        
-        BigDecimal subtrahend = new BigDecimal(0.0);
-        int multiplicand = 2;
-        
-        for(BigDecimal beta : betaSeries) {
-            
-            sinOfXiNorth = new BigDecimal(Math.sin(multiplicand * xiNorthDouble));
-            coshOfEtaEast = new BigDecimal(Math.cosh(multiplicand * etaEastDouble));
-            
-            subtrahend.add(beta.multiply(sinOfXiNorth).multiply(coshOfEtaEast));
-            
-            multiplicand += 2;
-            
-        }
-        
-        BigDecimal xiPrime = xiNorth.subtract(subtrahend);
-        
-        return xiPrime;
-        
+    /**
+     * 
+     * @param utm
+     * @param datum
+     * @return LatLong
+     * 
+     * Converts UTM to latitude and longitude in degrees
+     */
+    public static LatLong toLatLong(UTM utm, Datum datum) {
+        
+        return toLatLong(utm.getEasting().doubleValue(), 
+                utm.getNorthing().doubleValue(), utm.getZoneNumber(), 
+                utm.getHemisphere(), datum);
         
     }
     
-    
-    private static BigDecimal calcEtaPrime(BigDecimal xiNorth, BigDecimal etaEast,
-            BigDecimal[] betaSeries) {
-        
-        double xiNorthDouble = xiNorth.doubleValue();
-        double etaEastDouble = etaEast.doubleValue();
-        
-        BigDecimal cosOfXiNorth;
-        BigDecimal sinhOfEtaEast;
-        
-        BigDecimal subtrahend = new BigDecimal(0.0);
-        int multiplicand = 2;
-        
-        for(BigDecimal beta : betaSeries) {
-            
-            cosOfXiNorth = new BigDecimal(Math.cos(multiplicand * xiNorthDouble));
-            sinhOfEtaEast = new BigDecimal(Math.sinh(multiplicand * etaEastDouble));
-            
-            subtrahend.add(beta.multiply(cosOfXiNorth).multiply(sinhOfEtaEast));
-            
-            multiplicand += 2;
-            
-        }
-        
-        BigDecimal etaPrime = etaEast.subtract(subtrahend);
-        
-        return etaPrime;
-        
+    /**
+     * 
+     * @param utm
+     * @param context constants of a datum or of a registered ellipsoid
+     * @return LatLong
+     * 
+     * Converts UTM to latitude and longitude in degrees
+     */
+    public static LatLong toLatLong(UTM utm, DatumContext context) {
+        
+        return toLatLong(utm.getEasting().doubleValue(), 
+                utm.getNorthing().doubleValue(), utm.getZoneNumber(), 
+                utm.getHemisphere(), context);
         
     }
     
-    private static BigDecimal calcTauPrime(BigDecimal xiPrime, BigDecimal etaPrime) {
-        
-        double xiPrimeDouble = xiPrime.doubleValue();
-        double etaPrimeDouble = etaPrime.doubleValue();
-        
-        BigDecimal sinOfXiPrime = new BigDecimal(Math.sin(xiPrimeDouble));
-        BigDecimal cosOfXiPrime = new BigDecimal(Math.cos(xiPrimeDouble));
-        BigDecimal sinhOfEtaPrime = new BigDecimal(Math.sinh(etaPrimeDouble));
+    /**
+     * 
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param hemisphere 'N' or 'S'
+     * @param datum
+     * @return LatLong
+     * 
+     * Converts a UTM coordinate given as primitives to latitude and longitude
+     * in degrees
+     */
+    public static LatLong toLatLong(double easting, double northing, 
+            int zoneNumber, char hemisphere, String datum) {
+        
+        return toLatLong(easting, northing, zoneNumber, hemisphere, 
+                EllipsoidRegistry.forName(datum));
         
-        BigDecimal squareRoot = new BigDecimal(Math.sqrt(sinhOfEtaPrime.pow(2).
-                add(cosOfXiPrime.pow(2)).doubleValue()));
-        
-        BigDecimal tauPrime = sinOfXiPrime.divide(squareRoot, PRECISION, RoundingMode.HALF_UP);
-        
-        return tauPrime;
     }
     
-    private static BigDecimal calcSigma(BigDecimal eccentricity, BigDecimal tau) {
-        
-        double eccentricityDouble = eccentricity.doubleValue();
-        double tauDouble = tau.doubleValue();
-        
-        Atanh atanh = new Atanh();
-        double sigmaDouble = Math.sinh(eccentricityDouble *
-            (atanh.value( eccentricityDouble * tauDouble / Math.sqrt(
-            1 + Math.pow(tauDouble, 2)))));
-        
-        BigDecimal sigma = new BigDecimal (sigmaDouble);
-        
-        return sigma;
+    /**
+     * 
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param hemisphere 'N' or 'S'
+     * @param datum
+     * @return LatLong
+     * 
+     * Converts a UTM coordinate given as primitives to latitude and longitude
+     * in degrees
+     */
+    public static LatLong toLatLong(double easting, double northing, 
+            int zoneNumber, char hemisphere, Datum datum) {
+        
+        return toLatLong(easting, northing, zoneNumber, hemisphere, 
+                DatumContext.forDatum(datum));
         
     }
     
-    
-    private static BigDecimal functionOfTau(BigDecimal currentTau, BigDecimal
-        currentSigma, BigDecimal originalTau) {
-        
-        BigDecimal funcOfTau = originalTau.multiply(new BigDecimal(Math.sqrt(1 + 
-            currentSigma.pow(2).doubleValue()))).subtract(currentSigma.multiply(
-            new BigDecimal(Math.sqrt(1 + currentTau.pow(2).doubleValue())))).subtract(originalTau);
-        
-        return funcOfTau;
+    /**
+     * 
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param hemisphere 'N' or 'S'
+     * @param context constants of a datum or of a registered ellipsoid
+     * @return LatLong
+     * 
+     * Converts a UTM coordinate given as primitives to latitude and longitude
+     * in degrees
+     */
+    public static LatLong toLatLong(double easting, double northing, 
+            int zoneNumber, char hemisphere, DatumContext context) {
+        
+        MutableLatLong latLong = new MutableLatLong();
+        
+        convertInto(easting, northing, zoneNumber, hemisphere, context, latLong);
+        
+        return latLong.toLatLong();
         
     }
     
-
-    
-    private static BigDecimal changeInTau(BigDecimal eccentricity, BigDecimal 
-        currentTau, BigDecimal currentSigma) {
-        
-        BigDecimal changeInTau = ((new BigDecimal(Math.sqrt((1 + currentSigma.pow(2).doubleValue()) * 
-            (1 + currentTau.pow(2).doubleValue())))).subtract(
-            currentSigma.multiply(currentTau))).multiply(new BigDecimal(1 - 
-            eccentricity.pow(2).doubleValue())).multiply(new BigDecimal(Math.sqrt(
-            1 + currentTau.pow(2).doubleValue()))).divide(ONE.add(
-            ONE.subtract(eccentricity.pow(2))).multiply(currentTau.pow(2)), PRECISION, RoundingMode.HALF_UP);
+    /**
+     * Converts a UTM coordinate to latitude and longitude, writing the result
+     * into a caller owned holder. Nothing is allocated, so a holder reused by
+     * a thread converts any number of coordinates without creating garbage.
+     * 
+     * @param utm
+     * @param datum
+     * @param latLong receives the latitude and longitude in degrees
+     * @return the number of Newton iterations used
+     */
+    public static int convertInto(MutableUTM utm, Datum datum, 
+            MutableLatLong latLong) {
+        
+        return convertInto(utm.getEasting(), utm.getNorthing(), 
+                utm.getZoneNumber(), utm.getHemisphere(), 
+                DatumContext.forDatum(datum), latLong);
         
+    }
+    
+    /**
+     * Converts a UTM coordinate to latitude and longitude, writing the result
+     * into a caller owned holder without allocating.
+     * 
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param hemisphere 'N' or 'S'
+     * @param datum
+     * @param latLong receives the latitude and longitude in degrees
+     * @return the number of Newton iterations used
+     */
+    public static int convertInto(double easting, double northing, 
+            int zoneNumber, char hemisphere, Datum datum, MutableLatLong latLong) {
+        
+        return convertInto(easting, northing, zoneNumber, hemisphere, 
+                DatumContext.forDatum(datum), latLong);
         
-        return changeInTau;
+    }
+    
+    /**
+     * Converts a UTM coordinate to latitude and longitude, writing the result
+     * into a caller owned holder without allocating.
+     * 
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param hemisphere 'N' or 'S'
+     * @param context constants of a datum or of a registered ellipsoid
+     * @param latLong receives the latitude and longitude in degrees
+     * @return the number of Newton iterations used
+     */
+    public static int convertInto(double easting, double northing, 
+            int zoneNumber, char hemisphere, DatumContext context, 
+            MutableLatLong latLong) {
+        
+        TransverseMercatorEngine engine = TransverseMercatorEngine.forContext(context);
+        
+        return engine.inverse(easting, northing, zoneNumber, hemisphere, 
+                latLong.latitude, latLong.longitude, 0);
         
     }
     
+    /**
+     * 
+     * @param latLong
+     * @return String
+     * 
+     * Formats latitude and longitude as "Latitude: ...\nLongitude: ..."
+     */
+    public static String format(LatLong latLong) {
+        
+        return "Latitude: " + latLong.getLatitude() + "\nLongitude: " 
+                + latLong.getLongitude();
+        
+    }
     
-    private static BigDecimal approximateTau(BigDecimal currentTau, BigDecimal
-        funcOfTau, BigDecimal changeInTau) {
+    /**
+     * Converts a batch of UTM coordinates held in parallel arrays. The datum 
+     * name is resolved by EllipsoidRegistry.forName once for the whole batch 
+     * and no object is created per point.
+     * 
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param zoneLetter latitude band letters C to X, used to find the
+     * hemisphere; any other letter throws IllegalArgumentException
+     * @param datum
+     * @param latitude receives the latitudes in degrees
+     * @param longitude receives the longitudes in degrees
+     * @return the total number of Newton iterations of the batch
+     */
+    public static long convert(double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter, String datum, 
+            double[] latitude, double[] longitude) {
+        
+        return convert(easting, northing, zoneNumber, zoneLetter, datum, latitude,
+                longitude, 0, easting.length);
         
-        BigDecimal newTau = currentTau.subtract(funcOfTau.divide(changeInTau, PRECISION, RoundingMode.HALF_UP));
+    }
+    
+    /**
+     * Converts a batch of UTM coordinates held in parallel arrays.
+     * 
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param zoneLetter latitude band letters C to X, used to find the
+     * hemisphere; any other letter throws IllegalArgumentException
+     * @param datum
+     * @param latitude receives the latitudes in degrees
+     * @param longitude receives the longitudes in degrees
+     * @return the total number of Newton iterations of the batch
+     */
+    public static long convert(double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter, Datum datum, 
+            double[] latitude, double[] longitude) {
+        
+        return convert(easting, northing, zoneNumber, zoneLetter, datum, latitude,
+                longitude, 0, easting.length);
         
-        return newTau;
+    }
+    
+    /**
+     * Converts a batch of UTM coordinates held in parallel arrays.
+     * 
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param zoneLetter latitude band letters C to X, used to find the
+     * hemisphere; any other letter throws IllegalArgumentException
+     * @param context constants of a datum or of a registered ellipsoid
+     * @param latitude receives the latitudes in degrees
+     * @param longitude receives the longitudes in degrees
+     * @return the total number of Newton iterations of the batch
+     */
+    public static long convert(double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter, DatumContext context, 
+            double[] latitude, double[] longitude) {
+        
+        return convert(easting, northing, zoneNumber, zoneLetter, context, 
+                latitude, longitude, 0, easting.length);
         
     }
     
-    private static BigDecimal calcLatitude(BigDecimal eccentricity, 
-        BigDecimal sigma, BigDecimal currentTau, int numOfApproximations, 
-        BigDecimal originalTau) {
+    /**
+     * Converts the points from fromIndex (inclusive) to toIndex (exclusive) 
+     * of a batch of UTM coordinates held in parallel arrays.
+     * 
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param zoneLetter latitude band letters C to X, used to find the
+     * hemisphere; any other letter throws IllegalArgumentException
+     * @param datum
+     * @param latitude receives the latitudes in degrees
+     * @param longitude receives the longitudes in degrees
+     * @param fromIndex
+     * @param toIndex 
+     * @return the total number of Newton iterations of the range
+     */
+    public static long convert(double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter, String datum, 
+            double[] latitude, double[] longitude, int fromIndex, int toIndex) {
+        
+        return convert(easting, northing, zoneNumber, zoneLetter, 
+                EllipsoidRegistry.forName(datum), latitude, longitude, fromIndex, 
+                toIndex);
         
-        BigDecimal funcOfTau = functionOfTau(currentTau, sigma, originalTau);
-        BigDecimal changeInTau = changeInTau(eccentricity, currentTau, sigma);
-        BigDecimal nextTau = approximateTau(currentTau, funcOfTau, changeInTau);
-        BigDecimal nextSigma = calcSigma(eccentricity, nextTau);
+    }
+    
+    /**
+     * Converts the points from fromIndex (inclusive) to toIndex (exclusive) 
+     * of a batch of UTM coordinates held in parallel arrays.
+     * 
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param zoneLetter latitude band letters C to X, used to find the
+     * hemisphere; any other letter throws IllegalArgumentException
+     * @param datum
+     * @param latitude receives the latitudes in degrees
+     * @param longitude receives the longitudes in degrees
+     * @param fromIndex
+     * @param toIndex 
+     * @return the total number of Newton iterations of the range
+     */
+    public static long convert(double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter, Datum datum, 
+            double[] latitude, double[] longitude, int fromIndex, int toIndex) {
+        
+        return convert(easting, northing, zoneNumber, zoneLetter, 
+                DatumContext.forDatum(datum), latitude, longitude, fromIndex, 
+                toIndex);
         
-        if (numOfApproximations != 0) {
+    }
+    
+    /**
+     * Converts the points from fromIndex (inclusive) to toIndex (exclusive) 
+     * of a batch of UTM coordinates held in parallel arrays.
+     * 
+     * @param easting
+     * @param northing
+     * @param zoneNumber
+     * @param zoneLetter latitude band letters C to X, used to find the
+     * hemisphere; any other letter throws IllegalArgumentException
+     * @param context constants of a datum or of a registered ellipsoid
+     * @param latitude receives the latitudes in degrees
+     * @param longitude receives the longitudes in degrees
+     * @param fromIndex
+     * @param toIndex 
+     * @return the total number of Newton iterations of the range
+     */
+    public static long convert(double[] easting, double[] northing, 
+            int[] zoneNumber, char[] zoneLetter, DatumContext context, 
+            double[] latitude, double[] longitude, int fromIndex, int toIndex) {
+        
+        TransverseMercatorEngine.checkRange(fromIndex, toIndex, easting.length,
+                northing.length, zoneNumber.length, zoneLetter.length, 
+                latitude.length, longitude.length);
+        
+        TransverseMercatorEngine engine = TransverseMercatorEngine.forContext(context);
+        
+        long iterations = 0;
+        
+        for (int i = fromIndex; i < toIndex; i++) {
             
-            numOfApproximations -= 1;
+            char hemisphere = TransverseMercatorEngine.hemisphereOfBand(
+                    zoneLetter[i]);
             
-            return calcLatitude(eccentricity, nextSigma, nextTau,
-                numOfApproximations, originalTau);
+            iterations += engine.inverse(easting[i], northing[i], zoneNumber[i],
+                    hemisphere, latitude, longitude, i);
             
         }
         
-        BigDecimal latitude = (new BigDecimal(Math.atan(currentTau.doubleValue())))
-           .multiply(new BigDecimal(180.0 / Math.PI));
-        
-        return latitude;
-        
-    }
-    
-    private static BigDecimal calcLongitude(double zoneCentralMeridian, 
-        BigDecimal etaPrime, BigDecimal xiPrime) {
-        
-        double longitudeRadians = Math.atan(Math.sinh(etaPrime.doubleValue())/
-            Math.cos(xiPrime.doubleValue()));
+        return iterations;
         
-        BigDecimal changeInLongitude = new BigDecimal(longitudeRadians*180.0/Math.PI);
-        
-        BigDecimal longitude = new BigDecimal(zoneCentralMeridian).add(changeInLongitude);
-        
-        return longitude;
     }
-
     
 }
@@ -0,0 +1,257 @@
+/*
+ * ZoneBatchScheduler.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+/**
+ * Converts batches zone by zone. The points of a batch are grouped by zone
+ * with a counting sort that keeps their original indices, each group is
+ * copied into contiguous scratch arrays and converted with the zone's
+ * central meridian computed once, and the results are scattered back into
+ * input order.
+ *
+ * A scheduler keeps its scratch arrays between batches, so one instance
+ * should be reused, but not shared between threads.
+ */
+public final class ZoneBatchScheduler {
+
+    /**
+     * Highest UTM zone.
+     */
+    static final int MAX_ZONE = 60;
+
+    private final TransverseMercatorEngine engine;
+
+    private int[] order = new int[0];
+    private double[] first = new double[0];
+    private double[] second = new double[0];
+    private double[] third = new double[0];
+    private double[] fourth = new double[0];
+    private char[] letters = new char[0];
+
+    /**
+     * @param datumName
+     */
+    public ZoneBatchScheduler(String datumName) {
+        this(TransverseMercatorEngine.forContext(
+                EllipsoidRegistry.forName(datumName)));
+    }
+
+    /**
+     * @param datum
+     */
+    public ZoneBatchScheduler(Datum datum) {
+        this(TransverseMercatorEngine.forDatum(datum));
+    }
+
+    /**
+     * @param engine used for every conversion
+     */
+    public ZoneBatchScheduler(TransverseMercatorEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Converts the points from fromIndex (inclusive) to toIndex (exclusive)
+     * of a batch to UTM. Zone numbers and letters are those of the batch
+     * LatLongToUTM.convert. Eastings and northings agree with it to within
+     * 1e-8 meters: each zone's range goes through the engine's range
+     * forward, which may use the SIMD kernel, and that kernel rounds
+     * differently from the scalar path. Points outside of 180W to 180E fall
+     * in zones beyond 1 to 60, as they do in LatLongToUTM.convert, and are
+     * projected one at a time by the scalar forward.
+     *
+     * @param latitude in degrees
+     * @param longitude in degrees
+     * @param easting receives the eastings in meters
+     * @param northing receives the northings in meters
+     * @param zoneNumber receives the zone numbers
+     * @param zoneLetter receives the latitude band letters
+     * @param fromIndex
+     * @param toIndex
+     */
+    public void toUTM(double[] latitude, double[] longitude, double[] easting,
+            double[] northing, int[] zoneNumber, char[] zoneLetter,
+            int fromIndex, int toIndex) {
+
+        TransverseMercatorEngine.checkRange(fromIndex, toIndex, latitude.length,
+                longitude.length, easting.length, northing.length,
+                zoneNumber.length, zoneLetter.length);
+
+        for (int i = fromIndex; i < toIndex; i++) {
+            zoneNumber[i] = TransverseMercatorEngine.calcZoneNumber(latitude[i],
+                    longitude[i]);
+            zoneLetter[i] = TransverseMercatorEngine.calcZoneLetter(latitude[i]);
+        }
+
+        int size = toIndex - fromIndex;
+        ensureCapacity(size);
+        int[] zoneStart = sortByZone(zoneNumber, fromIndex, toIndex, order,
+                true);
+
+        for (int i = 0; i < size; i++) {
+            first[i] = latitude[order[i]];
+            second[i] = longitude[order[i]];
+        }
+
+        for (int i = 0; i < zoneStart[1]; i++)
+            engine.forward(first[i], second[i], zoneNumber[order[i]], third,
+                    fourth, i);
+
+        for (int zone = 1; zone <= MAX_ZONE; zone++) {
+
+            if (zoneStart[zone] < zoneStart[zone + 1])
+                engine.forward(first, second, zone, third, fourth,
+                        zoneStart[zone], zoneStart[zone + 1]);
+        }
+
+        for (int i = 0; i < size; i++) {
+            easting[order[i]] = third[i];
+            northing[order[i]] = fourth[i];
+        }
+
+    }
+
+    /**
+     * Converts the coordinates from fromIndex (inclusive) to toIndex
+     * (exclusive) of a batch to latitude and longitude, with the same
+     * results as the batch UTMToLatLong.convert.
+     *
+     * @param easting in meters
+     * @param northing in meters
+     * @param zoneNumber
+     * @param zoneLetter latitude band letters
+     * @param latitude receives the latitudes in degrees
+     * @param longitude receives the longitudes in degrees
+     * @param fromIndex
+     * @param toIndex
+     * @return the total number of Newton iterations used
+     */
+    public long toLatLong(double[] easting, double[] northing, int[] zoneNumber,
+            char[] zoneLetter, double[] latitude, double[] longitude,
+            int fromIndex, int toIndex) {
+
+        TransverseMercatorEngine.checkRange(fromIndex, toIndex, easting.length,
+                northing.length, zoneNumber.length, zoneLetter.length,
+                latitude.length, longitude.length);
+
+        int size = toIndex - fromIndex;
+        ensureCapacity(size);
+        int[] zoneStart = sortByZone(zoneNumber, fromIndex, toIndex, order);
+
+        for (int i = 0; i < size; i++) {
+            first[i] = easting[order[i]];
+            second[i] = northing[order[i]];
+            letters[i] = zoneLetter[order[i]];
+        }
+
+        long iterations = 0;
+
+        for (int zone = 1; zone <= MAX_ZONE; zone++) {
+
+            if (zoneStart[zone] < zoneStart[zone + 1])
+                iterations += engine.inverse(first, second, zone, letters,
+                        third, fourth, zoneStart[zone], zoneStart[zone + 1]);
+        }
+
+        for (int i = 0; i < size; i++) {
+            latitude[order[i]] = third[i];
+            longitude[order[i]] = fourth[i];
+        }
+
+        return iterations;
+
+    }
+
+    /**
+     * Counting sort of a range of a batch by zone. Within a zone the indices
+     * keep their batch order.
+     *
+     * @param zoneNumber zone of each point, 1 to MAX_ZONE
+     * @param fromIndex
+     * @param toIndex
+     * @param order receives the batch indices sorted by zone
+     * @return the position in order of the first index of each zone, so the
+     * indices of zone z are at zoneStart[z] (inclusive) to zoneStart[z + 1]
+     * (exclusive)
+     */
+    static int[] sortByZone(int[] zoneNumber, int fromIndex, int toIndex,
+            int[] order) {
+        return sortByZone(zoneNumber, fromIndex, toIndex, order, false);
+    }
+
+    /**
+     * Counting sort of a range of a batch by zone that may keep the points
+     * of zones outside of 1 to MAX_ZONE.
+     *
+     * @param zoneNumber zone of each point
+     * @param fromIndex
+     * @param toIndex
+     * @param order receives the batch indices sorted by zone
+     * @param keepOutside if true, indices of zones outside of 1 to MAX_ZONE
+     * are put first, at 0 (inclusive) to zoneStart[1] (exclusive), otherwise
+     * such a zone throws IllegalArgumentException
+     * @return the position in order of the first index of each zone
+     */
+    static int[] sortByZone(int[] zoneNumber, int fromIndex, int toIndex,
+            int[] order, boolean keepOutside) {
+
+        int[] zoneStart = new int[MAX_ZONE + 2];
+
+        for (int i = fromIndex; i < toIndex; i++) {
+
+            int zone = zoneNumber[i];
+
+            if (zone >= 1 && zone <= MAX_ZONE)
+                zoneStart[zone + 1]++;
+            else if (keepOutside)
+                zoneStart[1]++;
+            else
+                throw new IllegalArgumentException("Invalid zone " + zone);
+        }
+
+        for (int zone = 1; zone <= MAX_ZONE; zone++)
+            zoneStart[zone + 1] += zoneStart[zone];
+
+        int[] next = zoneStart.clone();
+
+        for (int i = fromIndex; i < toIndex; i++) {
+
+            int zone = zoneNumber[i];
+
+            order[next[zone >= 1 && zone <= MAX_ZONE ? zone : 0]++] = i;
+        }
+
+        return zoneStart;
+
+    }
+
+    private void ensureCapacity(int size) {
+
+        if (order.length >= size)
+            return;
+
+        order = new int[size];
+        first = new double[size];
+        second = new double[size];
+        third = new double[size];
+        fourth = new double[size];
+        letters = new char[size];
+
+    }
+
+}
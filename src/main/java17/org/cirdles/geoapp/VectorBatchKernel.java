@@ -0,0 +1,314 @@
+/*
+ * VectorBatchKernel.java
+ *
+ * Copyright 2015 CIRDLES.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.cirdles.geoapp;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Forward projection of whole lane groups, 4 points at a time with AVX2 and
+ * 8 with AVX-512, on the incubating Java Vector API. The transcendental
+ * functions are evaluated by polynomials on reduced arguments:
+ *
+ * sin and cos by Taylor series of the half angle, below pi / 4;
+ * atan by reduction about pi / 4 and one half angle step, below 0.2;
+ * log by splitting off the binary exponent, with an atanh series below 0.18;
+ * atanh and sinh of the eccentricity terms directly, below 0.1.
+ *
+ * Every series is cut where its next term is below 1e-18, so results agree
+ * with the scalar engine to within a few nanometers. The conformal latitude
+ * uses Karney's form tau' = tau sqrt(1 + sigma^2) - sigma sqrt(1 + tau^2),
+ * and the sines and cosines of 2 xi' and 2 eta' follow algebraically from
+ * tau' and the longitude, so each point needs one log, one atan and two
+ * sine cosine pairs.
+ *
+ * Points more than 89 degrees from the equator or 45 degrees from the
+ * central meridian, where the projection is ill conditioned, fall back to
+ * the scalar engine, as do the points after the last full lane group.
+ * Loaded by BatchKernels from the multi-release jar.
+ */
+final class VectorBatchKernel implements BatchKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private static final double FALSE_EASTING = 500000.0;
+    private static final double SOUTH_HEMISPHERE_SUBTRACTION = 10000000.0;
+    private static final double DEGREES_TO_RADIANS = Math.PI / 180.0;
+    private static final double MAX_LATITUDE = 89 * DEGREES_TO_RADIANS;
+    private static final double MAX_LONGITUDE_OFFSET = 45 * DEGREES_TO_RADIANS;
+    private static final double MAX_ECCENTRICITY = 0.1;
+    private static final double TAN_PI_8 = Math.sqrt(2) - 1;
+    private static final double LN_2 = Math.log(2);
+
+    // coefficients of the series in x^2: sin(x) / x, cos(x), atanh(x) / x,
+    // sinh(x) / x, atan(x) / x and atanh(x) / x again for log
+    private static final double[] SIN = new double[9];
+    private static final double[] COS = new double[10];
+    private static final double[] ATANH = new double[9];
+    private static final double[] SINH = new double[4];
+    private static final double[] ATAN = new double[13];
+    private static final double[] LOG = new double[12];
+
+    static {
+
+        double factorial = 1;
+
+        for (int k = 0; k < 20; k++) {
+
+            if (k > 0)
+                factorial *= k;
+
+            int term = k / 2;
+            double sign = term % 2 == 0 ? 1 : -1;
+
+            if (k % 2 == 0 && term < COS.length)
+                COS[term] = sign / factorial;
+
+            if (k % 2 == 1 && term < SIN.length)
+                SIN[term] = sign / factorial;
+
+            if (k % 2 == 1 && term < SINH.length)
+                SINH[term] = 1 / factorial;
+        }
+
+        for (int k = 0; k < ATAN.length; k++)
+            ATAN[k] = (k % 2 == 0 ? 1.0 : -1.0) / (2 * k + 1);
+
+        for (int k = 0; k < ATANH.length; k++)
+            ATANH[k] = 1.0 / (2 * k + 1);
+
+        for (int k = 0; k < LOG.length; k++)
+            LOG[k] = 1.0 / (2 * k + 1);
+
+    }
+
+    private final TransverseMercatorEngine engine;
+    private final double eccentricity;
+    private final double scaledMeridianRadius;
+    private final double[] alphaSeries;
+
+    /**
+     * @param engine whose constants are used, and which projects the points
+     * the kernel does not
+     * @throws IllegalArgumentException if the datum or the hardware is
+     * outside the range of the kernel
+     */
+    VectorBatchKernel(TransverseMercatorEngine engine) {
+
+        if (!(engine.getEccentricity() <= MAX_ECCENTRICITY))
+            throw new IllegalArgumentException("Eccentricity above "
+                    + MAX_ECCENTRICITY);
+
+        if (SPECIES.length() < 2)
+            throw new IllegalArgumentException("No SIMD lanes for double");
+
+        this.engine = engine;
+        this.eccentricity = engine.getEccentricity();
+        this.scaledMeridianRadius = engine.getScaledMeridianRadius();
+        this.alphaSeries = engine.alphaSeries();
+
+    }
+
+    @Override
+    public void forward(double[] latitude, double[] longitude,
+            double centralMeridian, double[] easting, double[] northing,
+            int fromIndex, int toIndex) {
+
+        int upperBound = fromIndex + SPECIES.loopBound(toIndex - fromIndex);
+        int i = fromIndex;
+
+        for (; i < upperBound; i += SPECIES.length())
+            forward(latitude, longitude, centralMeridian, easting, northing, i);
+
+        for (; i < toIndex; i++)
+            engine.forward(latitude[i], longitude[i], centralMeridian, easting,
+                    northing, i);
+
+    }
+
+    private void forward(double[] latitudes, double[] longitudes,
+            double centralMeridian, double[] eastings, double[] northings,
+            int index) {
+
+        DoubleVector latitude = DoubleVector.fromArray(SPECIES, latitudes, index);
+        DoubleVector offset = DoubleVector.fromArray(SPECIES, longitudes, index)
+                .sub(centralMeridian);
+
+        DoubleVector phi = latitude.abs().mul(DEGREES_TO_RADIANS);
+        DoubleVector lambda = offset.abs().mul(DEGREES_TO_RADIANS);
+
+        VectorMask<Double> outside = phi.compare(VectorOperators.GT, MAX_LATITUDE)
+                .or(lambda.compare(VectorOperators.GT, MAX_LONGITUDE_OFFSET));
+
+        // sines and cosines from the half angles, below pi / 4
+        DoubleVector half = phi.mul(0.5);
+        DoubleVector halfSquared = half.mul(half);
+        DoubleVector halfSin = half.mul(series(halfSquared, SIN));
+        DoubleVector halfCos = series(halfSquared, COS);
+        DoubleVector sinOfPhi = halfSin.mul(halfCos).mul(2);
+        DoubleVector cosOfPhi = halfCos.sub(halfSin).mul(halfCos.add(halfSin));
+
+        half = lambda.mul(0.5);
+        halfSquared = half.mul(half);
+        halfSin = half.mul(series(halfSquared, SIN));
+        halfCos = series(halfSquared, COS);
+        DoubleVector sinOfLambda = halfSin.mul(halfCos).mul(2);
+        DoubleVector cosOfLambda = halfCos.sub(halfSin).mul(halfCos.add(halfSin));
+
+        // sigma = sinh(e atanh(e sin(phi))), then tau prime
+        DoubleVector eSin = sinOfPhi.mul(eccentricity);
+        DoubleVector x = eSin.mul(series(eSin.mul(eSin), ATANH)).mul(eccentricity);
+        DoubleVector sigma = x.mul(series(x.mul(x), SINH));
+        DoubleVector tauPrime = sinOfPhi.mul(sigma.mul(sigma).add(1).sqrt())
+                .sub(sigma).div(cosOfPhi);
+
+        DoubleVector cosSquared = cosOfLambda.mul(cosOfLambda);
+        DoubleVector radiusSquared = tauPrime.mul(tauPrime).add(cosSquared);
+        DoubleVector q = sinOfLambda.div(radiusSquared.sqrt());
+        DoubleVector secant = q.mul(q).add(1).sqrt();
+
+        DoubleVector xiPrime = atan2(tauPrime, cosOfLambda);
+        DoubleVector etaPrime = log(q.add(secant));
+
+        DoubleVector sinOfXi = tauPrime.mul(cosOfLambda).mul(2).div(radiusSquared);
+        DoubleVector cosOfXi = cosSquared.sub(tauPrime.mul(tauPrime))
+                .div(radiusSquared);
+        DoubleVector sinhOfEta = q.mul(secant).mul(2);
+        DoubleVector coshOfEta = q.mul(q).mul(2).add(1);
+
+        // Complex Clenshaw summation of the alpha series, as in the engine
+        DoubleVector realFactor = cosOfXi.mul(coshOfEta).mul(2);
+        DoubleVector imaginaryFactor = sinOfXi.mul(sinhOfEta).mul(-2);
+
+        DoubleVector real = DoubleVector.zero(SPECIES);
+        DoubleVector imaginary = real;
+        DoubleVector previousReal = real;
+        DoubleVector previousImaginary = real;
+
+        for (int j = alphaSeries.length - 1; j >= 0; j--) {
+
+            DoubleVector nextReal = realFactor.mul(real)
+                    .sub(imaginaryFactor.mul(imaginary)).sub(previousReal)
+                    .add(alphaSeries[j]);
+            DoubleVector nextImaginary = realFactor.mul(imaginary)
+                    .add(imaginaryFactor.mul(real)).sub(previousImaginary);
+
+            previousReal = real;
+            previousImaginary = imaginary;
+            real = nextReal;
+            imaginary = nextImaginary;
+        }
+
+        DoubleVector sinOfZetaReal = sinOfXi.mul(coshOfEta);
+        DoubleVector sinOfZetaImaginary = cosOfXi.mul(sinhOfEta);
+
+        DoubleVector xi = xiPrime.add(sinOfZetaReal.mul(real))
+                .sub(sinOfZetaImaginary.mul(imaginary));
+        DoubleVector eta = etaPrime.add(sinOfZetaReal.mul(imaginary))
+                .add(sinOfZetaImaginary.mul(real));
+
+        DoubleVector east = eta.mul(scaledMeridianRadius);
+        east = east.blend(east.neg(), offset.compare(VectorOperators.LT, 0));
+
+        DoubleVector north = xi.mul(scaledMeridianRadius);
+        north = north.blend(north.neg().add(SOUTH_HEMISPHERE_SUBTRACTION),
+                latitude.compare(VectorOperators.LT, 0));
+
+        east.add(FALSE_EASTING).intoArray(eastings, index);
+        north.intoArray(northings, index);
+
+        if (outside.anyTrue()) {
+
+            for (int lane = 0; lane < SPECIES.length(); lane++) {
+
+                if (outside.laneIsSet(lane))
+                    engine.forward(latitudes[index + lane],
+                            longitudes[index + lane], centralMeridian,
+                            eastings, northings, index + lane);
+            }
+        }
+
+    }
+
+    /**
+     * @return the sum of coefficients[k] x^k, by Horner's method
+     */
+    private static DoubleVector series(DoubleVector x, double[] coefficients) {
+
+        DoubleVector sum = DoubleVector.broadcast(SPECIES,
+                coefficients[coefficients.length - 1]);
+
+        for (int k = coefficients.length - 2; k >= 0; k--)
+            sum = sum.mul(x).add(coefficients[k]);
+
+        return sum;
+
+    }
+
+    /**
+     * @param y at least 0
+     * @param x above 0
+     * @return atan(y / x), 0 to pi / 2
+     */
+    private static DoubleVector atan2(DoubleVector y, DoubleVector x) {
+
+        // atan(t) for t = min / max in [0, 1], then pi / 2 - atan(t) if y > x
+        VectorMask<Double> swap = y.compare(VectorOperators.GT, x);
+        DoubleVector t = y.blend(x, swap).div(x.blend(y, swap));
+
+        // atan(t) = pi / 4 + atan((t - 1) / (t + 1)), below tan(pi / 8)
+        VectorMask<Double> large = t.compare(VectorOperators.GT, TAN_PI_8);
+        DoubleVector u = t.blend(t.sub(1).div(t.add(1)), large);
+
+        // atan(u) = 2 atan(u / (1 + sqrt(1 + u^2))), below 0.2
+        u = u.div(u.mul(u).add(1).sqrt().add(1));
+
+        DoubleVector angle = u.mul(series(u.mul(u), ATAN)).mul(2);
+        angle = angle.add(Math.PI / 4, large);
+
+        return angle.blend(angle.neg().add(Math.PI / 2), swap);
+
+    }
+
+    /**
+     * @param y at least 1
+     * @return the natural logarithm of y
+     */
+    private static DoubleVector log(DoubleVector y) {
+
+        LongVector bits = y.reinterpretAsLongs();
+        DoubleVector exponent = (DoubleVector) bits.lanewise(VectorOperators.LSHR, 52)
+                .sub(1023L).convert(VectorOperators.L2D, 0);
+        DoubleVector mantissa = bits.and(0x000FFFFFFFFFFFFFL)
+                .or(0x3FF0000000000000L).reinterpretAsDoubles();
+
+        // mantissa in [sqrt(1/2), sqrt(2)), so z is below 0.18
+        VectorMask<Double> high = mantissa.compare(VectorOperators.GT, Math.sqrt(2));
+        mantissa = mantissa.blend(mantissa.mul(0.5), high);
+        exponent = exponent.add(1, high);
+
+        DoubleVector z = mantissa.sub(1).div(mantissa.add(1));
+
+        return z.mul(series(z.mul(z), LOG)).mul(2).add(exponent.mul(LN_2));
+
+    }
+
+}
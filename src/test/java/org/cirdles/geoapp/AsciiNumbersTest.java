@@ -0,0 +1,78 @@
+package org.cirdles.geoapp;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the byte level number parsing and formatting in AsciiNumbers.
+ */
+public class AsciiNumbersTest {
+
+    private static double parse(String text) {
+        byte[] bytes = text.getBytes();
+        return AsciiNumbers.parseDouble(bytes, 0, bytes.length);
+    }
+
+    private static String format(double value, int decimals) {
+        byte[] bytes = new byte[64];
+        int end = AsciiNumbers.formatFixed(value, decimals, bytes, 0);
+        return new String(bytes, 0, end);
+    }
+
+    /**
+     * Test of parseDouble method, of class AsciiNumbers.
+     */
+    @Test
+    public void testParseDouble() {
+        System.out.println("parseDouble");
+        String[] texts = {"0", "-0.0", "84", "-27.11667", "+109.36667", "0.00123",
+            "465005.3449", "6.5e5", "1E-3", ".5", "5.", "123456789012345678901234",
+            "0.1234567890123456789", "1e-320", "9329005.183313048"};
+
+        for (String text : texts)
+            assertEquals(text, Double.parseDouble(text), parse(text), 0.0);
+
+        Random random = new Random(3);
+
+        for (int i = 0; i < 10000; i++) {
+            String text = Double.toString((random.nextDouble() - 0.5) * 1e7);
+            assertEquals(text, Double.parseDouble(text), parse(text), 0.0);
+        }
+    }
+
+    /**
+     * Test of parseDouble method with input that is not a number, of class
+     * AsciiNumbers.
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testParseDoubleInvalid() {
+        System.out.println("parseDouble invalid");
+        parse("12a");
+    }
+
+    /**
+     * Test of parseInt method, of class AsciiNumbers.
+     */
+    @Test
+    public void testParseInt() {
+        System.out.println("parseInt");
+        byte[] bytes = "x48,-7".getBytes();
+        assertEquals(48, AsciiNumbers.parseInt(bytes, 1, 3));
+        assertEquals(-7, AsciiNumbers.parseInt(bytes, 4, 6));
+    }
+
+    /**
+     * Test of formatFixed method, of class AsciiNumbers.
+     */
+    @Test
+    public void testFormatFixed() {
+        System.out.println("formatFixed");
+        assertEquals("465005.345", format(465005.3449, 3));
+        assertEquals("-27.116670000", format(-27.11667, 9));
+        assertEquals("0.000", format(-0.0001, 3));
+        assertEquals("10", format(9.5, 0));
+        assertEquals("NaN", format(Double.NaN, 3));
+    }
+
+}
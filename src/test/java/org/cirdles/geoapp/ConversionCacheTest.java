@@ -0,0 +1,117 @@
+package org.cirdles.geoapp;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the bounded conversion cache in ConversionCache.
+ */
+public class ConversionCacheTest {
+
+    private static final int POINTS = 1000;
+
+    /**
+     * Test of toUTM method, of class ConversionCache.
+     */
+    @Test
+    public void testToUTM() {
+        System.out.println("toUTM");
+        ConversionCache cache = new ConversionCache("WGS84", 4 * POINTS);
+        MutableUTM expected = new MutableUTM();
+        MutableUTM result = new MutableUTM();
+
+        // the second pass converts the same points again
+        for (int pass = 0; pass < 2; pass++) {
+            Random random = new Random(41);
+
+            for (int i = 0; i < POINTS; i++) {
+                double latitude = random.nextDouble() * 164.0 - 80.0;
+                double longitude = random.nextDouble() * 360.0 - 180.0;
+
+                LatLongToUTM.convertInto(latitude, longitude, Datum.WGS84,
+                        expected);
+                cache.toUTM(latitude, longitude, result);
+
+                // hits are bit for bit the fresh conversion
+                assertEquals(Double.doubleToLongBits(expected.getEasting()),
+                        Double.doubleToLongBits(result.getEasting()));
+                assertEquals(Double.doubleToLongBits(expected.getNorthing()),
+                        Double.doubleToLongBits(result.getNorthing()));
+                assertEquals(expected.getZoneNumber(), result.getZoneNumber());
+                assertEquals(expected.getZoneLetter(), result.getZoneLetter());
+                assertEquals(expected.getHemisphere(), result.getHemisphere());
+            }
+        }
+
+        assertEquals(POINTS, cache.getMissCount());
+        assertEquals(POINTS, cache.getHitCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(POINTS, cache.size());
+
+        UTM utm = cache.toUTM(84.0, 102.0);
+        assertEquals(48, utm.getZoneNumber());
+        assertEquals(LatLongToUTM.convert(84.0, 102.0, "WGS84").getEasting(),
+                utm.getEasting());
+    }
+
+    /**
+     * Test of toLatLong method, of class ConversionCache.
+     */
+    @Test
+    public void testToLatLong() {
+        System.out.println("toLatLong");
+        ConversionCache cache = new ConversionCache(Datum.NAD27, 16);
+        MutableLatLong expected = new MutableLatLong();
+        MutableLatLong result = new MutableLatLong();
+
+        for (int i = 0; i < 3; i++) {
+            UTMToLatLong.convertInto(500000.0, 4649776.22482, 17, 'N',
+                    Datum.NAD27, expected);
+            cache.toLatLong(500000.0, 4649776.22482, 17, 'N', result);
+            assertEquals(Double.doubleToLongBits(expected.getLatitude()),
+                    Double.doubleToLongBits(result.getLatitude()));
+            assertEquals(Double.doubleToLongBits(expected.getLongitude()),
+                    Double.doubleToLongBits(result.getLongitude()));
+        }
+
+        // the same coordinate south of the equator is another key
+        cache.toLatLong(500000.0, 4649776.22482, 17, 'S', result);
+        assertTrue(result.getLatitude() < 0);
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+
+    /**
+     * Test of eviction, of class ConversionCache.
+     */
+    @Test
+    public void testEviction() {
+        System.out.println("eviction");
+        ConversionCache cache = new ConversionCache(Datum.WGS84, 100);
+        MutableUTM utm = new MutableUTM();
+
+        // a hot point, hit between every new point, outlives them all
+        cache.toUTM(45.0, 7.0, utm);
+
+        for (int i = 0; i < 10 * POINTS; i++) {
+            cache.toUTM(i * 0.01 - 50.0, 20.0, utm);
+            cache.toUTM(45.0, 7.0, utm);
+        }
+
+        assertEquals(100, cache.size());
+        assertEquals(10 * POINTS, cache.getHitCount());
+        assertEquals(10 * POINTS + 1, cache.getMissCount());
+        assertEquals(10 * POINTS + 1 - 100, cache.getEvictionCount());
+
+        // every point still held is found again
+        for (int i = 10 * POINTS - 99; i < 10 * POINTS; i++)
+            cache.toUTM(i * 0.01 - 50.0, 20.0, utm);
+
+        assertEquals(10 * POINTS + 99, cache.getHitCount());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.cirdles.geoapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the coalesced single point conversions in ConversionCoalescer.
+ */
+public class ConversionCoalescerTest {
+
+    private static final int THREADS = 8;
+    private static final int POINTS = 500;
+
+    /**
+     * Test of submit method from many threads, of class ConversionCoalescer.
+     */
+    @Test
+    public void testSubmit() throws Exception {
+        System.out.println("submit");
+        final ConversionCoalescer coalescer = new ConversionCoalescer("WGS84",
+                64, 1, TimeUnit.MILLISECONDS);
+        final List<List<Future<UTM>>> results = new ArrayList<List<Future<UTM>>>();
+        final double[][] latitude = new double[THREADS][POINTS];
+        final double[][] longitude = new double[THREADS][POINTS];
+        Thread[] threads = new Thread[THREADS];
+
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            final List<Future<UTM>> futures = new ArrayList<Future<UTM>>();
+            results.add(futures);
+            Random random = new Random(t);
+
+            for (int i = 0; i < POINTS; i++) {
+                latitude[t][i] = random.nextDouble() * 164.0 - 80.0;
+                longitude[t][i] = random.nextDouble() * 360.0 - 180.0;
+            }
+
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < POINTS; i++)
+                        futures.add(coalescer.submit(latitude[thread][i],
+                                longitude[thread][i]));
+                }
+            };
+            threads[t].start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        for (int t = 0; t < THREADS; t++) {
+
+            for (int i = 0; i < POINTS; i++) {
+                UTM expected = LatLongToUTM.convert(latitude[t][i],
+                        longitude[t][i], "WGS84");
+                UTM result = results.get(t).get(i).get(10, TimeUnit.SECONDS);
+                assertEquals(expected.getEasting().doubleValue(),
+                        result.getEasting().doubleValue(), 1e-5);
+                assertEquals(expected.getNorthing().doubleValue(),
+                        result.getNorthing().doubleValue(), 1e-5);
+                assertEquals(expected.getZoneNumber(), result.getZoneNumber());
+                assertEquals(expected.getZoneLetter(), result.getZoneLetter());
+                assertEquals(expected.getHemisphere(), result.getHemisphere());
+            }
+        }
+
+        coalescer.close();
+
+        long[] histogram = coalescer.getBatchSizeHistogram();
+        long batches = 0;
+
+        for (int k = 0; k < histogram.length; k++) {
+            batches += histogram[k];
+
+            // no batch above the maximum of 64 points
+            if (k > 6)
+                assertEquals(0, histogram[k]);
+        }
+
+        assertTrue(batches >= THREADS * POINTS / 64);
+    }
+
+    /**
+     * Test of submit method with a callback, of class ConversionCoalescer.
+     */
+    @Test
+    public void testCallback() throws Exception {
+        System.out.println("submit with callback");
+        ConversionCoalescer coalescer = new ConversionCoalescer(Datum.WGS84,
+                1000, 1, TimeUnit.SECONDS);
+        final AtomicInteger zone = new AtomicInteger();
+
+        // a point without a zone is rejected before it can fail a batch
+        try {
+            coalescer.submit(10.0, 190.0);
+            fail("submitted longitude 190");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        coalescer.submit(84.0, 102.0, new ConversionCoalescer.Callback() {
+            @Override
+            public void converted(MutableUTM utm) {
+                zone.set(utm.getZoneNumber());
+            }
+
+            @Override
+            public void failed(RuntimeException e) {
+                zone.set(-1);
+            }
+        });
+
+        // closing converts the point without waiting for the delay
+        long start = System.nanoTime();
+        coalescer.close();
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(48, zone.get());
+
+        try {
+            coalescer.submit(10.0, 20.0);
+            fail("submitted after close");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.cirdles.geoapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the streaming CSV conversion in CsvBulkConverter.
+ */
+public class CsvBulkConverterTest {
+
+    private static String convert(CsvBulkConverter converter, String input)
+            throws IOException {
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        converter.convert(Channels.newChannel(new ByteArrayInputStream(
+                input.getBytes())), Channels.newChannel(output));
+
+        return output.toString();
+    }
+
+    /**
+     * Test of convert method to UTM, of class CsvBulkConverter.
+     */
+    @Test
+    public void testToUTM() throws IOException {
+        System.out.println("convert to UTM");
+        CsvBulkConverter converter = new CsvBulkConverter(
+                CsvBulkConverter.Direction.TO_UTM, "WGS84", ',', true,
+                new int[] {1, 2});
+
+        String result = convert(converter,
+                "id,lat,lon\r\na,84,102\r\n\r\nb,-27.11667, -109.36667");
+
+        String[] lines = result.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("easting,northing,zone,band", lines[0]);
+        assertTrue(lines[1].startsWith("465005.3"));
+        assertTrue(lines[1].endsWith(",48,X"));
+        assertTrue(lines[2].endsWith(",12,J"));
+    }
+
+    /**
+     * Test that converting a large input to UTM and back with TSV returns the
+     * original coordinates, with lines crossing buffer boundaries.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        System.out.println("round trip");
+        StringBuilder input = new StringBuilder();
+        int rows = 100000;
+
+        for (int i = 0; i < rows; i++)
+            input.append(-79.0 + (i % 1630) * 0.1).append('\t')
+                    .append(-179.5 + (i % 3590) * 0.1).append('\n');
+
+        String utm = convert(new CsvBulkConverter(
+                CsvBulkConverter.Direction.TO_UTM, "NAD27", '\t', false,
+                new int[] {0, 1}), input.toString());
+
+        String latLong = convert(new CsvBulkConverter(
+                CsvBulkConverter.Direction.TO_LAT_LONG, "NAD27", '\t', false,
+                new int[] {0, 1, 2, 3}), utm);
+
+        String[] lines = latLong.split("\n");
+        assertEquals(rows, lines.length);
+
+        for (int i = 0; i < rows; i += 997) {
+            String[] fields = lines[i].split("\t");
+            assertEquals(-79.0 + (i % 1630) * 0.1, Double.parseDouble(fields[0]), 1e-7);
+            assertEquals(-179.5 + (i % 3590) * 0.1, Double.parseDouble(fields[1]), 1e-7);
+        }
+    }
+
+    /**
+     * Test of convert method with a row missing a column, of class
+     * CsvBulkConverter.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingColumn() throws IOException {
+        System.out.println("missing column");
+        convert(new CsvBulkConverter(CsvBulkConverter.Direction.TO_UTM,
+                "WGS84", ',', false, new int[] {0, 1}), "84,102\n85\n");
+    }
+
+    /**
+     * Test of convert method with a row outside of the latitude bands, of
+     * class CsvBulkConverter.
+     */
+    @Test
+    public void testInvalidBand() throws IOException {
+        System.out.println("invalid band");
+        CsvBulkConverter converter = new CsvBulkConverter(
+                CsvBulkConverter.Direction.TO_LAT_LONG, "WGS84", ',', false,
+                new int[] {0, 1, 2, 3});
+
+        try {
+            convert(converter, "465005,9329005,48,X\n465005,9329005,48,Z\n");
+            fail("converted band Z");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 2: "));
+        }
+    }
+
+}
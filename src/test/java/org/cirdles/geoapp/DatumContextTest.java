@@ -0,0 +1,69 @@
+package org.cirdles.geoapp;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the per datum constants in DatumContext.
+ */
+public class DatumContextTest {
+
+    /**
+     * Test of forDatum method, of class DatumContext.
+     */
+    @Test
+    public void testForDatum() {
+        System.out.println("forDatum");
+        DatumContext context = DatumContext.forDatum(Datum.WGS84);
+
+        assertSame(context, DatumContext.forDatum(Datum.WGS84));
+        assertNotSame(context, DatumContext.forDatum(Datum.NAD27));
+
+        assertEquals(0.9996 * 6367449.146, context.getScaledMeridianRadius(), 1e-9);
+        assertEquals(Datum.WGS84.getEccentricity(), context.getEccentricity(), 0.0);
+
+        // Karney's values for WGS84; the polar radius of Datum is rounded to
+        // the millimeter, which moves n by 2e-11
+        double[] alphaSeries = context.getAlphaSeries();
+        assertEquals(7, alphaSeries.length);
+        assertEquals(8.3773182062446983e-4, alphaSeries[0], 1e-10);
+        assertEquals(7.6085277735724894e-7, alphaSeries[1], 1e-13);
+        assertEquals(1.1976455033294527e-9, alphaSeries[2], 1e-15);
+    }
+
+    /**
+     * Test of getBetaSeries method, of class DatumContext.
+     */
+    @Test
+    public void testBetaSeries() {
+        System.out.println("betaSeries");
+        double[] betaSeries = DatumContext.forDatum(Datum.WGS84).getBetaSeries();
+
+        assertEquals(7, betaSeries.length);
+        assertEquals(8.3773216405794867e-4, betaSeries[0], 1e-10);
+        assertEquals(5.9058701522203651e-8, betaSeries[1], 1e-14);
+        assertEquals(1.6734826652839968e-10, betaSeries[2], 1e-16);
+        assertEquals(2.1647980400627059e-13, betaSeries[3], 1e-18);
+    }
+
+    /**
+     * Test that the forward and inverse series of a datum undo each other,
+     * of class DatumContext.
+     */
+    @Test
+    public void testRoundTrip() {
+        System.out.println("round trip");
+
+        for (Datum datum : Datum.values()) {
+            MutableUTM utm = new MutableUTM();
+            MutableLatLong latLong = new MutableLatLong();
+
+            LatLongToUTM.convertInto(60.39, 5.32, datum, utm);
+            UTMToLatLong.convertInto(utm, datum, latLong);
+
+            assertEquals(datum.name(), 60.39, latLong.getLatitude(), 1e-11);
+            assertEquals(datum.name(), 5.32, latLong.getLongitude(), 1e-11);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.cirdles.geoapp;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the name lookup of Datum.
+ */
+public class DatumTest {
+
+    /**
+     * Test of fromName method, of class Datum.
+     */
+    @Test
+    public void testFromName() {
+        System.out.println("fromName");
+        for (Datum datum : Datum.values()) {
+            assertSame(datum, Datum.fromName(datum.name()));
+            assertSame(datum, Datum.fromName(datum.getDatum()));
+        }
+
+        assertSame(Datum.AGD65, Datum.fromName("Australian 1965"));
+        assertSame(Datum.KRASOVSKY_1940, Datum.fromName("krasovsky-1940"));
+        assertSame(Datum.BESSEL_1841, Datum.fromName("Bessel 1841"));
+        assertSame(Datum.WGS84, Datum.fromName(" wgs84 "));
+        assertSame(Datum.WGS84, Datum.fromName("EPSG:4326"));
+        assertSame(Datum.NAD27, Datum.fromName("epsg:4267"));
+        assertSame(Datum.CLARKE_1866, Datum.fromName("EPSG:7008"));
+    }
+
+    /**
+     * Test of fromName method with an unknown name, of class Datum.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromNameUnknown() {
+        System.out.println("fromName unknown");
+        Datum.fromName("MARS 2000");
+    }
+
+}
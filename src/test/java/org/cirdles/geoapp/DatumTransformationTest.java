@@ -0,0 +1,175 @@
+package org.cirdles.geoapp;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the Helmert and Molodensky transformations in DatumTransformation.
+ */
+public class DatumTransformationTest {
+
+    private static final int POINTS = 1000;
+
+    private static double[] randomLatitudes(Random random) {
+
+        double[] latitude = new double[POINTS];
+
+        for (int i = 0; i < POINTS; i++)
+            latitude[i] = random.nextDouble() * 164.0 - 80.0;
+
+        return latitude;
+
+    }
+
+    private static double[] randomLongitudes(Random random) {
+
+        double[] longitude = new double[POINTS];
+
+        for (int i = 0; i < POINTS; i++)
+            longitude[i] = random.nextDouble() * 360.0 - 180.0;
+
+        return longitude;
+
+    }
+
+    /**
+     * Test of transform method with a zero Helmert transformation, of class
+     * DatumTransformation.
+     */
+    @Test
+    public void testHelmertIdentity() {
+        System.out.println("transform identity");
+        Random random = new Random(23);
+        double[] latitude = randomLatitudes(random);
+        double[] longitude = randomLongitudes(random);
+        double[] height = new double[POINTS];
+
+        for (int i = 0; i < POINTS; i++)
+            height[i] = random.nextDouble() * 9000.0 - 500.0;
+
+        DatumTransformation identity = DatumTransformation.helmert(Datum.NAD27,
+                Datum.NAD27, 0, 0, 0, 0, 0, 0, 0);
+
+        double[] resultLatitude = new double[POINTS];
+        double[] resultLongitude = new double[POINTS];
+        double[] resultHeight = new double[POINTS];
+        identity.transform(latitude, longitude, height, resultLatitude,
+                resultLongitude, resultHeight, 0, POINTS);
+
+        assertArrayEquals(latitude, resultLatitude, 1e-10);
+        assertArrayEquals(longitude, resultLongitude, 1e-10);
+        assertArrayEquals(height, resultHeight, 1e-5);
+    }
+
+    /**
+     * Test of forDatums and inverse methods for WGS72, of class
+     * DatumTransformation.
+     */
+    @Test
+    public void testHelmertWGS72() {
+        System.out.println("helmert WGS72");
+        DatumTransformation toWGS84
+                = DatumTransformation.forDatums(Datum.WGS72, Datum.WGS84);
+        assertTrue(toWGS84.isHelmert());
+
+        double[] point = new double[3];
+        toWGS84.transform(45.0, 10.0, 0.0, point);
+
+        // the rotation about the z axis moves every point 0.554 seconds east
+        assertEquals(10.0 + 0.554 / 3600, point[1], 1e-9);
+
+        DatumTransformation back
+                = DatumTransformation.forDatums(Datum.WGS84, Datum.WGS72);
+        double[] original = new double[3];
+        back.transform(point[0], point[1], point[2], original);
+
+        assertEquals(45.0, original[0], 1e-10);
+        assertEquals(10.0, original[1], 1e-10);
+        assertEquals(0.0, original[2], 1e-5);
+    }
+
+    /**
+     * Test of molodensky method against the equivalent three parameter
+     * Helmert transformation, of class DatumTransformation.
+     */
+    @Test
+    public void testMolodenskyAgreesWithHelmert() {
+        System.out.println("molodensky");
+        Random random = new Random(29);
+        double[] latitude = randomLatitudes(random);
+        double[] longitude = randomLongitudes(random);
+
+        DatumTransformation molodensky
+                = DatumTransformation.forDatums(Datum.NAD27, Datum.WGS84);
+        DatumTransformation helmert = DatumTransformation.helmert(Datum.NAD27,
+                Datum.WGS84, -8, 160, 176, 0, 0, 0, 0);
+        assertFalse(molodensky.isHelmert());
+
+        double[] molodenskyLatitude = new double[POINTS];
+        double[] molodenskyLongitude = new double[POINTS];
+        double[] helmertLatitude = new double[POINTS];
+        double[] helmertLongitude = new double[POINTS];
+
+        molodensky.transform(latitude, longitude, null, molodenskyLatitude,
+                molodenskyLongitude, null, 0, POINTS);
+        helmert.transform(latitude, longitude, null, helmertLatitude,
+                helmertLongitude, null, 0, POINTS);
+
+        // about 10 cm, the usual agreement of the standard formulas
+        for (int i = 0; i < POINTS; i++) {
+            assertEquals(helmertLatitude[i], molodenskyLatitude[i], 1e-6);
+            assertEquals(0.0, (helmertLongitude[i] - molodenskyLongitude[i])
+                    * Math.cos(Math.toRadians(latitude[i])), 1e-6);
+        }
+    }
+
+    /**
+     * Test of toUTM method, of class DatumTransformation.
+     */
+    @Test
+    public void testToUTM() {
+        System.out.println("toUTM");
+        Random random = new Random(31);
+        double[] latitude = randomLatitudes(random);
+        double[] longitude = randomLongitudes(random);
+
+        DatumTransformation transformation
+                = DatumTransformation.forDatums(Datum.AGD65, Datum.WGS84);
+
+        double[] transformedLatitude = new double[POINTS];
+        double[] transformedLongitude = new double[POINTS];
+        transformation.transform(latitude, longitude, null, transformedLatitude,
+                transformedLongitude, null, 0, POINTS);
+
+        double[] easting = new double[POINTS];
+        double[] northing = new double[POINTS];
+        int[] zoneNumber = new int[POINTS];
+        char[] zoneLetter = new char[POINTS];
+        LatLongToUTM.convert(transformedLatitude, transformedLongitude, "WGS84",
+                easting, northing, zoneNumber, zoneLetter);
+
+        double[] fusedEasting = new double[POINTS];
+        double[] fusedNorthing = new double[POINTS];
+        int[] fusedZoneNumber = new int[POINTS];
+        char[] fusedZoneLetter = new char[POINTS];
+        transformation.toUTM(latitude, longitude, null, fusedEasting,
+                fusedNorthing, fusedZoneNumber, fusedZoneLetter, 0, POINTS);
+
+        assertArrayEquals(easting, fusedEasting, 0.0);
+        assertArrayEquals(northing, fusedNorthing, 0.0);
+        assertArrayEquals(zoneNumber, fusedZoneNumber);
+        assertArrayEquals(zoneLetter, fusedZoneLetter);
+    }
+
+    /**
+     * Test of forDatums method with an unknown pair, of class
+     * DatumTransformation.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testForDatumsUnknown() {
+        System.out.println("forDatums unknown");
+        DatumTransformation.forDatums(Datum.WGS84, Datum.AIRY_1830);
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.cirdles.geoapp;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the runtime ellipsoids of EllipsoidRegistry.
+ */
+public class EllipsoidRegistryTest {
+
+    private static final double WGS84_FLATTENING = 1 / 298.257223563;
+
+    /**
+     * Test of register method, of class EllipsoidRegistry.
+     */
+    @Test
+    public void testRegister() {
+        System.out.println("register");
+        DatumContext context = EllipsoidRegistry.register("Test WGS84",
+                6378137.0, WGS84_FLATTENING);
+
+        // values from Karney, "Transverse Mercator with an accuracy of a few
+        // nanometers", section 8
+        assertEquals(1.679220386383705e-3, context.getFlattening3D(), 1e-17);
+        assertEquals(0.0818191908426215, context.getEccentricity(), 1e-15);
+        assertEquals(6367449.14582341, context.getMeridianRadius(), 1e-6);
+        assertEquals(8.377318206244698e-4, context.getAlphaSeries()[0], 1e-15);
+        assertEquals(7.608527773572307e-7, context.getAlphaSeries()[1], 1e-18);
+        assertEquals(8.377321640579488e-4, context.getBetaSeries()[0], 1e-15);
+
+        assertSame(context, EllipsoidRegistry.register("TEST_WGS84", 6378137.0,
+                WGS84_FLATTENING));
+        assertSame(context, EllipsoidRegistry.get("test wgs84"));
+        assertSame(context, EllipsoidRegistry.forName("Test-WGS84"));
+        assertSame(DatumContext.forDatum(Datum.NAD27),
+                EllipsoidRegistry.forName("NAD27"));
+    }
+
+    /**
+     * Test of the converters with a registered ellipsoid, of class
+     * EllipsoidRegistry.
+     */
+    @Test
+    public void testConvert() {
+        System.out.println("convert with registered ellipsoid");
+        EllipsoidRegistry.register("Test GRS80", 6378137.0, 1 / 298.257222101);
+
+        UTM utm = LatLongToUTM.convert(-27.11667, -109.36667, "Test GRS80");
+        UTM expected = LatLongToUTM.convert(-27.11667, -109.36667, Datum.GRS80);
+
+        assertEquals(expected.getEasting().doubleValue(),
+                utm.getEasting().doubleValue(), 0.01);
+        assertEquals(expected.getNorthing().doubleValue(),
+                utm.getNorthing().doubleValue(), 0.01);
+
+        LatLong latLong = UTMToLatLong.toLatLong(utm, "test grs80");
+
+        assertEquals(-27.11667, latLong.getLatitude(), 1e-9);
+        assertEquals(-109.36667, latLong.getLongitude(), 1e-9);
+    }
+
+    /**
+     * Test of register method with conflicting names, of class
+     * EllipsoidRegistry.
+     */
+    @Test
+    public void testRegisterConflict() {
+        System.out.println("register conflict");
+        EllipsoidRegistry.register("Test Conflict", 6378000.0, 0.003);
+
+        try {
+            EllipsoidRegistry.register("Test Conflict", 6378001.0, 0.003);
+            fail("Registered a name twice");
+        } catch (IllegalArgumentException e) {
+        }
+
+        try {
+            EllipsoidRegistry.register("wgs84", 6378137.0, WGS84_FLATTENING);
+            fail("Registered a built in name");
+        } catch (IllegalArgumentException e) {
+        }
+
+        try {
+            EllipsoidRegistry.forName("Test Unknown");
+            fail("Found an unknown name");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+}
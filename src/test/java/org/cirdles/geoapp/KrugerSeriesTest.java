@@ -126,5 +126,128 @@ public class KrugerSeriesTest {
                 RoundingMode.HALF_UP);
         assertEquals(expResult, result);
     }
+
+    /**
+     * Test of beta1 method, of class KrugerSeries.
+     */
+    @Test
+    public void testBeta1() {
+        System.out.println("beta1");
+        BigDecimal flattening3D = new BigDecimal(0.00167922);
+        BigDecimal expResult = new BigDecimal("0.000837731972");
+        BigDecimal result = (KrugerSeries.beta1(flattening3D)).setScale(12, 
+                RoundingMode.HALF_UP);
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of beta2 method, of class KrugerSeries.
+     */
+    @Test
+    public void testBeta2() {
+        System.out.println("beta2");
+        BigDecimal flattening3D = new BigDecimal(0.00167922);
+        BigDecimal expResult = new BigDecimal("0.0000000590586743");
+        BigDecimal result = (KrugerSeries.beta2(flattening3D)).setScale(16, 
+                RoundingMode.HALF_UP);
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of beta3 method, of class KrugerSeries.
+     */
+    @Test
+    public void testBeta3() {
+        System.out.println("beta3");
+        BigDecimal flattening3D = new BigDecimal(0.00167922);
+        BigDecimal expResult = new BigDecimal("0.000000000167348151");
+        BigDecimal result = (KrugerSeries.beta3(flattening3D)).setScale(18, 
+                RoundingMode.HALF_UP);
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of beta4 method, of class KrugerSeries.
+     */
+    @Test
+    public void testBeta4() {
+        System.out.println("beta4");
+        BigDecimal flattening3D = new BigDecimal(0.00167922);
+        BigDecimal expResult = new BigDecimal("0.000000000000216479612");
+        BigDecimal result = (KrugerSeries.beta4(flattening3D)).setScale(21, 
+                RoundingMode.HALF_UP);
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of beta5 method, of class KrugerSeries.
+     */
+    @Test
+    public void testBeta5() {
+        System.out.println("beta5");
+        BigDecimal flattening3D = new BigDecimal(0.00167922);
+        BigDecimal expResult = new BigDecimal("0.000000000000000378792661");
+        BigDecimal result = (KrugerSeries.beta5(flattening3D)).setScale(24, 
+                RoundingMode.HALF_UP);
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of beta6 method, of class KrugerSeries.
+     */
+    @Test
+    public void testBeta6() {
+        System.out.println("beta6");
+        BigDecimal flattening3D = new BigDecimal(0.00167922);
+        BigDecimal expResult = new BigDecimal("0.000000000000000000723675930");
+        BigDecimal result = (KrugerSeries.beta6(flattening3D)).setScale(27, 
+                RoundingMode.HALF_UP);
+        assertEquals(expResult, result);
+    }
+    
+
+    /**
+     * Test of alphaSeries method, of class KrugerSeries.
+     */
+    @Test
+    public void testAlphaSeries() {
+        System.out.println("alphaSeries");
+        double n = 0.00167922;
+        BigDecimal flattening3D = new BigDecimal(n);
+        BigDecimal[] expResult = {
+            KrugerSeries.alpha1(flattening3D), KrugerSeries.alpha2(flattening3D),
+            KrugerSeries.alpha3(flattening3D), KrugerSeries.alpha4(flattening3D),
+            KrugerSeries.alpha5(flattening3D), KrugerSeries.alpha6(flattening3D),
+            KrugerSeries.alpha7(flattening3D)
+        };
+        double[] result = KrugerSeries.alphaSeries(n);
+        
+        assertEquals(expResult.length, result.length);
+        for (int i = 0; i < result.length; i++)
+            assertEquals(expResult[i].doubleValue(), result[i], 
+                    Math.abs(result[i]) * 1e-14);
+    }
+
+    /**
+     * Test of betaSeries method, of class KrugerSeries.
+     */
+    @Test
+    public void testBetaSeries() {
+        System.out.println("betaSeries");
+        double n = 0.00167922;
+        BigDecimal flattening3D = new BigDecimal(n);
+        BigDecimal[] expResult = {
+            KrugerSeries.beta1(flattening3D), KrugerSeries.beta2(flattening3D),
+            KrugerSeries.beta3(flattening3D), KrugerSeries.beta4(flattening3D),
+            KrugerSeries.beta5(flattening3D), KrugerSeries.beta6(flattening3D),
+            KrugerSeries.beta7(flattening3D)
+        };
+        double[] result = KrugerSeries.betaSeries(n);
+        
+        assertEquals(expResult.length, result.length);
+        for (int i = 0; i < result.length; i++)
+            assertEquals(expResult[i].doubleValue(), result[i], 
+                    Math.abs(result[i]) * 1e-14);
+    }
     
 }
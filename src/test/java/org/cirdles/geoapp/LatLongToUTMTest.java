@@ -5,11 +5,13 @@
  */
 package org.cirdles.geoapp;
 
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
+import org.junit.Assume;
 import static org.junit.Assert.*;
 
 /**
@@ -176,6 +178,151 @@ public class LatLongToUTMTest {
         // TODO review the generated test code and remove the default call to fail.
         //fail("The test case is a prototype.");
     }
+    
+    /**
+     * Test of convert method in the special zones of Norway and Svalbard, of
+     * class LatLongToUTM.
+     */
+    @org.junit.Test
+    public void testConvertSpecialZones() {
+        System.out.println("convert special zones");
+
+        // Bergen
+        UTM result = LatLongToUTM.convert(60.39, 5.32, Datum.WGS84);
+        assertEquals(32, result.getZoneNumber());
+        assertEquals('V', result.getZoneLetter());
+        double[] easting = new double[1];
+        TransverseMercatorEngine.forDatum(Datum.WGS84).forward(60.39, 5.32, 32,
+                easting, new double[1], 0);
+        assertEquals(easting[0], result.getEasting().doubleValue(), 1e-3);
+
+        // Longyearbyen
+        result = LatLongToUTM.convert(78.22, 15.65, Datum.WGS84);
+        assertEquals(33, result.getZoneNumber());
+        assertEquals('X', result.getZoneLetter());
 
+        double[] latitude = {60.39, 78.22};
+        double[] longitude = {5.32, 15.65};
+        int[] zoneNumber = new int[2];
+        LatLongToUTM.convert(latitude, longitude, Datum.WGS84, new double[2],
+                new double[2], zoneNumber, new char[2]);
+        assertArrayEquals(new int[]{32, 33}, zoneNumber);
+    }
+
+    /**
+     * Test of batch convert method, of class LatLongToUTM.
+     */
+    @org.junit.Test
+    public void testConvertBatch() {
+        System.out.println("convert batch");
+        double[] latitude = {84.0, 0.0, -21.0, 32.0, -27.11667};
+        double[] longitude = {102.0, 0.0, 17.0, -122.0, -109.36667};
+        
+        double[] easting = new double[latitude.length];
+        double[] northing = new double[latitude.length];
+        int[] zoneNumber = new int[latitude.length];
+        char[] zoneLetter = new char[latitude.length];
+        
+        LatLongToUTM.convert(latitude, longitude, "WGS84", easting, northing,
+                zoneNumber, zoneLetter);
+        
+        for (int i = 0; i < latitude.length; i++) {
+            
+            UTM expected = LatLongToUTM.convert(latitude[i], longitude[i], "WGS84");
+            
+            assertEquals(expected.getEasting().doubleValue(), easting[i], 1e-6);
+            assertEquals(expected.getNorthing().doubleValue(), northing[i], 1e-6);
+            assertEquals(expected.getZoneNumber(), zoneNumber[i]);
+            assertEquals(expected.getZoneLetter(), zoneLetter[i]);
+        }
+    }
+    
+    /**
+     * Test of batch convert method with a range shorter than the arrays, of 
+     * class LatLongToUTM.
+     */
+    @org.junit.Test(expected = IllegalArgumentException.class)
+    public void testConvertBatchRange() {
+        System.out.println("convert batch range");
+        double[] latitude = new double[4];
+        double[] easting = new double[2];
+        
+        LatLongToUTM.convert(latitude, latitude, "WGS84", easting, easting,
+                new int[4], new char[4], 0, 4);
+    }
+    
+    /**
+     * Test of convertInto method, of class LatLongToUTM.
+     */
+    @org.junit.Test
+    public void testConvertInto() {
+        System.out.println("convertInto");
+        MutableUTM utm = new MutableUTM();
+        
+        LatLongToUTM.convertInto(-27.11667, -109.36667, Datum.WGS84, utm);
+        UTM expected = LatLongToUTM.convert(-27.11667, -109.36667, "WGS84");
+        
+        assertEquals(expected.getEasting().doubleValue(), utm.getEasting(), 1e-9);
+        assertEquals(expected.getNorthing().doubleValue(), utm.getNorthing(), 1e-9);
+        assertEquals(12, utm.getZoneNumber());
+        assertEquals('J', utm.getZoneLetter());
+        assertEquals('S', utm.getHemisphere());
+        assertEquals(expected.getEasting(), utm.toUTM().getEasting());
+    }
+    
+    /**
+     * Test that convertInto does not allocate, of class LatLongToUTM.
+     */
+    @org.junit.Test
+    public void testConvertIntoAllocation() {
+        System.out.println("convertInto allocation");
+        Assume.assumeTrue(allocatedBytes() >= 0);
+        
+        MutableUTM utm = new MutableUTM();
+        double sum = 0;
+        
+        // warm up so the measured loop runs compiled code
+        for (int i = 0; i < 200000; i++) {
+            LatLongToUTM.convertInto((i % 160) - 79.5, (i % 359) - 179.5, 
+                    Datum.WGS84, utm);
+            sum += utm.getNorthing();
+        }
+        
+        long before = allocatedBytes();
+        
+        for (int i = 0; i < 100000; i++) {
+            LatLongToUTM.convertInto((i % 160) - 79.5, (i % 359) - 179.5, 
+                    Datum.WGS84, utm);
+            sum += utm.getNorthing();
+        }
+        
+        long allocated = allocatedBytes() - before;
+        
+        assertTrue(sum > 0);
+        // one object per conversion would be at least 16 bytes a call; allow
+        // for the odd allocation by the JIT or the bean itself
+        assertTrue("allocated " + allocated + " bytes", allocated < 100000);
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, or -1 if the
+     * JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        
+        com.sun.management.ThreadMXBean threads 
+                = (com.sun.management.ThreadMXBean) bean;
+        
+        if (!threads.isThreadAllocatedMemorySupported()
+                || !threads.isThreadAllocatedMemoryEnabled())
+            return -1;
+        
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
     
 }
@@ -0,0 +1,135 @@
+package org.cirdles.geoapp;
+
+import java.nio.CharBuffer;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the Military Grid Reference System references in MGRS.
+ */
+public class MGRSTest {
+
+    private static final int POINTS = 2000;
+
+    /**
+     * Test of encode method, of class MGRS.
+     */
+    @Test
+    public void testEncode() {
+        System.out.println("encode");
+        char[] reference = new char[20];
+
+        int length = MGRS.encode(323487.9, 4306479.3, 18, 'S', 1, reference, 2);
+        assertEquals(15, length);
+        assertEquals("18SUJ2348706479", new String(reference, 2, length));
+
+        length = MGRS.encode(612345.0, 2312345.0, 4, 'Q', 1000, reference, 0);
+        assertEquals(9, length);
+        assertEquals("04QFJ1212", new String(reference, 0, length));
+
+        length = MGRS.encode(612345.0, 2312345.0, 4, 'Q', 10000, reference, 0);
+        assertEquals("04QFJ11", new String(reference, 0, length));
+
+        CharBuffer heap = CharBuffer.allocate(32);
+        MGRS.encode(323487.9, 4306479.3, 18, 'S', 10, heap);
+        heap.flip();
+        assertEquals("18SUJ23480647", heap.toString());
+
+        CharBuffer direct = java.nio.ByteBuffer.allocateDirect(64).asCharBuffer();
+        MGRS.encode(323487.9, 4306479.3, 18, 'S', 100, direct);
+        direct.flip();
+        assertEquals("18SUJ234064", direct.toString());
+    }
+
+    /**
+     * Test of decode method, of class MGRS.
+     */
+    @Test
+    public void testDecode() {
+        System.out.println("decode");
+        MutableUTM utm = new MutableUTM();
+
+        char[] reference = "xx18SUJ2348706479".toCharArray();
+        MGRS.decode(reference, 2, 15, utm);
+        assertEquals(323487.0, utm.getEasting(), 0.0);
+        assertEquals(4306479.0, utm.getNorthing(), 0.0);
+        assertEquals(18, utm.getZoneNumber());
+        assertEquals('S', utm.getZoneLetter());
+        assertEquals('N', utm.getHemisphere());
+
+        MGRS.decode(CharBuffer.wrap("4Q FJ 12 12"), utm);
+        assertEquals(612000.0, utm.getEasting(), 0.0);
+        assertEquals(2312000.0, utm.getNorthing(), 0.0);
+        assertEquals(4, utm.getZoneNumber());
+
+        MGRS.decode("56hlh", utm);
+        assertEquals('S', utm.getHemisphere());
+        assertEquals(300000.0, utm.getEasting(), 0.0);
+    }
+
+    /**
+     * Test of decode method with invalid references, of class MGRS.
+     */
+    @Test
+    public void testDecodeInvalid() {
+        System.out.println("decode invalid");
+        MutableUTM utm = new MutableUTM();
+        String[] invalid = {"", "18", "18SUJ123", "61SUJ", "18IUJ", "18SAJ",
+            "18SUW", "18SUJ12a4"};
+
+        for (String reference : invalid) {
+
+            try {
+                MGRS.decode(reference, utm);
+                fail(reference);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Test of the batch encode and decode methods, of class MGRS.
+     */
+    @Test
+    public void testRoundTrip() {
+        System.out.println("encode and decode batch");
+        Random random = new Random(37);
+
+        double[] latitude = new double[POINTS];
+        double[] longitude = new double[POINTS];
+
+        for (int i = 0; i < POINTS; i++) {
+            latitude[i] = random.nextDouble() * 164.0 - 80.0;
+            longitude[i] = random.nextDouble() * 360.0 - 180.0;
+        }
+
+        double[] easting = new double[POINTS];
+        double[] northing = new double[POINTS];
+        int[] zoneNumber = new int[POINTS];
+        char[] zoneLetter = new char[POINTS];
+        LatLongToUTM.convert(latitude, longitude, Datum.WGS84, easting,
+                northing, zoneNumber, zoneLetter);
+
+        char[] references = new char[POINTS * MGRS.length(1)];
+        MGRS.encode(easting, northing, zoneNumber, zoneLetter, 1, references,
+                0, POINTS);
+
+        double[] decodedEasting = new double[POINTS];
+        double[] decodedNorthing = new double[POINTS];
+        int[] decodedZoneNumber = new int[POINTS];
+        char[] decodedZoneLetter = new char[POINTS];
+        MGRS.decode(references, 1, decodedEasting, decodedNorthing,
+                decodedZoneNumber, decodedZoneLetter, 0, POINTS);
+
+        for (int i = 0; i < POINTS; i++) {
+            assertEquals(Math.floor(easting[i]), decodedEasting[i], 0.0);
+            assertEquals(Math.floor(northing[i]), decodedNorthing[i], 0.0);
+        }
+
+        assertArrayEquals(zoneNumber, decodedZoneNumber);
+        assertArrayEquals(zoneLetter, decodedZoneLetter);
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.cirdles.geoapp;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the packed UTM encoding in PackedUTM.
+ */
+public class PackedUTMTest {
+
+    /**
+     * Test of encode and decode methods, of class PackedUTM.
+     */
+    @Test
+    public void testEncodeDecode() {
+        System.out.println("encode and decode");
+        UTM utm = LatLongToUTM.convert(-27.11667, -109.36667, "WGS84");
+
+        PackedUTM packed = PackedUTM.encode(utm);
+        UTM decoded = packed.decode();
+
+        assertEquals(12, packed.getZoneNumber());
+        assertEquals('J', packed.getZoneLetter());
+        assertEquals('S', packed.getHemisphere());
+        assertEquals(utm.getEasting().doubleValue(), packed.getEasting(), 0.0005);
+        assertEquals(utm.getNorthing().doubleValue(), packed.getNorthing(), 0.0005);
+
+        assertEquals(utm.getEasting().setScale(3, RoundingMode.HALF_UP),
+                decoded.getEasting());
+        assertEquals(utm.getNorthing().setScale(3, RoundingMode.HALF_UP),
+                decoded.getNorthing());
+        assertEquals(utm.getZoneNumber(), decoded.getZoneNumber());
+        assertEquals(utm.getZoneLetter(), decoded.getZoneLetter());
+        assertEquals(utm.getHemisphere(), decoded.getHemisphere());
+
+        MutableUTM mutable = new MutableUTM();
+        LatLongToUTM.convertInto(-27.11667, -109.36667, Datum.WGS84, mutable);
+        assertEquals(packed, PackedUTM.encode(mutable));
+    }
+
+    /**
+     * Test of toMillimeters method, of class PackedUTM.
+     */
+    @Test
+    public void testToMillimeters() {
+        System.out.println("toMillimeters");
+        assertEquals(465005345L, PackedUTM.toMillimeters(465005.3453));
+        assertEquals(465005346L, PackedUTM.toMillimeters(465005.3455));
+        assertEquals(-2L, PackedUTM.toMillimeters(-0.0015));
+        assertEquals(9329005183L, PackedUTM.toMillimeters(9329005.1833));
+    }
+
+    /**
+     * Test of equals, hashCode and compareTo methods, of class PackedUTM.
+     */
+    @Test
+    public void testOrder() {
+        System.out.println("equals, hashCode and compareTo");
+        PackedUTM a = new PackedUTM(500000.0, 100.0, 31, 'N', 'N');
+        PackedUTM b = new PackedUTM(500000.0004, 100.0, 31, 'N', 'N');
+        PackedUTM c = new PackedUTM(400000.0, 200.0, 31, 'P', 'N');
+        PackedUTM d = new PackedUTM(300000.0, 9000000.0, 31, 'M', 'S');
+        PackedUTM e = new PackedUTM(300000.0, 50.0, 2, 'X', 'N');
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(0, a.compareTo(b));
+        assertFalse(a.equals(c));
+
+        PackedUTM[] sorted = {c, a, d, e};
+        Arrays.sort(sorted);
+        assertArrayEquals(new PackedUTM[] {e, d, a, c}, sorted);
+
+        Set<PackedUTM> unique = new HashSet<PackedUTM>(Arrays.asList(a, b, c, d, e));
+        assertEquals(4, unique.size());
+    }
+
+    /**
+     * Test of pack method with an invalid hemisphere, of class PackedUTM.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testPackInvalid() {
+        System.out.println("pack invalid");
+        PackedUTM.pack(31, 'N', 'X');
+    }
+
+}
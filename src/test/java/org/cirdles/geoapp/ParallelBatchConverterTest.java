@@ -0,0 +1,79 @@
+package org.cirdles.geoapp;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that ParallelBatchConverter matches the sequential batch conversions.
+ */
+public class ParallelBatchConverterTest {
+
+    private static final int POINTS = 2000;
+
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void setUpClass() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        pool.shutdown();
+    }
+
+    /**
+     * Test of toUTM and toLatLong methods, of class ParallelBatchConverter.
+     */
+    @Test
+    public void testMatchesSequential() {
+        System.out.println("parallel batch");
+        Random random = new Random(7);
+        double[] latitude = new double[POINTS];
+        double[] longitude = new double[POINTS];
+
+        for (int i = 0; i < POINTS; i++) {
+            latitude[i] = random.nextDouble() * 164.0 - 80.0;
+            longitude[i] = random.nextDouble() * 360.0 - 180.0;
+        }
+
+        double[] easting = new double[POINTS];
+        double[] northing = new double[POINTS];
+        int[] zoneNumber = new int[POINTS];
+        char[] zoneLetter = new char[POINTS];
+
+        double[] expEasting = new double[POINTS];
+        double[] expNorthing = new double[POINTS];
+        int[] expZoneNumber = new int[POINTS];
+        char[] expZoneLetter = new char[POINTS];
+
+        ParallelBatchConverter converter = new ParallelBatchConverter(pool, 100);
+        converter.toUTM(latitude, longitude, "NAD27", easting, northing,
+                zoneNumber, zoneLetter);
+        LatLongToUTM.convert(latitude, longitude, "NAD27", expEasting,
+                expNorthing, expZoneNumber, expZoneLetter);
+
+        assertArrayEquals(expEasting, easting, 0.0);
+        assertArrayEquals(expNorthing, northing, 0.0);
+        assertArrayEquals(expZoneNumber, zoneNumber);
+        assertArrayEquals(expZoneLetter, zoneLetter);
+
+        double[] resultLatitude = new double[POINTS];
+        double[] resultLongitude = new double[POINTS];
+        double[] expLatitude = new double[POINTS];
+        double[] expLongitude = new double[POINTS];
+
+        converter.toLatLong(easting, northing, zoneNumber, zoneLetter, "NAD27",
+                resultLatitude, resultLongitude);
+        UTMToLatLong.convert(easting, northing, zoneNumber, zoneLetter, "NAD27",
+                expLatitude, expLongitude);
+
+        assertArrayEquals(expLatitude, resultLatitude, 0.0);
+        assertArrayEquals(expLongitude, resultLongitude, 0.0);
+    }
+
+}
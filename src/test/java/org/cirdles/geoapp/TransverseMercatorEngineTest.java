@@ -0,0 +1,355 @@
+package org.cirdles.geoapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assume;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the primitive projection in TransverseMercatorEngine.
+ */
+public class TransverseMercatorEngineTest {
+
+    private static final double TOLERANCE = 0.01;
+
+    /**
+     * Test of forward method, of class TransverseMercatorEngine.
+     */
+    @Test
+    public void testForward() {
+        System.out.println("forward");
+        TransverseMercatorEngine engine = TransverseMercatorEngine.forDatum(Datum.WGS84);
+
+        double[] easting = new double[2];
+        double[] northing = new double[2];
+
+        engine.forward(84.0, 102.0, 48, easting, northing, 0);
+        engine.forward(-27.11667, -109.36667, 12, easting, northing, 1);
+
+        assertEquals(465005.3453, easting[0], TOLERANCE);
+        assertEquals(9329005.1833, northing[0], TOLERANCE);
+        assertEquals(661896.4774, easting[1], 1e-3);
+        assertEquals(6999590.3797, northing[1], 1e-3);
+    }
+
+    /**
+     * Test of calcZoneNumber, calcZoneLetter and calcHemisphere methods, of
+     * class TransverseMercatorEngine.
+     */
+    @Test
+    public void testZone() {
+        System.out.println("zone");
+        assertEquals(1, TransverseMercatorEngine.calcZoneNumber(-180.0));
+        assertEquals(10, TransverseMercatorEngine.calcZoneNumber(-122.0));
+        assertEquals(31, TransverseMercatorEngine.calcZoneNumber(0.0));
+        assertEquals(48, TransverseMercatorEngine.calcZoneNumber(102.0));
+
+        assertEquals('C', TransverseMercatorEngine.calcZoneLetter(-80.0));
+        assertEquals('M', TransverseMercatorEngine.calcZoneLetter(-1.0));
+        assertEquals('N', TransverseMercatorEngine.calcZoneLetter(0.0));
+        assertEquals('X', TransverseMercatorEngine.calcZoneLetter(84.0));
+        assertEquals('Z', TransverseMercatorEngine.calcZoneLetter(85.0));
+
+        assertEquals('S', TransverseMercatorEngine.calcHemisphere(-21.0));
+        assertEquals('N', TransverseMercatorEngine.calcHemisphere(0.0));
+    }
+
+    /**
+     * Test of calcZoneNumber method with the Norway and Svalbard exceptions,
+     * of class TransverseMercatorEngine.
+     */
+    @Test
+    public void testZoneExceptions() {
+        System.out.println("zone exceptions");
+        assertEquals(48, TransverseMercatorEngine.calcZoneNumber(84.0, 102.0));
+        assertEquals(60, TransverseMercatorEngine.calcZoneNumber(0.0, 180.0));
+        assertEquals(60, TransverseMercatorEngine.calcZoneNumber(180.0));
+        assertEquals(60, TransverseMercatorEngine.calcZoneNumber(179.5));
+
+        // 32V
+        assertEquals(31, TransverseMercatorEngine.calcZoneNumber(60.0, 2.9));
+        assertEquals(32, TransverseMercatorEngine.calcZoneNumber(60.0, 3.0));
+        assertEquals(32, TransverseMercatorEngine.calcZoneNumber(56.0, 5.3));
+        assertEquals(31, TransverseMercatorEngine.calcZoneNumber(55.9, 5.3));
+        assertEquals(31, TransverseMercatorEngine.calcZoneNumber(64.0, 5.3));
+        assertEquals(33, TransverseMercatorEngine.calcZoneNumber(60.0, 12.0));
+
+        // 31X to 37X
+        assertEquals(31, TransverseMercatorEngine.calcZoneNumber(78.0, 8.9));
+        assertEquals(33, TransverseMercatorEngine.calcZoneNumber(78.0, 9.0));
+        assertEquals(33, TransverseMercatorEngine.calcZoneNumber(72.0, 20.9));
+        assertEquals(35, TransverseMercatorEngine.calcZoneNumber(84.0, 21.0));
+        assertEquals(37, TransverseMercatorEngine.calcZoneNumber(78.0, 33.0));
+        assertEquals(37, TransverseMercatorEngine.calcZoneNumber(78.0, 41.9));
+        assertEquals(38, TransverseMercatorEngine.calcZoneNumber(78.0, 42.0));
+        assertEquals(32, TransverseMercatorEngine.calcZoneNumber(71.9, 10.0));
+        assertEquals(32, TransverseMercatorEngine.calcZoneNumber(84.1, 10.0));
+    }
+
+    /**
+     * Test of the Newton iteration count of the inverse method, of class
+     * TransverseMercatorEngine.
+     */
+    @Test
+    public void testInverseIterations() {
+        System.out.println("inverse iterations");
+        TransverseMercatorEngine engine = TransverseMercatorEngine.forDatum(Datum.WGS84);
+        Random random = new Random(11);
+
+        double[] easting = new double[1];
+        double[] northing = new double[1];
+        double[] latitude = new double[1];
+        double[] longitude = new double[1];
+        int maxIterations = 0;
+        long totalIterations = 0;
+        int points = 10000;
+
+        for (int i = 0; i < points; i++) {
+
+            double lat = random.nextDouble() * 164.0 - 80.0;
+            double lon = random.nextDouble() * 360.0 - 180.0;
+            int zone = TransverseMercatorEngine.calcZoneNumber(lon);
+
+            engine.forward(lat, lon, zone, easting, northing, 0);
+            int iterations = engine.inverse(easting[0], northing[0], zone,
+                    TransverseMercatorEngine.calcHemisphere(lat), latitude,
+                    longitude, 0);
+
+            assertEquals(lat, latitude[0], 1e-7);
+            assertEquals(lon, longitude[0], 1e-7);
+
+            maxIterations = Math.max(maxIterations, iterations);
+            totalIterations += iterations;
+        }
+
+        assertTrue(maxIterations <= 3);
+        assertTrue(totalIterations <= 2 * points);
+    }
+
+    /**
+     * Test of withNewtonTolerance method, of class TransverseMercatorEngine.
+     */
+    @Test
+    public void testWithNewtonTolerance() {
+        System.out.println("withNewtonTolerance");
+        TransverseMercatorEngine engine = TransverseMercatorEngine.forDatum(Datum.WGS84)
+                .withNewtonTolerance(1e-3, 1);
+
+        double[] latitude = new double[1];
+        double[] longitude = new double[1];
+
+        assertEquals(1, engine.inverse(465005.3453, 9329005.1833, 48, 'N',
+                latitude, longitude, 0));
+        assertEquals(1e-3, engine.getTolerance(), 0.0);
+        assertEquals(1, engine.getMaxIterations());
+        assertSame(DatumContext.forDatum(Datum.WGS84), engine.getContext());
+    }
+
+    /**
+     * Test of withFastConformalLatitude method, of class
+     * TransverseMercatorEngine.
+     */
+    @Test
+    public void testWithFastConformalLatitude() {
+        System.out.println("withFastConformalLatitude");
+        Random random = new Random(41);
+        double[] exactEasting = new double[1];
+        double[] exactNorthing = new double[1];
+        double[] fastEasting = new double[1];
+        double[] fastNorthing = new double[1];
+        double maxError = 0;
+
+        for (Datum datum : Datum.values()) {
+
+            TransverseMercatorEngine exact = TransverseMercatorEngine.forDatum(datum);
+            TransverseMercatorEngine fast = exact.withFastConformalLatitude();
+            assertTrue(fast.isFastConformalLatitude());
+            assertFalse(exact.isFastConformalLatitude());
+            assertTrue(fast.withNewtonTolerance(1e-3, 2).isFastConformalLatitude());
+
+            for (int i = 0; i < 20000; i++) {
+
+                double latitude = i < 2
+                        ? (i == 0 ? 89.999 : 0.25)
+                        : random.nextDouble() * 180.0 - 90.0;
+                double longitude = random.nextDouble() * 7.0 - 3.5;
+
+                exact.forward(latitude, longitude, 31, exactEasting,
+                        exactNorthing, 0);
+                fast.forward(latitude, longitude, 31, fastEasting,
+                        fastNorthing, 0);
+
+                maxError = Math.max(maxError, Math.max(
+                        Math.abs(exactEasting[0] - fastEasting[0]),
+                        Math.abs(exactNorthing[0] - fastNorthing[0])));
+            }
+        }
+
+        System.out.println("max error " + maxError + " m");
+        assertTrue("max error " + maxError, maxError < 1e-6);
+    }
+
+    /**
+     * Test of withSeriesOrder method, of class TransverseMercatorEngine. The
+     * references are the full series of GRS80 derived from its defining
+     * constants and of every built in datum; the table holds the largest
+     * forward and inverse error, in meters, allowed for each tier.
+     */
+    @Test
+    public void testWithSeriesOrder() {
+        System.out.println("withSeriesOrder");
+        Object[][] maxErrors = {
+            {SeriesOrder.ORDER_4, 1e-7},
+            {SeriesOrder.ORDER_6, 4e-9},
+            {SeriesOrder.FULL, 0.0}};
+
+        List<DatumContext> contexts = new ArrayList<DatumContext>();
+        contexts.add(DatumContext.forEllipsoid("GRS80", 6378137.0,
+                1 / 298.257222101));
+
+        for (Datum datum : Datum.values())
+            contexts.add(DatumContext.forDatum(datum));
+
+        double[] referenceEasting = new double[1];
+        double[] referenceNorthing = new double[1];
+        double[] referenceLatitude = new double[1];
+        double[] referenceLongitude = new double[1];
+        double[] easting = new double[1];
+        double[] northing = new double[1];
+        double[] latitude = new double[1];
+        double[] longitude = new double[1];
+
+        for (DatumContext context : contexts) {
+
+            for (Object[] row : maxErrors) {
+
+                TransverseMercatorEngine reference = new TransverseMercatorEngine(
+                        context);
+                SeriesOrder order = (SeriesOrder) row[0];
+                double maxError = (Double) row[1];
+                TransverseMercatorEngine engine =
+                        reference.withSeriesOrder(order);
+                assertSame(order, engine.getSeriesOrder());
+
+                Random random = new Random(43);
+                double forwardError = 0;
+                double inverseError = 0;
+
+                for (int i = 0; i < 20000; i++) {
+
+                    double pointLatitude = random.nextDouble() * 164.0 - 80.0;
+                    double pointLongitude = random.nextDouble() * 8.0 - 1.0;
+
+                    reference.forward(pointLatitude, pointLongitude, 31,
+                            referenceEasting, referenceNorthing, 0);
+                    engine.forward(pointLatitude, pointLongitude, 31, easting,
+                            northing, 0);
+
+                    forwardError = Math.max(forwardError, Math.max(
+                            Math.abs(referenceEasting[0] - easting[0]),
+                            Math.abs(referenceNorthing[0] - northing[0])));
+
+                    char hemisphere = TransverseMercatorEngine.calcHemisphere(
+                            pointLatitude);
+                    reference.inverse(referenceEasting[0], referenceNorthing[0],
+                            31, hemisphere, referenceLatitude, referenceLongitude,
+                            0);
+                    engine.inverse(referenceEasting[0], referenceNorthing[0],
+                            31, hemisphere, latitude, longitude, 0);
+
+                    // degrees to meters on the ground, about 111 km a degree
+                    inverseError = Math.max(inverseError, 111320 * Math.max(
+                            Math.abs(referenceLatitude[0] - latitude[0]),
+                            Math.abs(referenceLongitude[0] - longitude[0])
+                            * Math.cos(Math.toRadians(pointLatitude))));
+                }
+
+                String tier = context.getName() + " " + order;
+                System.out.println(tier + " forward " + forwardError
+                        + " m, inverse " + inverseError + " m");
+                assertTrue(tier + " forward " + forwardError,
+                        forwardError <= maxError);
+                assertTrue(tier + " inverse " + inverseError,
+                        inverseError <= maxError);
+            }
+        }
+    }
+
+    /**
+     * Test of the range forward method through the SIMD kernel, of class
+     * TransverseMercatorEngine. Skipped where the kernel is not available.
+     */
+    @Test
+    public void testVectorized() {
+        System.out.println("vectorized forward");
+        Random random = new Random(47);
+        int points = 10003;
+        double maxError = 0;
+
+        for (Datum datum : Datum.values()) {
+
+            TransverseMercatorEngine engine = TransverseMercatorEngine.forDatum(datum);
+            Assume.assumeTrue(engine.isVectorized());
+            assertFalse(engine.withFastConformalLatitude().isVectorized());
+
+            double[] latitude = new double[points];
+            double[] longitude = new double[points];
+
+            for (int i = 0; i < points; i++) {
+                latitude[i] = random.nextDouble() * 180.0 - 90.0;
+                longitude[i] = 3.0 + (random.nextDouble() * 8.0 - 4.0)
+                        * (i % 97 == 0 ? 30 : 1);
+            }
+
+            latitude[5] = 0.0;
+            latitude[6] = -0.0;
+            longitude[7] = 3.0;
+
+            double[] easting = new double[points];
+            double[] northing = new double[points];
+            engine.forward(latitude, longitude, 31, easting, northing, 1, points);
+
+            double[] scalarEasting = new double[1];
+            double[] scalarNorthing = new double[1];
+
+            for (int i = 1; i < points; i++) {
+
+                engine.forward(latitude[i], longitude[i], 3.0, scalarEasting,
+                        scalarNorthing, 0);
+
+                maxError = Math.max(maxError, Math.max(
+                        Math.abs(scalarEasting[0] - easting[i]),
+                        Math.abs(scalarNorthing[0] - northing[i])));
+            }
+
+            assertEquals(0.0, easting[0], 0.0);
+
+            // the public batch convert hands runs of one zone to the kernel
+            for (int i = 0; i < points; i++)
+                longitude[i] = 0.5 + random.nextDouble() * 5.0;
+
+            int[] zoneNumber = new int[points];
+            char[] zoneLetter = new char[points];
+            LatLongToUTM.convert(latitude, longitude, datum, easting, northing,
+                    zoneNumber, zoneLetter);
+
+            for (int i = 0; i < points; i++) {
+
+                assertEquals(TransverseMercatorEngine.calcZoneNumber(latitude[i],
+                        longitude[i]), zoneNumber[i]);
+                engine.forward(latitude[i], longitude[i], zoneNumber[i],
+                        scalarEasting, scalarNorthing, 0);
+
+                maxError = Math.max(maxError, Math.max(
+                        Math.abs(scalarEasting[0] - easting[i]),
+                        Math.abs(scalarNorthing[0] - northing[i])));
+            }
+        }
+
+        System.out.println("max error " + maxError + " m");
+        assertTrue("max error " + maxError, maxError < 1e-8);
+    }
+
+}
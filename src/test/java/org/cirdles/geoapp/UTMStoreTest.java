@@ -0,0 +1,192 @@
+package org.cirdles.geoapp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the zone partitioned binary file in UTMStore.
+ */
+public class UTMStoreTest {
+
+    /**
+     * Test of write and open methods, of class UTMStore.
+     */
+    @Test
+    public void testWriteAndOpen() throws IOException {
+        System.out.println("write and open");
+        Random random = new Random(5);
+        int points = 5000;
+
+        double[] latitude = new double[points];
+        double[] longitude = new double[points];
+
+        for (int i = 0; i < points; i++) {
+            latitude[i] = random.nextDouble() * 164.0 - 80.0;
+            longitude[i] = random.nextDouble() * 30.0 - 15.0;
+        }
+
+        double[] easting = new double[points];
+        double[] northing = new double[points];
+        int[] zoneNumber = new int[points];
+        char[] zoneLetter = new char[points];
+
+        LatLongToUTM.convert(latitude, longitude, "WGS84", easting, northing,
+                zoneNumber, zoneLetter);
+
+        File file = File.createTempFile("utm", ".store");
+        file.deleteOnExit();
+        UTMStore.write(file, "WGS84", easting, northing, zoneNumber, zoneLetter);
+
+        UTMStore store = UTMStore.open(file);
+
+        try {
+
+            assertEquals("WGS84", store.getDatumName());
+            assertEquals(points, store.getRecordCount());
+            assertArrayEquals(new int[] {28, 29, 30, 31, 32, 33}, store.getZones());
+            assertNull(store.partition(12));
+
+            // records of a zone keep their batch order
+            UTMStore.Partition partition = store.partition(31);
+            assertEquals(31, partition.getZoneNumber());
+            int record = 0;
+
+            for (int i = 0; i < points; i++) {
+
+                if (zoneNumber[i] != 31)
+                    continue;
+
+                assertEquals(easting[i], partition.getEasting(record), 0.0);
+                assertEquals(northing[i], partition.getNorthing(record), 0.0);
+                assertEquals(zoneLetter[i], partition.getZoneLetter(record));
+                record++;
+            }
+
+            assertEquals(record, partition.size());
+
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Test of partition method with columns mapped in small chunks, and of
+     * points on the antimeridian, of class UTMStore.
+     */
+    @Test
+    public void testChunkedPartition() throws IOException {
+        System.out.println("chunked partition");
+        int points = 37;
+
+        double[] latitude = new double[points];
+        double[] longitude = new double[points];
+
+        for (int i = 0; i < points; i++) {
+            latitude[i] = i * 4.0 - 70.0;
+            longitude[i] = i % 2 == 0 ? 180.0 : 177.5;
+        }
+
+        double[] easting = new double[points];
+        double[] northing = new double[points];
+        int[] zoneNumber = new int[points];
+        char[] zoneLetter = new char[points];
+
+        LatLongToUTM.convert(latitude, longitude, "WGS84", easting, northing,
+                zoneNumber, zoneLetter);
+
+        File file = File.createTempFile("utm", ".store");
+        file.deleteOnExit();
+        UTMStore.write(file, "WGS84", easting, northing, zoneNumber, zoneLetter);
+
+        UTMStore store = UTMStore.open(file);
+
+        try {
+
+            assertArrayEquals(new int[] {60}, store.getZones());
+            UTMStore.Partition partition = store.partition(60, 4);
+            assertEquals(points, partition.size());
+
+            for (int i = 0; i < points; i++) {
+                assertEquals(easting[i], partition.getEasting(i), 0.0);
+                assertEquals(northing[i], partition.getNorthing(i), 0.0);
+                assertEquals(zoneLetter[i], partition.getZoneLetter(i));
+            }
+
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Test of open method with corrupt headers and indexes, of class
+     * UTMStore.
+     */
+    @Test
+    public void testOpenCorrupt() throws IOException {
+        System.out.println("open corrupt");
+        double[] easting = {500000.0, 510000.0, 520000.0, 400000.0, 410000.0};
+        double[] northing = {1000.0, 2000.0, 3000.0, 4000.0, 5000.0};
+        int[] zoneNumber = {31, 31, 31, 32, 32};
+        char[] zoneLetter = {'N', 'N', 'N', 'P', 'P'};
+
+        File file = File.createTempFile("utm", ".store");
+        file.deleteOnExit();
+
+        // position and value of each corruption: partition counts, a zone,
+        // a record count, an offset and a count that no longer adds up
+        long[][] corruptions = {
+            {16, -1}, {16, Integer.MAX_VALUE}, {16, 61}, {64, 0}, {80, 31},
+            {68, -3}, {68, Integer.MAX_VALUE}, {68, 4}, {72, 1L << 40}
+        };
+
+        for (long[] corruption : corruptions) {
+
+            UTMStore.write(file, "WGS84", easting, northing, zoneNumber,
+                    zoneLetter);
+
+            // the offset of an index entry is a long, everything else an int
+            ByteBuffer value = ByteBuffer.allocate(corruption[0] == 72 ? 8 : 4)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+
+            if (corruption[0] == 72)
+                value.putLong(corruption[1]);
+            else
+                value.putInt((int) corruption[1]);
+
+            value.flip();
+            RandomAccessFile raw = new RandomAccessFile(file, "rw");
+
+            try {
+                raw.getChannel().write(value, corruption[0]);
+            } finally {
+                raw.close();
+            }
+
+            try {
+                UTMStore.open(file).close();
+                fail("opened with " + corruption[1] + " at " + corruption[0]);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Test of open method with a file that is not a store, of class UTMStore.
+     */
+    @Test(expected = IOException.class)
+    public void testOpenInvalid() throws IOException {
+        System.out.println("open invalid");
+        File file = File.createTempFile("utm", ".store");
+        file.deleteOnExit();
+
+        UTMStore.open(file);
+    }
+
+}
@@ -0,0 +1,192 @@
+package org.cirdles.geoapp;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import org.junit.Assume;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the UTM to latitude and longitude conversion.
+ */
+public class UTMToLatLongTest {
+
+    /**
+     * Test of batch convert method, of class UTMToLatLong.
+     */
+    @Test
+    public void testConvertBatch() {
+        System.out.println("convert batch");
+        double[] easting = {465005.3449, 277438.2635};
+        double[] northing = {9329005.2, 9889402.0266};
+        int[] zoneNumber = {48, 18};
+        char[] zoneLetter = {'X', 'M'};
+
+        double[] latitude = new double[easting.length];
+        double[] longitude = new double[easting.length];
+
+        UTMToLatLong.convert(easting, northing, zoneNumber, zoneLetter, "WGS84",
+                latitude, longitude);
+
+        for (int i = 0; i < easting.length; i++) {
+
+            char hemisphere = zoneLetter[i] < 'N' ? 'S' : 'N';
+            UTM utm = new UTM(new BigDecimal(easting[i]), new BigDecimal(northing[i]),
+                    hemisphere, zoneNumber[i], zoneLetter[i]);
+
+            String[] expected = UTMToLatLong.convert(utm, "WGS84").split("\n");
+
+            assertEquals(Double.parseDouble(expected[0].substring(10)), latitude[i], 1e-9);
+            assertEquals(Double.parseDouble(expected[1].substring(11)), longitude[i], 1e-9);
+        }
+    }
+
+    /**
+     * Test of toLatLong method, of class UTMToLatLong.
+     */
+    @Test
+    public void testToLatLong() {
+        System.out.println("toLatLong");
+        UTM utm = new UTM(new BigDecimal(465005.3453), new BigDecimal(9329005.1833),
+                'N', 48, 'X');
+
+        LatLong result = UTMToLatLong.toLatLong(utm, "WGS84");
+
+        assertEquals(84.0, result.getLatitude(), 1e-7);
+        assertEquals(102.0, result.getLongitude(), 1e-7);
+    }
+
+    /**
+     * Test that toLatLong inverts LatLongToUTM.convert in both hemispheres
+     * and on both sides of the central meridian.
+     */
+    @Test
+    public void testRoundTrip() {
+        System.out.println("round trip");
+        double[][] points = {{-21.0, 17.0}, {32.0, -122.0}, {-27.11667, -109.36667},
+            {0.0, 0.0}, {-79.5, 44.9}, {60.1, 5.2}};
+
+        for (double[] point : points) {
+
+            UTM utm = LatLongToUTM.convert(point[0], point[1], "NAD83");
+            LatLong result = UTMToLatLong.toLatLong(utm, "NAD83");
+
+            assertEquals(point[0], result.getLatitude(), 1e-7);
+            assertEquals(point[1], result.getLongitude(), 1e-7);
+        }
+    }
+
+    /**
+     * Test of the batch convert method with points that have no latitude
+     * band, of class UTMToLatLong.
+     */
+    @Test
+    public void testConvertBatchOutsideBands() {
+        System.out.println("convert batch outside bands");
+        double[] easting = new double[1];
+        double[] northing = new double[1];
+        int[] zoneNumber = new int[1];
+        char[] zoneLetter = new char[1];
+
+        // south of 80S there is no band and so no hemisphere to invert with
+        LatLongToUTM.convert(new double[] {-82.0}, new double[] {10.0},
+                Datum.WGS84, easting, northing, zoneNumber, zoneLetter);
+        assertEquals('Z', zoneLetter[0]);
+
+        try {
+            UTMToLatLong.convert(easting, northing, zoneNumber, zoneLetter,
+                    Datum.WGS84, new double[1], new double[1]);
+            fail("inverted band Z");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        // the scalar inverse takes the hemisphere itself
+        LatLong result = UTMToLatLong.toLatLong(easting[0], northing[0],
+                zoneNumber[0], 'S', Datum.WGS84);
+        assertEquals(-82.0, result.getLatitude(), 1e-9);
+    }
+
+    /**
+     * Test of format method, of class UTMToLatLong.
+     */
+    @Test
+    public void testFormat() {
+        System.out.println("format");
+        assertEquals("Latitude: -21.5\nLongitude: 17.25",
+                UTMToLatLong.format(new LatLong(-21.5, 17.25)));
+    }
+
+    /**
+     * Test of convertInto method, of class UTMToLatLong.
+     */
+    @Test
+    public void testConvertInto() {
+        System.out.println("convertInto");
+        MutableUTM utm = new MutableUTM();
+        MutableLatLong latLong = new MutableLatLong();
+
+        LatLongToUTM.convertInto(-27.11667, -109.36667, Datum.NAD27, utm);
+        int iterations = UTMToLatLong.convertInto(utm, Datum.NAD27, latLong);
+
+        assertEquals(-27.11667, latLong.getLatitude(), 1e-7);
+        assertEquals(-109.36667, latLong.getLongitude(), 1e-7);
+        assertTrue(iterations >= 1 && iterations <= 3);
+    }
+
+    /**
+     * Test that convertInto does not allocate, of class UTMToLatLong.
+     */
+    @Test
+    public void testConvertIntoAllocation() {
+        System.out.println("convertInto allocation");
+        Assume.assumeTrue(allocatedBytes() >= 0);
+
+        MutableLatLong latLong = new MutableLatLong();
+        double sum = 0;
+
+        // warm up so the measured loop runs compiled code
+        for (int i = 0; i < 200000; i++) {
+            UTMToLatLong.convertInto(200000.0 + i % 600000, 9000000.0 - i,
+                    1 + i % 60, i % 2 == 0 ? 'N' : 'S', Datum.WGS84, latLong);
+            sum += latLong.getLongitude();
+        }
+
+        long before = allocatedBytes();
+
+        for (int i = 0; i < 100000; i++) {
+            UTMToLatLong.convertInto(200000.0 + i % 600000, 9000000.0 - i,
+                    1 + i % 60, i % 2 == 0 ? 'N' : 'S', Datum.WGS84, latLong);
+            sum += latLong.getLongitude();
+        }
+
+        long allocated = allocatedBytes() - before;
+
+        assertFalse(Double.isNaN(sum));
+        // one object per conversion would be at least 16 bytes a call; allow
+        // for the odd allocation by the JIT or the bean itself
+        assertTrue("allocated " + allocated + " bytes", allocated < 100000);
+    }
+
+    /**
+     * @return the bytes allocated so far by the current thread, or -1 if the
+     * JVM cannot tell
+     */
+    private static long allocatedBytes() {
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return -1;
+
+        com.sun.management.ThreadMXBean threads 
+                = (com.sun.management.ThreadMXBean) bean;
+
+        if (!threads.isThreadAllocatedMemorySupported()
+                || !threads.isThreadAllocatedMemoryEnabled())
+            return -1;
+
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+}
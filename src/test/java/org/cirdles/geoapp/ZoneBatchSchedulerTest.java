@@ -0,0 +1,130 @@
+package org.cirdles.geoapp;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the zone grouped batch conversions in ZoneBatchScheduler.
+ */
+public class ZoneBatchSchedulerTest {
+
+    private static final int POINTS = 3000;
+
+    /**
+     * Test of toUTM and toLatLong methods, of class ZoneBatchScheduler.
+     */
+    @Test
+    public void testSameAsBatch() {
+        System.out.println("toUTM and toLatLong");
+        Random random = new Random(17);
+
+        double[] latitude = new double[POINTS];
+        double[] longitude = new double[POINTS];
+
+        for (int i = 0; i < POINTS; i++) {
+            latitude[i] = random.nextDouble() * 164.0 - 80.0;
+            longitude[i] = random.nextDouble() * 360.0 - 180.0;
+        }
+
+        longitude[0] = 180.0;
+        longitude[1] = -180.0;
+
+        double[] easting = new double[POINTS];
+        double[] northing = new double[POINTS];
+        int[] zoneNumber = new int[POINTS];
+        char[] zoneLetter = new char[POINTS];
+
+        LatLongToUTM.convert(latitude, longitude, "NAD27", easting, northing,
+                zoneNumber, zoneLetter);
+
+        double[] scheduledEasting = new double[POINTS];
+        double[] scheduledNorthing = new double[POINTS];
+        int[] scheduledZoneNumber = new int[POINTS];
+        char[] scheduledZoneLetter = new char[POINTS];
+
+        ZoneBatchScheduler scheduler = new ZoneBatchScheduler("NAD27");
+        scheduler.toUTM(latitude, longitude, scheduledEasting,
+                scheduledNorthing, scheduledZoneNumber, scheduledZoneLetter,
+                0, POINTS);
+
+        // zone ranges may go through the SIMD kernel, which rounds
+        // differently from the scalar path by a few nanometers
+        assertArrayEquals(easting, scheduledEasting, 1e-8);
+        assertArrayEquals(northing, scheduledNorthing, 1e-8);
+        assertArrayEquals(zoneNumber, scheduledZoneNumber);
+        assertArrayEquals(zoneLetter, scheduledZoneLetter);
+
+        double[] resultLatitude = new double[POINTS];
+        double[] resultLongitude = new double[POINTS];
+        double[] scheduledLatitude = new double[POINTS];
+        double[] scheduledLongitude = new double[POINTS];
+
+        long iterations = UTMToLatLong.convert(easting, northing, zoneNumber,
+                zoneLetter, "NAD27", resultLatitude, resultLongitude);
+
+        assertEquals(iterations, scheduler.toLatLong(easting, northing,
+                zoneNumber, zoneLetter, scheduledLatitude, scheduledLongitude,
+                0, POINTS));
+        assertArrayEquals(resultLatitude, scheduledLatitude, 0.0);
+        assertArrayEquals(resultLongitude, scheduledLongitude, 0.0);
+    }
+
+    /**
+     * Test of toUTM method with a range, of class ZoneBatchScheduler.
+     */
+    @Test
+    public void testToUTMRange() {
+        System.out.println("toUTM range");
+        double[] latitude = {1.0, 84.0, -27.11667, 2.0};
+        double[] longitude = {1.0, 102.0, -109.36667, 2.0};
+        double[] easting = new double[4];
+        double[] northing = new double[4];
+        int[] zoneNumber = new int[4];
+        char[] zoneLetter = new char[4];
+
+        new ZoneBatchScheduler("WGS84").toUTM(latitude, longitude, easting,
+                northing, zoneNumber, zoneLetter, 1, 3);
+
+        assertEquals(465005.3453, easting[1], 0.01);
+        assertEquals(9329005.1833, northing[1], 0.01);
+        assertEquals(48, zoneNumber[1]);
+        assertEquals('X', zoneLetter[1]);
+        assertEquals(12, zoneNumber[2]);
+        assertEquals('J', zoneLetter[2]);
+        assertEquals(0.0, easting[0], 0.0);
+        assertEquals(0, zoneNumber[3]);
+    }
+
+    /**
+     * Test of toUTM method with longitudes outside of 180W to 180E, of class
+     * ZoneBatchScheduler.
+     */
+    @Test
+    public void testToUTMOutsideLongitudes() {
+        System.out.println("toUTM outside longitudes");
+        double[] latitude = {45.0, 10.0, -30.0};
+        double[] longitude = {200.0, 20.0, -190.0};
+        double[] easting = new double[3];
+        double[] northing = new double[3];
+        int[] zoneNumber = new int[3];
+        char[] zoneLetter = new char[3];
+        double[] expEasting = new double[3];
+        double[] expNorthing = new double[3];
+        int[] expZoneNumber = new int[3];
+        char[] expZoneLetter = new char[3];
+
+        new ZoneBatchScheduler("WGS84").toUTM(latitude, longitude, easting,
+                northing, zoneNumber, zoneLetter, 0, 3);
+        LatLongToUTM.convert(latitude, longitude, "WGS84", expEasting,
+                expNorthing, expZoneNumber, expZoneLetter);
+
+        assertArrayEquals(expZoneNumber, zoneNumber);
+        assertArrayEquals(expZoneLetter, zoneLetter);
+        assertEquals(64, zoneNumber[0]);
+        assertEquals(-1, zoneNumber[2]);
+        assertArrayEquals(expEasting, easting, 1e-8);
+        assertArrayEquals(expNorthing, northing, 1e-8);
+    }
+
+}